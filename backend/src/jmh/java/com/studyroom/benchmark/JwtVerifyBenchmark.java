@@ -0,0 +1,95 @@
+package com.studyroom.benchmark;
+
+import com.studyroom.utils.JwtPrincipal;
+import com.studyroom.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 验证路径基准（每个请求经过 JwtAuthenticationFilter 时执行一次）
+ * <ul>
+ *     <li>parseEachTime：改造前，每次请求解码密钥、新建解析器并验签</li>
+ *     <li>sharedParser：共享 JwtParser，每次请求验签一次</li>
+ *     <li>cachedPrincipal：JwtUtil.verify，同一令牌只验签一次，之后按摘要从缓存读取</li>
+ * </ul>
+ * 运行：mvn -P benchmark verify -Djmh.include=JwtVerifyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = Base64.getEncoder()
+            .encodeToString("studyroomSecretKeystudyroomSecretKeystudyroomSecretKey".getBytes());
+
+    /**
+     * 同时在线的令牌数
+     */
+    private static final int TOKENS = 1000;
+
+    private JwtUtil jwtUtil;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expire", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpire", TimeUnit.HOURS.toMillis(2));
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaximumSize", 10_000L);
+        jwtUtil.init();
+
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = jwtUtil.generateToken("user" + i,
+                    Map.of("userId", (long) i, "username", "user" + i, "role", "student"));
+        }
+    }
+
+    @Benchmark
+    public Claims parseEachTime() {
+        // 改造前的 parseToken：每次解码密钥、新建解析器再验签
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .build()
+                .parseClaimsJws(nextToken())
+                .getBody();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return jwtUtil.parseToken(nextToken());
+    }
+
+    @Benchmark
+    public JwtPrincipal cachedPrincipal() {
+        return jwtUtil.verify(nextToken());
+    }
+
+    private String nextToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(TOKENS)];
+    }
+}
@@ -0,0 +1,90 @@
+package com.studyroom.benchmark;
+
+import com.studyroom.exception.TooManyRequestsException;
+import com.studyroom.utils.LoginRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录限流吞吐量基准：每个键一个原子变量，CAS 更新，不加锁
+ * <ul>
+ *     <li>distinctKeys：各线程使用不同的用户名和 IP，互不竞争</li>
+ *     <li>sameKey：所有线程同时使用同一个用户名和 IP，衡量 CAS 竞争下的吞吐量</li>
+ * </ul>
+ * 容量设置得足够大，测量的是放行路径而不是异常路径
+ * 运行：mvn -P benchmark verify -Djmh.include=LoginRateLimiterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class LoginRateLimiterBenchmark {
+
+    private static final int KEYS = 4096;
+
+    /**
+     * 一小时 10 亿次，突发容量足够整个测量期间使用
+     */
+    private static final int CAPACITY = 1_000_000_000;
+
+    private LoginRateLimiter limiter;
+    private String[] usernames;
+    private String[] clientIps;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = new LoginRateLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "usernameCapacity", CAPACITY);
+        ReflectionTestUtils.setField(limiter, "usernamePeriod", Duration.ofHours(1));
+        ReflectionTestUtils.setField(limiter, "ipCapacity", CAPACITY);
+        ReflectionTestUtils.setField(limiter, "ipPeriod", Duration.ofHours(1));
+        ReflectionTestUtils.setField(limiter, "maximumKeys", (long) KEYS * 4);
+        limiter.init();
+
+        usernames = new String[KEYS];
+        clientIps = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            usernames[i] = "user" + i;
+            clientIps[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public boolean distinctKeys() {
+        int i = ThreadLocalRandom.current().nextInt(KEYS);
+        return acquire(usernames[i], clientIps[i]);
+    }
+
+    @Benchmark
+    public boolean sameKey() {
+        return acquire(usernames[0], clientIps[0]);
+    }
+
+    private boolean acquire(String username, String clientIp) {
+        try {
+            limiter.acquire(username, clientIp);
+            return true;
+        } catch (TooManyRequestsException e) {
+            return false;
+        }
+    }
+}
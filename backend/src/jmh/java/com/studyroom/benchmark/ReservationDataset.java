@@ -0,0 +1,67 @@
+package com.studyroom.benchmark;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/**
+ * 查询基准使用的预约数据：H2 内存库（MySQL 兼容模式），100 万条预约均匀分布在截至今天的最近两年，
+ * 索引与 studyroom.sql 一致；日汇总表包含今天之前的所有日期。
+ * 关闭 H2 的结果复用，否则参数相同的重复查询直接返回上次的结果
+ */
+final class ReservationDataset {
+
+    static final int ROWS = 1_000_000;
+    static final int DAYS = 730;
+
+    private ReservationDataset() {
+    }
+
+    static Connection open(String name) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE");
+        Date today = Date.valueOf(LocalDate.now());
+        Timestamp endOfToday = new Timestamp(Date.valueOf(LocalDate.now().plusDays(1)).getTime() - 1000);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("CREATE TABLE reservations ("
+                    + "id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT, seat_id BIGINT, status VARCHAR(20), "
+                    + "reservation_status VARCHAR(20), reservation_in_time TIMESTAMP, reservation_out_time TIMESTAMP)");
+            // 对应 studyroom.sql 中的 idx_in_time_id；MySQL 可以反向扫描升序索引，H2 不能，所以建为降序
+            statement.execute("CREATE INDEX idx_in_time_id ON reservations (reservation_in_time DESC, id DESC)");
+            statement.execute("CREATE TABLE reservation_daily_stats (stat_date DATE PRIMARY KEY, reservation_count INT)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO reservations "
+                + "(user_id, seat_id, status, reservation_status, reservation_in_time, reservation_out_time) "
+                + "SELECT MOD(X, 5000) + 1, MOD(X, 800) + 1, 'completed', '完成预约', "
+                + "DATEADD(SECOND, -MOD(X * 7919, " + DAYS * 86400 + "), CAST(? AS TIMESTAMP)), "
+                + "DATEADD(SECOND, 7200 - MOD(X * 7919, " + DAYS * 86400 + "), CAST(? AS TIMESTAMP)) "
+                + "FROM SYSTEM_RANGE(1, " + ROWS + ")")) {
+            insert.setTimestamp(1, endOfToday);
+            insert.setTimestamp(2, endOfToday);
+            insert.executeUpdate();
+        }
+        try (PreparedStatement rollup = connection.prepareStatement("INSERT INTO reservation_daily_stats "
+                + "SELECT CAST(reservation_in_time AS DATE), COUNT(*) FROM reservations "
+                + "WHERE reservation_in_time < ? GROUP BY CAST(reservation_in_time AS DATE)")) {
+            rollup.setDate(1, today);
+            rollup.executeUpdate();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+        return connection;
+    }
+
+    static void close(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+}
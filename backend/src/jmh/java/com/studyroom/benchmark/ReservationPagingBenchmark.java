@@ -0,0 +1,113 @@
+package com.studyroom.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预约列表分页基准（100 万条预约）：LIMIT OFFSET 与 按 (reservation_in_time, id) 游标分页，
+ * 两者返回同一页，偏移分页的耗时随深度增长，游标分页与深度无关
+ * 运行：mvn -P benchmark verify -Djmh.include=ReservationPagingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationPagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * 分页深度（跳过的行数）
+     */
+    @Param({"1000", "100000", "500000"})
+    private int depth;
+
+    private Connection connection;
+
+    private PreparedStatement pageByOffset;
+    private PreparedStatement pageByKeyset;
+
+    /**
+     * 上一页最后一行，即游标
+     */
+    private Timestamp cursorTime;
+    private long cursorId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = ReservationDataset.open("reservation_paging");
+        pageByOffset = connection.prepareStatement(
+                "SELECT id, user_id, seat_id, reservation_in_time FROM reservations "
+                        + "ORDER BY reservation_in_time DESC, id DESC LIMIT ? OFFSET ?");
+        // ReservationMapper.xml 中 selectPage 的游标条件；MySQL 从 OR 条件推导出索引范围，
+        // H2 不会，这里显式加上 reservation_in_time <= 游标，使两者都从游标位置开始扫描索引
+        pageByKeyset = connection.prepareStatement(
+                "SELECT id, user_id, seat_id, reservation_in_time FROM reservations "
+                        + "WHERE reservation_in_time <= ? "
+                        + "AND (reservation_in_time < ? OR (reservation_in_time = ? AND id < ?)) "
+                        + "ORDER BY reservation_in_time DESC, id DESC LIMIT ?");
+
+        try (PreparedStatement cursor = connection.prepareStatement(
+                "SELECT reservation_in_time, id FROM reservations "
+                        + "ORDER BY reservation_in_time DESC, id DESC LIMIT 1 OFFSET ?")) {
+            cursor.setInt(1, depth - 1);
+            try (ResultSet rs = cursor.executeQuery()) {
+                rs.next();
+                cursorTime = rs.getTimestamp(1);
+                cursorId = rs.getLong(2);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        ReservationDataset.close(connection);
+    }
+
+    @Benchmark
+    public void pageByOffset(Blackhole blackhole) throws SQLException {
+        pageByOffset.setInt(1, PAGE_SIZE);
+        pageByOffset.setInt(2, depth);
+        consume(pageByOffset, blackhole);
+    }
+
+    @Benchmark
+    public void pageByKeyset(Blackhole blackhole) throws SQLException {
+        pageByKeyset.setTimestamp(1, cursorTime);
+        pageByKeyset.setTimestamp(2, cursorTime);
+        pageByKeyset.setTimestamp(3, cursorTime);
+        pageByKeyset.setLong(4, cursorId);
+        pageByKeyset.setInt(5, PAGE_SIZE);
+        consume(pageByKeyset, blackhole);
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getLong(1));
+                blackhole.consume(rs.getTimestamp(4));
+            }
+        }
+    }
+}
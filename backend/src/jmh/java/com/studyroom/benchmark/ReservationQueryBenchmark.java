@@ -0,0 +1,133 @@
+package com.studyroom.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 仪表盘统计查询基准（100 万条预约）
+ * <ul>
+ *     <li>按天计数：DATE(列) = 日期（不能使用索引） 与 半开区间（使用 reservation_in_time 索引）</li>
+ *     <li>近 7 天趋势：全部查明细 与 已汇总的日期读日汇总表、只有今天查明细</li>
+ * </ul>
+ * 运行：mvn -P benchmark verify -Djmh.include=ReservationQueryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationQueryBenchmark {
+
+    private Connection connection;
+
+    private Date today;
+    private Date yesterday;
+    private Date tomorrow;
+    private Date weekAgo;
+
+    private PreparedStatement countByDateFunction;
+    private PreparedStatement countByRange;
+    private PreparedStatement trendFromDetail;
+    private PreparedStatement trendFromRollup;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = ReservationDataset.open("reservation_query");
+        LocalDate now = LocalDate.now();
+        today = Date.valueOf(now);
+        yesterday = Date.valueOf(now.minusDays(1));
+        tomorrow = Date.valueOf(now.plusDays(1));
+        weekAgo = Date.valueOf(now.minusDays(6));
+
+        // 改写前：对列使用函数
+        countByDateFunction = connection.prepareStatement(
+                "SELECT COUNT(*) FROM reservations WHERE CAST(reservation_in_time AS DATE) = ?");
+        trendFromDetail = connection.prepareStatement(
+                "SELECT CAST(reservation_in_time AS DATE) AS d, COUNT(*) FROM reservations "
+                        + "WHERE CAST(reservation_in_time AS DATE) >= ? AND CAST(reservation_in_time AS DATE) <= ? "
+                        + "GROUP BY CAST(reservation_in_time AS DATE) ORDER BY d");
+        // 改写后：与 ReservationMapper.xml 中的查询相同
+        countByRange = connection.prepareStatement(
+                "SELECT COUNT(*) FROM reservations WHERE reservation_in_time >= ? AND reservation_in_time < ?");
+        trendFromRollup = connection.prepareStatement(
+                "SELECT stat_date AS d, reservation_count FROM reservation_daily_stats "
+                        + "WHERE stat_date >= ? AND stat_date <= ? "
+                        + "UNION ALL "
+                        + "SELECT CAST(reservation_in_time AS DATE) AS d, COUNT(*) FROM reservations "
+                        + "WHERE reservation_in_time >= GREATEST(CAST(? AS DATE), "
+                        + "(SELECT COALESCE(DATEADD(DAY, 1, MAX(stat_date)), CAST(? AS DATE)) FROM reservation_daily_stats)) "
+                        + "AND reservation_in_time < ? "
+                        + "GROUP BY CAST(reservation_in_time AS DATE) ORDER BY d");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        ReservationDataset.close(connection);
+    }
+
+    @Benchmark
+    public long countYesterdayByDateFunction() throws SQLException {
+        countByDateFunction.setDate(1, yesterday);
+        return single(countByDateFunction);
+    }
+
+    @Benchmark
+    public long countYesterdayByRange() throws SQLException {
+        countByRange.setDate(1, yesterday);
+        countByRange.setDate(2, today);
+        return single(countByRange);
+    }
+
+    @Benchmark
+    public void weekTrendFromDetail(Blackhole blackhole) throws SQLException {
+        trendFromDetail.setDate(1, weekAgo);
+        trendFromDetail.setDate(2, today);
+        consume(trendFromDetail, blackhole);
+    }
+
+    @Benchmark
+    public void weekTrendFromRollup(Blackhole blackhole) throws SQLException {
+        trendFromRollup.setDate(1, weekAgo);
+        trendFromRollup.setDate(2, today);
+        trendFromRollup.setDate(3, weekAgo);
+        trendFromRollup.setDate(4, weekAgo);
+        trendFromRollup.setDate(5, tomorrow);
+        consume(trendFromRollup, blackhole);
+    }
+
+    private static long single(PreparedStatement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getObject(1));
+                blackhole.consume(rs.getObject(2));
+            }
+        }
+    }
+}
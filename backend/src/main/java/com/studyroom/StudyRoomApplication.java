@@ -3,8 +3,10 @@ package com.studyroom;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 @MapperScan(basePackages = "com.studyroom.mapper")
 public class StudyRoomApplication {
     public static void main(String[] args) {
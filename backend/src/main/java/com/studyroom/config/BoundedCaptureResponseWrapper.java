@@ -0,0 +1,96 @@
+package com.studyroom.config;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * 截取响应开头内容的包装
+ * 写入的内容直接传给原响应，同时复制开头最多 limit 字节，超出部分不保留。
+ * 只截取 getOutputStream 写出的内容（消息转换器写 JSON 使用输出流），getWriter 直接透传
+ */
+public class BoundedCaptureResponseWrapper extends HttpServletResponseWrapper {
+
+    private final int limit;
+    private final ByteArrayOutputStream captured;
+    private ServletOutputStream outputStream;
+
+    public BoundedCaptureResponseWrapper(HttpServletResponse response, int limit) {
+        super(response);
+        this.limit = limit;
+        this.captured = new ByteArrayOutputStream(Math.min(limit, 256));
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CaptureOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    /**
+     * 已截取的响应开头内容
+     */
+    public synchronized byte[] getCapturedBytes() {
+        return captured.toByteArray();
+    }
+
+    private synchronized void capture(byte[] bytes, int offset, int length) {
+        int remaining = limit - captured.size();
+        if (remaining > 0) {
+            captured.write(bytes, offset, Math.min(remaining, length));
+        }
+    }
+
+    private synchronized void capture(int b) {
+        if (captured.size() < limit) {
+            captured.write(b);
+        }
+    }
+
+    private final class CaptureOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        private CaptureOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            delegate.write(bytes, offset, length);
+            capture(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
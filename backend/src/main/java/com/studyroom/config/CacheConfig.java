@@ -0,0 +1,106 @@
+package com.studyroom.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.studyroom.utils.TwoLevelCacheManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 缓存配置
+ * 自习室、座位和公告信息很少变化，读取结果缓存在本地（Caffeine，W-TinyLFU 淘汰），写操作时清除对应缓存。
+ * 启用 Redis 时为两级缓存：Redis 在各节点间共享缓存内容，写操作通过 Redis 发布失效消息，
+ * 其他节点随即清除本地条目；Redis 不可用时退回只用本地缓存，并缩短过期时间。
+ * 读取方法的 @Cacheable 使用 sync 模式，由缓存自己加载：同一个键并发未命中只查询一次，
+ * 加载期间被失效时不把查询到的旧值写入缓存
+ */
+@Configuration
+// 缓存切面在事务切面外层，事务提交后再清除缓存，避免并发读取把未提交前的旧数据重新放入缓存
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    /**
+     * 自习室列表（全部、可用）
+     */
+    public static final String ROOM_LIST = "roomList";
+
+    /**
+     * 自习室详情，按自习室ID
+     */
+    public static final String ROOM = "room";
+
+    /**
+     * 自习室座位列表，按自习室ID
+     */
+    public static final String ROOM_SEATS = "roomSeats";
+
+    /**
+     * 自习室可用座位列表，按自习室ID
+     */
+    public static final String ROOM_AVAILABLE_SEATS = "roomAvailableSeats";
+
+    /**
+     * 公告列表（全部、按类型、有效、最新）
+     */
+    public static final String ANNOUNCEMENT_LIST = "announcementList";
+
+    /**
+     * 公告详情，按公告ID
+     */
+    public static final String ANNOUNCEMENT = "announcement";
+
+    private static final List<String> CACHE_NAMES =
+            List.of(ROOM_LIST, ROOM, ROOM_SEATS, ROOM_AVAILABLE_SEATS, ANNOUNCEMENT_LIST, ANNOUNCEMENT);
+
+    @Value("${cache.catalog.maximum-size:1000}")
+    private long maximumSize;
+
+    @Value("${cache.catalog.ttl:30m}")
+    private Duration ttl;
+
+    @Value("${cache.redis.enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${cache.redis.channel:studyroom:cache:invalidate}")
+    private String channel;
+
+    @Value("${cache.redis.key-prefix:studyroom:cache:}")
+    private String keyPrefix;
+
+    @Value("${cache.redis.retry-interval:30s}")
+    private Duration retryInterval;
+
+    @Value("${cache.redis.fallback-ttl:30s}")
+    private Duration fallbackTtl;
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     RedisMessageListenerContainer redisMessageListenerContainer) {
+        if (redisEnabled) {
+            TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(connectionFactory, CACHE_NAMES, maximumSize,
+                    ttl, fallbackTtl, retryInterval, channel, keyPrefix);
+            // 订阅其他节点发布的缓存失效消息
+            redisMessageListenerContainer.addMessageListener(cacheManager, new ChannelTopic(channel));
+            return cacheManager;
+        }
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                // 绕过业务接口直接修改数据库时，最多在该时间后失效
+                .expireAfterWrite(ttl)
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCacheNames(CACHE_NAMES);
+        return cacheManager;
+    }
+}
@@ -0,0 +1,76 @@
+package com.studyroom.config;
+
+import com.studyroom.utils.JwtPrincipal;
+import com.studyroom.utils.JwtUtil;
+import com.studyroom.utils.TokenRevocationStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * JWT 认证过滤器
+ * 从 Authorization 请求头读取令牌（可带或不带 Bearer 前缀），验证后把令牌中的用户ID和角色放入 SecurityContext。
+ * 认证只依赖令牌本身，不查询数据库，吊销检查通常只读本地布隆过滤器；令牌缺失或无效时按匿名请求继续，由授权规则决定是否返回 401
+ */
+@Slf4j
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+
+    private final TokenRevocationStore tokenRevocationStore;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenRevocationStore tokenRevocationStore) {
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocationStore = tokenRevocationStore;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String token = resolveToken(request);
+        if (token != null) {
+            try {
+                JwtPrincipal principal = jwtUtil.verify(token);
+                // 刷新令牌只能用于换取新令牌；已注销的令牌大多在本地过滤器即可排除
+                if (!principal.isRefresh() && principal.getUserId() != null
+                        && !tokenRevocationStore.isRevoked(principal)) {
+                    List<SimpleGrantedAuthority> authorities = principal.getRole() != null
+                            ? List.of(new SimpleGrantedAuthority("ROLE_" + principal.getRole().toUpperCase(Locale.ROOT)))
+                            : List.of();
+                    SecurityContext context = SecurityContextHolder.createEmptyContext();
+                    context.setAuthentication(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+                    SecurityContextHolder.setContext(context);
+                }
+            } catch (Exception e) {
+                log.debug("令牌验证失败，请求路径: {}, 原因: {}", request.getRequestURI(), e.getMessage());
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String resolveToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        String token = header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())
+                ? header.substring(BEARER_PREFIX.length())
+                : header;
+        token = token.trim();
+        return token.isEmpty() ? null : token;
+    }
+}
@@ -0,0 +1,23 @@
+package com.studyroom.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis 配置
+ */
+@Configuration
+public class RedisConfig {
+
+    /**
+     * 共享的 Redis 消息监听容器，缓存失效、令牌吊销等广播消息都通过它订阅，只占用一个订阅连接
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
@@ -0,0 +1,70 @@
+package com.studyroom.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 请求/响应内容截取过滤器
+ * 只包装配置的 JSON 接口，供请求日志读取请求体和响应开头：请求体最多缓存 max-bytes 字节，
+ * 响应直接写给客户端，同时只复制开头 max-bytes 字节，不缓存整个响应。
+ * 静态资源、图片、SSE 推送、数据导出和文件上传不包装，不占用额外内存
+ */
+@Component
+public class RequestCaptureFilter extends OncePerRequestFilter {
+
+    /**
+     * 需要截取内容的路由前缀（不含 context-path）
+     */
+    @Value("${request-capture.include:/auth/,/user/,/reservation/,/checkin/,/room/,/seat/,/announcement/,/carousel/,/college/,/dashboard/,/settings/,/cache/}")
+    private List<String> includePrefixes;
+
+    /**
+     * 在包含的路由中仍然跳过的前缀
+     */
+    @Value("${request-capture.exclude:/user/upload/}")
+    private List<String> excludePrefixes;
+
+    @Value("${request-capture.max-bytes:4096}")
+    private int maxBytes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri.endsWith("/stream")) {
+            return true;
+        }
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)) {
+            return true;
+        }
+        String path = uri.substring(request.getContextPath().length());
+        return !matches(path, includePrefixes) || matches(path, excludePrefixes);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // 异步请求再次派发时沿用首次派发的包装对象，不需要再次经过过滤器
+        filterChain.doFilter(new ContentCachingRequestWrapper(request, maxBytes),
+                new BoundedCaptureResponseWrapper(response, maxBytes));
+    }
+
+    private static boolean matches(String path, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (!prefix.isEmpty() && path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
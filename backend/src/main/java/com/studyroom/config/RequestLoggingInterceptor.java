@@ -1,131 +1,174 @@
 package com.studyroom.config;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.studyroom.utils.JwtPrincipal;
+import com.studyroom.utils.RequestLogEvent;
+import com.studyroom.utils.RequestLogWriter;
+import com.studyroom.utils.SecurityUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.util.ContentCachingRequestWrapper;
-
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.web.util.ContentCachingResponseWrapper;
-
-import java.util.Enumeration;
-
+import org.springframework.web.util.WebUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求日志拦截器
+ * 请求结束时只生成一条精简的日志记录交给 RequestLogWriter 异步写出，脱敏和格式化都在后台线程完成。
+ * 正常请求按路由采样，出错的请求（HTTP 状态码 >= 400、抛出异常或返回的 Result 不是成功）总是记录
+ */
+@Slf4j
 @Component
 public class RequestLoggingInterceptor implements HandlerInterceptor {
 
-    private static final Logger log = LoggerFactory.getLogger(RequestLoggingInterceptor.class);
-
-    @Override
-    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        // 记录请求基本信息，不读取请求体
-        logRequestBasicInfo(request);
-        return true;
-    }
-
-    @Override
-    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
-        // 如果需要记录响应信息，可以在这里记录
-        logResponseInfo(request, response);
-    }
-
-    private void logRequestBasicInfo(HttpServletRequest request) {
-        StringBuilder requestInfo = new StringBuilder();
-        requestInfo.append("[REQUEST] ").append(request.getMethod()).append(" ").append(request.getRequestURI());
-
-        // 记录查询参数
-        String queryString = request.getQueryString();
-        if (queryString != null) {
-            requestInfo.append("?").append(queryString);
-        }
-
-        // 记录请求头
-        requestInfo.append("\nHeaders: {");
-        Enumeration<String> headerNames = request.getHeaderNames();
-        while (headerNames.hasMoreElements()) {
-            String headerName = headerNames.nextElement();
-            String headerValue = request.getHeader(headerName);
-            if (headerName.equalsIgnoreCase("authorization") && headerValue != null && headerValue.length() > 20) {
-                // 对token进行脱敏处理
-                headerValue = headerValue.substring(0, 10) + "...";
+    private static final String START_ATTRIBUTE = RequestLoggingInterceptor.class.getName() + ".start";
+
+    /**
+     * 判断 Result 是否成功时只看响应体开头
+     */
+    private static final int RESULT_PEEK_BYTES = 64;
+
+    @Autowired
+    private RequestLogWriter requestLogWriter;
+
+    /**
+     * 默认采样率，0 到 1
+     */
+    @Value("${request-log.sample-rate:1.0}")
+    private double defaultSampleRate;
+
+    /**
+     * 按路由前缀的采样率，格式为 前缀=采样率，如 /seat/=0.1
+     */
+    @Value("${request-log.route-sample-rates:}")
+    private List<String> routeSampleRateConfig;
+
+    /**
+     * 记录的请求体最大字符数
+     */
+    @Value("${request-log.max-body-length:2048}")
+    private int maxBodyLength;
+
+    /**
+     * 按前缀长度从长到短排列，优先匹配最具体的路由
+     */
+    private final List<RouteSampleRate> routeSampleRates = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        for (String entry : routeSampleRateConfig) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0) {
+                continue;
             }
-            requestInfo.append(headerName).append("=").append(headerValue);
-            if (headerNames.hasMoreElements()) {
-                requestInfo.append(", ");
+            try {
+                routeSampleRates.add(new RouteSampleRate(entry.substring(0, eq).trim(),
+                        Double.parseDouble(entry.substring(eq + 1).trim())));
+            } catch (NumberFormatException e) {
+                log.warn("请求日志采样率配置无效: {}", entry);
             }
         }
-        requestInfo.append("}");
+        routeSampleRates.sort(Comparator.comparingInt((RouteSampleRate r) -> r.prefix.length()).reversed());
+    }
 
-        // 如果是GET请求，不记录请求体
-        if ("GET".equalsIgnoreCase(request.getMethod())) {
-            log.info(requestInfo.toString());
-            return;
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 异步请求再次派发时保留首次派发的开始时间
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
         }
-
-        // 对于POST/PUT等请求，安全地记录请求体
-        logRequestWithBody(request, requestInfo.toString());
+        return true;
     }
 
-    private void logRequestWithBody(HttpServletRequest request, String baseInfo) {
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
         try {
-            // 检查是否是包装过的请求
-            if (request instanceof ContentCachingRequestWrapper) {
-                ContentCachingRequestWrapper wrapper = (ContentCachingRequestWrapper) request;
-                byte[] content = wrapper.getContentAsByteArray();
-
-                if (content.length > 0) {
-                    String requestBody = new String(content, request.getCharacterEncoding());
-                    // 对敏感信息进行脱敏处理
-                    requestBody = maskSensitiveData(requestBody);
-                    log.info("{}\nBody: {}", baseInfo, requestBody);
-                } else {
-                    log.info(baseInfo);
-                }
-            } else {
-                // 如果没有包装，只记录基本信息
-                log.info(baseInfo);
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            int status = response.getStatus();
+            boolean error = ex != null || status >= 400 || isErrorResult(response);
+            if (!error && !sampled(path)) {
+                return;
             }
+            Object start = request.getAttribute(START_ATTRIBUTE);
+            long durationMillis = start instanceof Long
+                    ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - (Long) start) : -1L;
+            JwtPrincipal principal = SecurityUtils.getPrincipal();
+            requestLogWriter.submit(new RequestLogEvent(System.currentTimeMillis(), request.getMethod(),
+                    request.getRequestURI(), request.getQueryString(), status, durationMillis,
+                    request.getRemoteAddr(), principal != null ? principal.getUserId() : null,
+                    "GET".equalsIgnoreCase(request.getMethod()) ? null : requestBody(request),
+                    ex != null ? ex.getClass().getSimpleName() + ": " + ex.getMessage() : error ? "failed" : null));
         } catch (Exception e) {
-            // 记录请求体时出错，只记录基本信息
-            log.warn("Failed to log request body: {}", e.getMessage());
-            log.info(baseInfo);
+            log.debug("生成请求日志失败: {}", e.getMessage());
         }
     }
 
-    private void logResponseInfo(HttpServletRequest request, HttpServletResponse response) {
-        try {
-            if (response instanceof ContentCachingResponseWrapper) {
-                ContentCachingResponseWrapper wrapper = (ContentCachingResponseWrapper) response;
-                byte[] content = wrapper.getContentAsByteArray();
-
-                if (content.length > 0 && content.length < 10000) { // 只记录较小响应
-                    String responseBody = new String(content, response.getCharacterEncoding());
-                    responseBody = maskSensitiveData(responseBody);
-                    log.info("[RESPONSE] {} {} {} ({}ms)",
-                            request.getMethod(),
-                            request.getRequestURI(),
-                            response.getStatus());
-                }
+    private boolean sampled(String path) {
+        double rate = defaultSampleRate;
+        for (RouteSampleRate route : routeSampleRates) {
+            if (path.startsWith(route.prefix)) {
+                rate = route.rate;
+                break;
             }
-        } catch (Exception e) {
-            // 记录响应时出错，忽略
         }
+        return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
     }
 
-    private String maskSensitiveData(String content) {
-        if (content == null || content.isEmpty()) {
-            return content;
+    /**
+     * 响应体是 Result 且 code 不是 200 时视为出错（业务异常以 HTTP 200 返回）
+     */
+    private boolean isErrorResult(HttpServletResponse response) {
+        BoundedCaptureResponseWrapper wrapper = WebUtils.getNativeResponse(response, BoundedCaptureResponseWrapper.class);
+        if (wrapper == null) {
+            return false;
+        }
+        byte[] content = wrapper.getCapturedBytes();
+        if (content.length == 0) {
+            return false;
         }
+        String head = new String(content, 0, Math.min(content.length, RESULT_PEEK_BYTES), StandardCharsets.UTF_8);
+        int index = head.indexOf("\"code\":");
+        if (index < 0) {
+            return false;
+        }
+        int from = index + 7;
+        return !head.startsWith("200", from) || (head.length() > from + 3 && Character.isDigit(head.charAt(from + 3)));
+    }
+
+    /**
+     * 已读取的请求体，需要 RequestCaptureFilter 包装请求；超长时截断
+     */
+    private String requestBody(HttpServletRequest request) {
+        ContentCachingRequestWrapper wrapper = WebUtils.getNativeRequest(request, ContentCachingRequestWrapper.class);
+        if (wrapper == null) {
+            return null;
+        }
+        byte[] content = wrapper.getContentAsByteArray();
+        if (content.length == 0) {
+            return null;
+        }
+        String body = new String(content, 0, Math.min(content.length, maxBodyLength * 4), StandardCharsets.UTF_8);
+        return body.length() > maxBodyLength ? body.substring(0, maxBodyLength) + "..." : body;
+    }
 
-        // 对密码等敏感信息进行脱敏
-        content = content.replaceAll("\"password\"\\s*:\\s*\".*?\"", "\"password\":\"******\"");
-        content = content.replaceAll("\"newPassword\"\\s*:\\s*\".*?\"", "\"newPassword\":\"******\"");
-        content = content.replaceAll("\"oldPassword\"\\s*:\\s*\".*?\"", "\"oldPassword\":\"******\"");
-        content = content.replaceAll("\"token\"\\s*:\\s*\".*?\"", "\"token\":\"******\"");
-        content = content.replaceAll("\"accessToken\"\\s*:\\s*\".*?\"", "\"accessToken\":\"******\"");
-        content = content.replaceAll("\"refreshToken\"\\s*:\\s*\".*?\"", "\"refreshToken\":\"******\"");
+    private static final class RouteSampleRate {
 
-        return content;
+        private final String prefix;
+        private final double rate;
+
+        private RouteSampleRate(String prefix, double rate) {
+            this.prefix = prefix;
+            this.rate = rate;
+        }
     }
-}
\ No newline at end of file
+}
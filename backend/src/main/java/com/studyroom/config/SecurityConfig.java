@@ -1,22 +1,31 @@
 package com.studyroom.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.studyroom.utils.JwtUtil;
+import com.studyroom.utils.Result;
+import com.studyroom.utils.TokenRevocationStore;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.web.cors.CorsConfiguration;
-import org.springframework.web.cors.CorsConfigurationSource;
-import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtUtil jwtUtil, TokenRevocationStore tokenRevocationStore,
+                                                   ObjectMapper objectMapper) throws Exception {
         http
             .authorizeHttpRequests(authorize -> authorize
                 // 允许访问Swagger/Knife4j相关路径
@@ -30,35 +39,57 @@ public class SecurityConfig {
                     "/swagger-resources/**",
                     "/swagger-resources"
                 ).permitAll()
-                // 允许访问登录和注册接口
-                .requestMatchers("/auth/**").permitAll()
-                // 允许访问测试接口
-                .requestMatchers("/test/**").permitAll()
-                // 允许访问数据库测试接口
-                .requestMatchers("/sql/**").permitAll()
-                    // 运行访问用户接口
-                .requestMatchers("/user/**").permitAll()
-                .requestMatchers("/room/**").permitAll()
-                .requestMatchers("/seat/**").permitAll()
-                .requestMatchers("/announcement/**").permitAll()
-                .requestMatchers("/reservation/**").permitAll()
-                .requestMatchers("/checkin/**").permitAll()
-                .requestMatchers("/carousel/**").permitAll()
-                .requestMatchers("/dashboard/**").permitAll()
-                .requestMatchers("/college/**").permitAll()
-
+                // 跨域预检请求不带令牌
+                .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                // 允许访问登录、注册、刷新令牌和找回密码接口
+                .requestMatchers("/auth/login", "/auth/register", "/auth/refresh", "/auth/reset-password/**",
+                        "/auth/logout").permitAll()
+                .requestMatchers("/auth/**").authenticated()
+                // 测试接口和数据库测试接口可以直接读写所有表，只允许管理员
+                .requestMatchers("/test/**", "/sql/**").hasRole("ADMIN")
+                // 自习室、座位、公告等公开信息可以匿名浏览，修改需要管理员
+                .requestMatchers(HttpMethod.GET, "/room/**", "/seat/**", "/announcement/**", "/carousel/**",
+                        "/college/**").permitAll()
+                .requestMatchers("/room/**", "/seat/**", "/announcement/**", "/carousel/**", "/college/**")
+                    .hasRole("ADMIN")
+                // 用户自己的数据需要登录，具体用户范围由控制器按令牌中的用户ID限定
+                .requestMatchers("/user/profile", "/user/upload/avatar").authenticated()
+                // 违规记录由管理员登记和处理
+                .requestMatchers("/checkin/violation/create", "/checkin/violation/status/**").hasRole("ADMIN")
+                // 直接改写预约状态会绕过取消、签到等流程的状态检查和时段归还，只允许管理员
+                .requestMatchers("/reservation/status/**").hasRole("ADMIN")
+                .requestMatchers("/reservation/**", "/checkin/**").authenticated()
+                // 用户管理、统计、导出和系统设置只允许管理员
+                .requestMatchers("/user/**", "/dashboard/**", "/export/**", "/cache/**", "/settings/**")
+                    .hasRole("ADMIN")
                     // 运行访问静态资源
                 .requestMatchers("/upload/**","/static/**","/images/**").permitAll()
                 // 其他请求需要认证
                 .anyRequest().authenticated()
             )
+            // 使用 WebMvcConfig 中的跨域配置
+            .cors(Customizer.withDefaults())
             // 暂时禁用CSRF保护，方便测试
             .csrf(csrf -> csrf.disable())
             // 禁用HTTP Basic认证
-            .httpBasic(httpBasic -> httpBasic.disable());
+            .httpBasic(httpBasic -> httpBasic.disable())
+            // 无状态认证，每个请求由令牌认证，不创建会话
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint((request, response, e) ->
+                        writeJson(response, objectMapper, HttpServletResponse.SC_UNAUTHORIZED, Result.unauthorized()))
+                .accessDeniedHandler((request, response, e) ->
+                        writeJson(response, objectMapper, HttpServletResponse.SC_FORBIDDEN, Result.forbidden())))
+            .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, tokenRevocationStore), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
-
+    private static void writeJson(HttpServletResponse response, ObjectMapper objectMapper, int status, Result<?> body)
+            throws IOException {
+        response.setStatus(status);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getWriter(), body);
+    }
 }
@@ -1,21 +1,13 @@
 package com.studyroom.config;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
-    @Value("${file.upload.image.path}")
-    private String imageUploadPath;
-
-    @Value("${file.upload.image.url}")
-    private String imageUploadUrl;
-
     private final RequestLoggingInterceptor requestLoggingInterceptor;
 
     public WebMvcConfig(RequestLoggingInterceptor requestLoggingInterceptor) {
@@ -41,16 +33,6 @@ public class WebMvcConfig implements WebMvcConfigurer {
                 );
     }
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // 映射上传的图片资源（考虑context-path）
-        registry.addResourceHandler("/api" + imageUploadUrl + "**")
-                .addResourceLocations("file:" + imageUploadPath);
-        // 同时添加不带/api的映射，确保兼容性
-        registry.addResourceHandler(imageUploadUrl + "**")
-                .addResourceLocations("file:" + imageUploadPath);
-    }
-
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
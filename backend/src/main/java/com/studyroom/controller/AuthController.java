@@ -1,13 +1,13 @@
 package com.studyroom.controller;
 
 import com.studyroom.entity.User;
-import com.studyroom.exception.UnauthorizedException;
 import com.studyroom.service.UserService;
-import com.studyroom.utils.JwtUtil;
+import com.studyroom.utils.LoginRateLimiter;
 import com.studyroom.utils.Result;
-import io.jsonwebtoken.Claims;
+import com.studyroom.utils.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,11 +23,14 @@ public class AuthController {
     private UserService userService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private LoginRateLimiter loginRateLimiter;
 
     @Operation(summary = "用户登录")
     @PostMapping("/login")
-    public Result<?> login(@RequestParam String username, @RequestParam String password) {
+    public Result<?> login(@RequestParam String username, @RequestParam String password, HttpServletRequest request) {
+        // 超出登录频率限制时直接拒绝，不查询数据库；
+        // 在反向代理之后时客户端 IP 由 server.forward-headers-strategy 从可信代理的 X-Forwarded-For 还原
+        loginRateLimiter.acquire(username, request.getRemoteAddr());
         return userService.login(username, password);
     }
 
@@ -45,8 +48,8 @@ public class AuthController {
 
     @Operation(summary = "修改密码")
     @PostMapping("/change-password")
-    public Result<?> changePassword(@RequestParam Long userId, @RequestParam String oldPassword, @RequestParam String newPassword) {
-        return userService.changePassword(userId, oldPassword, newPassword);
+    public Result<?> changePassword(@RequestParam(required = false) Long userId, @RequestParam String oldPassword, @RequestParam String newPassword) {
+        return userService.changePassword(SecurityUtils.resolveUserId(userId), oldPassword, newPassword);
     }
 
     @Operation(summary = "重置密码请求")
@@ -64,27 +67,21 @@ public class AuthController {
 
     @Operation(summary = "实名认证")
     @PostMapping("/verify-identity")
-    public Result<?> verifyIdentity(@RequestParam Long userId, @RequestParam String realName, @RequestParam String idCard) {
-        return userService.verifyIdentity(userId, realName, idCard);
+    public Result<?> verifyIdentity(@RequestParam(required = false) Long userId, @RequestParam String realName, @RequestParam String idCard) {
+        return userService.verifyIdentity(SecurityUtils.resolveUserId(userId), realName, idCard);
     }
 
     @Operation(summary = "获取当前用户信息")
     @GetMapping("/me")
-    public Result<?> getCurrentUserInfo(@RequestHeader("Authorization") String token) {
-        try {
-            // 从token中解析claims
-            Claims claims = jwtUtil.parseToken(token.replace("Bearer ", ""));
-            // 获取userId
-            Long userId = Long.valueOf(claims.get("userId").toString());
-            return userService.getUserInfo(userId);
-        } catch (Exception e) {
-            throw new UnauthorizedException("无效的令牌");
-        }
+    public Result<?> getCurrentUserInfo() {
+        // 用户ID取自认证过滤器已验证的令牌
+        return userService.getUserInfo(SecurityUtils.getCurrentUserId());
     }
 
     @Operation(summary = "用户注销")
     @PostMapping("/logout")
-    public Result<?> logout(@RequestHeader("Authorization") String token) {
-        return userService.logout(token);
+    public Result<?> logout(@RequestHeader(value = "Authorization", required = false) String token,
+                            @RequestParam(required = false) String refreshToken) {
+        return userService.logout(token, refreshToken);
     }
 }
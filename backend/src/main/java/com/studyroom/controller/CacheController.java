@@ -0,0 +1,46 @@
+package com.studyroom.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.studyroom.utils.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Tag(name = "缓存模块", description = "缓存命中统计")
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Operation(summary = "获取缓存统计", description = "各缓存的条目数、命中、未命中和淘汰次数")
+    @GetMapping("/stats")
+    public Result<?> getCacheStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            // 两级缓存统计的是本地一级缓存
+            if (cache == null || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+                continue;
+            }
+            CacheStats stats = nativeCache.stats();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("size", nativeCache.estimatedSize());
+            item.put("hitCount", stats.hitCount());
+            item.put("missCount", stats.missCount());
+            item.put("hitRate", stats.hitRate());
+            item.put("evictionCount", stats.evictionCount());
+            result.put(name, item);
+        }
+        return Result.success(result);
+    }
+}
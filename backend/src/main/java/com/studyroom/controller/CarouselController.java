@@ -3,6 +3,7 @@ package com.studyroom.controller;
 import com.studyroom.entity.Carousel;
 import com.studyroom.service.CarouselService;
 import com.studyroom.utils.FileUploadUtil;
+import com.studyroom.utils.ImageVariant;
 import com.studyroom.utils.Result;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -45,7 +46,7 @@ public class CarouselController {
     @PostMapping("/upload/image")
     public Result<?> uploadImage(@RequestParam("file") MultipartFile file) {
         try {
-            String imageUrl = fileUploadUtil.uploadImage(file);
+            String imageUrl = fileUploadUtil.uploadImage(file, ImageVariant.DISPLAY);
             if (imageUrl != null) {
                 return Result.success("上传成功", imageUrl);
             } else {
@@ -1,9 +1,13 @@
 package com.studyroom.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.studyroom.entity.CheckIn;
+import com.studyroom.entity.Reservation;
 import com.studyroom.entity.Violation;
 import com.studyroom.service.CheckInService;
+import com.studyroom.service.ReservationService;
 import com.studyroom.utils.Result;
+import com.studyroom.utils.SecurityUtils;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -16,51 +20,60 @@ public class CheckInController {
     @Autowired
     private CheckInService checkInService;
 
+    @Autowired
+    private ReservationService reservationService;
+
     @Operation(summary = "签到")
     @PostMapping("/in")
-    public Result<?> checkIn(@RequestParam Long reservationId, @RequestParam Long userId, @RequestParam String method) {
-        return checkInService.checkIn(reservationId, userId, method);
+    public Result<?> checkIn(@RequestParam Long reservationId, @RequestParam(required = false) Long userId, @RequestParam String method) {
+        checkReservationOwner(reservationId);
+        return checkInService.checkIn(reservationId, SecurityUtils.resolveUserId(userId), method);
     }
 
     @Operation(summary = "签出")
     @PostMapping("/out")
     public Result<?> checkOut(@RequestParam Long id) {
+        checkCheckInOwner(id);
         return checkInService.checkOut(id);
     }
 
     @Operation(summary = "暂离")
     @PostMapping("/leave")
     public Result<?> leave(@RequestParam Long id) {
+        checkCheckInOwner(id);
         return checkInService.leave(id);
     }
 
     @Operation(summary = "暂离返回")
     @PostMapping("/return")
     public Result<?> returnFromLeave(@RequestParam Long id) {
+        checkCheckInOwner(id);
         return checkInService.returnFromLeave(id);
     }
 
     @Operation(summary = "获取签到记录详情")
     @GetMapping("/detail/{id}")
     public Result<?> getCheckInDetail(@PathVariable Long id) {
+        checkCheckInOwner(id);
         return checkInService.getCheckInDetail(id);
     }
 
     @Operation(summary = "获取用户签到记录")
     @GetMapping("/list")
-    public Result<?> getCheckInList(@RequestParam(required = false) Long userId, @RequestParam(required = false) String status, @RequestParam(required = false) Integer page, @RequestParam(required = false) Integer size) {
-        return checkInService.getCheckInList(userId, status, page, size);
+    public Result<?> getCheckInList(@RequestParam(required = false) Long userId, @RequestParam(required = false) String status, @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size) {
+        return checkInService.getCheckInList(SecurityUtils.scopeUserId(userId), status, cursor, size);
     }
 
     @Operation(summary = "获取当前签到信息")
     @GetMapping("/current")
-    public Result<?> getCurrentCheckIn(@RequestParam Long userId) {
-        return checkInService.getCurrentCheckIn(userId);
+    public Result<?> getCurrentCheckIn(@RequestParam(required = false) Long userId) {
+        return checkInService.getCurrentCheckIn(SecurityUtils.resolveUserId(userId));
     }
 
     @Operation(summary = "生成签到二维码")
     @GetMapping("/qrcode")
     public Result<?> generateCheckInQrcode(@RequestParam Long reservationId) {
+        checkReservationOwner(reservationId);
         return checkInService.generateCheckInQrcode(reservationId);
     }
 
@@ -84,14 +97,18 @@ public class CheckInController {
 
     @Operation(summary = "获取违规记录列表")
     @GetMapping("/violation/list")
-    public Result<?> getViolationList(@RequestParam(required = false) Long userId, @RequestParam(required = false) String type, @RequestParam(required = false) Integer page, @RequestParam(required = false) Integer size) {
-        return checkInService.getViolationList(userId, type, page, size);
+    public Result<?> getViolationList(@RequestParam(required = false) Long userId, @RequestParam(required = false) String type, @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size) {
+        return checkInService.getViolationList(SecurityUtils.scopeUserId(userId), type, cursor, size);
     }
 
     @Operation(summary = "获取违规记录详情")
     @GetMapping("/violation/detail/{id}")
     public Result<?> getViolationDetail(@PathVariable Long id) {
-        return checkInService.getViolationDetail(id);
+        Result<?> result = checkInService.getViolationDetail(id);
+        if (result.getData() instanceof Violation violation) {
+            SecurityUtils.checkOwner(violation.getUserId());
+        }
+        return result;
     }
 
     @Operation(summary = "更新违规状态")
@@ -99,4 +116,24 @@ public class CheckInController {
     public Result<?> updateViolationStatus(@PathVariable Long id, @RequestParam String status) {
         return checkInService.updateViolationStatus(id, status);
     }
-}
\ No newline at end of file
+
+    /**
+     * 预约必须属于当前用户，管理员不受限制；预约不存在时交给业务层处理
+     */
+    private void checkReservationOwner(Long reservationId) {
+        Reservation reservation = reservationService.getById(reservationId);
+        if (reservation != null) {
+            SecurityUtils.checkOwner(reservation.getUserId());
+        }
+    }
+
+    /**
+     * 签到记录必须属于当前用户，管理员不受限制；记录不存在时交给业务层处理
+     */
+    private void checkCheckInOwner(Long checkInId) {
+        CheckIn checkIn = checkInService.getById(checkInId);
+        if (checkIn != null) {
+            SecurityUtils.checkOwner(checkIn.getUserId());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.studyroom.controller;
+
+import com.studyroom.exception.BusinessException;
+import com.studyroom.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+@Tag(name = "数据导出模块", description = "预约、签到、违规记录导出为 CSV")
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Operation(summary = "导出预约记录", description = "按预约开始日期过滤，日期格式 yyyy-MM-dd，包含结束日期当天")
+    @GetMapping("/reservations")
+    public void exportReservations(@RequestParam(required = false) String startDate,
+                                   @RequestParam(required = false) String endDate,
+                                   HttpServletResponse response) throws IOException {
+        Date start = parseDate(startDate, 0);
+        Date end = parseDate(endDate, 1);
+        prepare(response, "reservations");
+        exportService.exportReservations(start, end, response.getOutputStream());
+    }
+
+    @Operation(summary = "导出签到记录", description = "按签到日期过滤，日期格式 yyyy-MM-dd，包含结束日期当天")
+    @GetMapping("/checkins")
+    public void exportCheckIns(@RequestParam(required = false) String startDate,
+                               @RequestParam(required = false) String endDate,
+                               HttpServletResponse response) throws IOException {
+        Date start = parseDate(startDate, 0);
+        Date end = parseDate(endDate, 1);
+        prepare(response, "checkins");
+        exportService.exportCheckIns(start, end, response.getOutputStream());
+    }
+
+    @Operation(summary = "导出违规记录", description = "按违规日期过滤，日期格式 yyyy-MM-dd，包含结束日期当天")
+    @GetMapping("/violations")
+    public void exportViolations(@RequestParam(required = false) String startDate,
+                                 @RequestParam(required = false) String endDate,
+                                 HttpServletResponse response) throws IOException {
+        Date start = parseDate(startDate, 0);
+        Date end = parseDate(endDate, 1);
+        prepare(response, "violations");
+        exportService.exportViolations(start, end, response.getOutputStream());
+    }
+
+    private void prepare(HttpServletResponse response, String name) {
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "-" + LocalDate.now() + ".csv\"");
+    }
+
+    /**
+     * 解析日期参数，结束日期加一天转为不含的上界
+     */
+    private static Date parseDate(String date, int plusDays) {
+        if (date == null || date.isBlank()) {
+            return null;
+        }
+        try {
+            return Date.from(LocalDate.parse(date.trim()).plusDays(plusDays)
+                    .atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new BusinessException(400, "日期格式错误，应为 yyyy-MM-dd");
+        }
+    }
+}
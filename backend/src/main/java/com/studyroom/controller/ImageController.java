@@ -0,0 +1,55 @@
+package com.studyroom.controller;
+
+import com.studyroom.utils.FileUploadUtil;
+import com.studyroom.utils.StaticFileSender;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Tag(name = "图片模块", description = "上传图片的访问，支持协商缓存和断点续传")
+@RestController
+public class ImageController {
+
+    @Autowired
+    private StaticFileSender staticFileSender;
+
+    @Autowired
+    private FileUploadUtil fileUploadUtil;
+
+    @Value("${file.upload.image.path}")
+    private String imageUploadPath;
+
+    @Operation(summary = "获取上传的图片")
+    @RequestMapping(value = "${file.upload.image.url}{*path}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void getImage(@PathVariable String path, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Path root = Paths.get(imageUploadPath).toAbsolutePath().normalize();
+        Path file = root.resolve(path.startsWith("/") ? path.substring(1) : path).normalize();
+        // 只允许访问上传目录内的文件
+        if (!file.startsWith(root) || file.equals(root)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!Files.exists(file)) {
+            // 缩放版本还没生成完成（或生成失败）时返回原图，不允许浏览器长期缓存
+            Path original = fileUploadUtil.findOriginal(file);
+            if (original != null) {
+                staticFileSender.send(original, request, response, false);
+                return;
+            }
+        }
+        staticFileSender.send(file, request, response);
+    }
+}
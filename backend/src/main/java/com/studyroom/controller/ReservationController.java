@@ -1,8 +1,10 @@
 package com.studyroom.controller;
 
 import com.studyroom.entity.Reservation;
+import com.studyroom.service.BookingQueueService;
 import com.studyroom.service.ReservationService;
 import com.studyroom.utils.Result;
+import com.studyroom.utils.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +12,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 
 @Tag(name = "预约模块",description = "预约模块增删改查")
 @RestController
@@ -19,62 +22,93 @@ public class ReservationController {
     @Autowired
     private ReservationService reservationService;
 
-    @Operation(summary = "获取预约列表")
+    @Autowired
+    private BookingQueueService bookingQueueService;
+
+    @Operation(summary = "获取预约列表", description = "传入 cursor 或 size 时游标分页，返回 records 和 nextCursor")
     @GetMapping("/list")
-    public Result<?> getReservationList(@RequestParam(required = false) Long userId, @RequestParam(required = false) String status, @RequestParam(required = false) Integer page, @RequestParam(required = false) Integer size) {
-        return reservationService.getReservationList(userId, status, page, size);
+    public Result<?> getReservationList(@RequestParam(required = false) Long userId, @RequestParam(required = false) String status, @RequestParam(required = false) String reservationStatus, @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size) {
+        return reservationService.getReservationList(SecurityUtils.scopeUserId(userId), status, reservationStatus, cursor, size);
     }
 
     @Operation(summary = "获取预约详情")
     @GetMapping("/detail/{id}")
     public Result<?> getReservationDetail(@PathVariable Long id) {
+        checkOwner(id);
         return reservationService.getReservationDetail(id);
     }
 
     @Operation(summary = "创建预约")
     @PostMapping("/create")
     public Result<?> createReservation(@RequestBody Reservation reservation) {
+        reservation.setUserId(SecurityUtils.resolveUserId(reservation.getUserId()));
         return reservationService.createReservation(reservation);
     }
 
+    @Operation(summary = "排队创建预约")
+    @PostMapping("/enqueue")
+    public Result<?> enqueueReservation(@RequestBody Reservation reservation) {
+        reservation.setUserId(SecurityUtils.resolveUserId(reservation.getUserId()));
+        return bookingQueueService.enqueue(reservation);
+    }
+
+    @Operation(summary = "查询排队预约结果")
+    @GetMapping("/ticket/{ticketId}")
+    public CompletableFuture<Result<?>> pollReservationTicket(@PathVariable String ticketId, @RequestParam(required = false) Integer wait) {
+        return bookingQueueService.poll(ticketId, wait);
+    }
+
     @Operation(summary = "修改预约")
     @PutMapping("/update/{id}")
     public Result<?> updateReservation(@PathVariable Long id, @RequestBody Reservation reservation) {
+        checkOwner(id);
+        if (!SecurityUtils.isAdmin()) {
+            // 普通用户只能修改时间和座位，用户、状态等字段不能由请求体改写
+            Reservation changes = new Reservation();
+            changes.setSeatId(reservation.getSeatId());
+            changes.setReservationInTime(reservation.getReservationInTime());
+            changes.setReservationOutTime(reservation.getReservationOutTime());
+            reservation = changes;
+        }
         return reservationService.updateReservation(id, reservation);
     }
 
     @Operation(summary = "取消预约")
     @PostMapping("/cancel")
     public Result<?> cancelReservation(@RequestParam Long id) {
+        checkOwner(id);
         return reservationService.cancelReservation(id);
     }
 
     @Operation(summary = "确认预约")
     @PostMapping("/check")
     public Result<?> confirmReservation(@RequestParam Long id) {
+        checkOwner(id);
         return reservationService.confirmReservation(id);
     }
 
     @Operation(summary = "计算预约费用")
     @PostMapping("/fee")
     public Result<?> calculateReservationFee(@RequestParam Long id) {
+        checkOwner(id);
         return reservationService.calculateReservationFee(id);
     }
 
     @Operation(summary = "获取即将开始的预约")
     @GetMapping("/upcoming")
-    public Result<?> getUpcomingReservations(@RequestParam Long userId) {
-        return reservationService.getUpcomingReservations(userId);
+    public Result<?> getUpcomingReservations(@RequestParam(required = false) Long userId) {
+        return reservationService.getUpcomingReservations(SecurityUtils.resolveUserId(userId));
     }
 
     @Operation(summary = "获取今日预约")
     @GetMapping("/today")
-    public Result<?> getTodayReservations(@RequestParam Long userId) {
-        return reservationService.getTodayReservations(userId);
+    public Result<?> getTodayReservations(@RequestParam(required = false) Long userId) {
+        return reservationService.getTodayReservations(SecurityUtils.resolveUserId(userId));
     }
 
 
     @Operation(summary = "检查座位可用性")
+    @GetMapping("/availability")
     public Result<?> checkAvailability(
             @RequestParam Long seatId,
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") Date startTime,
@@ -90,9 +124,19 @@ public class ReservationController {
         return reservationService.getReservationStatistics();
     }
 
-    @Operation(summary = "更新预约状态")
+    @Operation(summary = "更新预约状态", description = "仅管理员")
     @PutMapping("/status/{id}")
     public Result<?> updateReservationStatus(@PathVariable Long id, @RequestParam String status) {
         return reservationService.updateReservationStatus(id, status);
     }
-}
\ No newline at end of file
+
+    /**
+     * 预约必须属于当前用户，管理员不受限制；预约不存在时交给业务层处理
+     */
+    private void checkOwner(Long reservationId) {
+        Reservation reservation = reservationService.getById(reservationId);
+        if (reservation != null) {
+            SecurityUtils.checkOwner(reservation.getUserId());
+        }
+    }
+}
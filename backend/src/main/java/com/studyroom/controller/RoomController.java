@@ -3,14 +3,17 @@ package com.studyroom.controller;
 import com.studyroom.entity.Room;
 import com.studyroom.service.RoomService;
 import com.studyroom.utils.FileUploadUtil;
+import com.studyroom.utils.ImageVariant;
 import com.studyroom.utils.Result;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.Date;
 
 @Tag(name = "自习室模块",description ="处理自习室模块增删改查")
 @RestController
@@ -41,6 +44,12 @@ public class RoomController {
         return roomService.getRoomStatus(id);
     }
 
+    @Operation(summary = "获取自习室座位时段占用网格", description = "一次返回所有座位当天每15分钟时段的占用位图，date 为空时为今天")
+    @GetMapping("/{id}/availability")
+    public Result<?> getRoomAvailability(@PathVariable Long id, @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date date) {
+        return roomService.getRoomAvailability(id, date);
+    }
+
     @Operation(summary = "获取可用的自习室")
     @GetMapping("/available")
     public Result<?> getAvailableRooms() {
@@ -51,7 +60,7 @@ public class RoomController {
     @PostMapping("/upload/image")
     public Result<?> uploadImage(@RequestParam("file") MultipartFile file) {
         try {
-            String imageUrl = fileUploadUtil.uploadImage(file);
+            String imageUrl = fileUploadUtil.uploadImage(file, ImageVariant.DISPLAY);
             if (imageUrl != null) {
                 return Result.success("上传成功", imageUrl);
             } else {
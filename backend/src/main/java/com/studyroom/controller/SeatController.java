@@ -2,11 +2,14 @@ package com.studyroom.controller;
 
 import com.studyroom.entity.Seat;
 import com.studyroom.service.SeatService;
+import com.studyroom.service.SeatStreamService;
 import com.studyroom.utils.Result;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -18,12 +21,22 @@ public class SeatController {
     @Autowired
     private SeatService seatService;
 
+    @Autowired
+    private SeatStreamService seatStreamService;
+
     @Operation(summary = "获取自习室座位列表")
     @GetMapping("/room/{roomId}")
     public Result<?> getSeatsByRoomId(@PathVariable Long roomId) {
         return seatService.getSeatsByRoomId(roomId);
     }
 
+    @Operation(summary = "订阅自习室座位实时状态（SSE）")
+    @GetMapping(value = "/room/{roomId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeats(@PathVariable Long roomId,
+                                  @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return seatStreamService.subscribe(roomId, lastEventId);
+    }
+
     @Operation(summary = "获取自习室可用座位")
     @GetMapping("/room/{roomId}/available")
     public Result<?> getAvailableSeatsByRoomId(@PathVariable Long roomId) {
@@ -3,11 +3,14 @@ package com.studyroom.controller;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.studyroom.config.CacheConfig;
 import com.studyroom.entity.*;
 import com.studyroom.mapper.*;
 import com.studyroom.utils.Result;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Date;
@@ -97,6 +100,10 @@ public class SqlController {
         return Result.success(page);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM, allEntries = true)
+    })
     @PostMapping("/rooms/create")
     public Result<?> createRoom(@RequestBody Room room) {
         room.setCreatedAt(new Date());
@@ -106,6 +113,10 @@ public class SqlController {
         return Result.success(result > 0 ? room : null);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM, allEntries = true)
+    })
     @PutMapping("/rooms/update")
     public Result<?> updateRoom(@RequestBody Room room) {
         room.setUpdatedAt(new Date());
@@ -113,6 +124,12 @@ public class SqlController {
         return Result.success(result > 0 ? roomMapper.selectById(room.getId()) : null);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM_SEATS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM_AVAILABLE_SEATS, allEntries = true)
+    })
     @DeleteMapping("/rooms/delete/{id}")
     public Result<?> deleteRoom(@PathVariable Long id) {
         int result = roomMapper.deleteById(id);
@@ -141,6 +158,10 @@ public class SqlController {
         return Result.success(seats);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_SEATS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM_AVAILABLE_SEATS, allEntries = true)
+    })
     @PostMapping("/seats/create")
     public Result<?> createSeat(@RequestBody Seat seat) {
         seat.setCreatedAt(new Date());
@@ -150,6 +171,10 @@ public class SqlController {
         return Result.success(result > 0 ? seat : null);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_SEATS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM_AVAILABLE_SEATS, allEntries = true)
+    })
     @PutMapping("/seats/update")
     public Result<?> updateSeat(@RequestBody Seat seat) {
         seat.setUpdatedAt(new Date());
@@ -157,6 +182,10 @@ public class SqlController {
         return Result.success(result > 0 ? seatMapper.selectById(seat.getId()) : null);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_SEATS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM_AVAILABLE_SEATS, allEntries = true)
+    })
     @DeleteMapping("/seats/delete/{id}")
     public Result<?> deleteSeat(@PathVariable Long id) {
         int result = seatMapper.deleteById(id);
@@ -0,0 +1,31 @@
+package com.studyroom.controller;
+
+import com.studyroom.service.SystemSettingService;
+import com.studyroom.utils.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@Tag(name = "系统设置模块", description = "查看和修改系统设置")
+@RestController
+@RequestMapping("/settings")
+public class SystemSettingController {
+
+    @Autowired
+    private SystemSettingService systemSettingService;
+
+    @Operation(summary = "获取系统设置列表")
+    @GetMapping("/list")
+    public Result<?> getSettingList() {
+        return systemSettingService.getSettingList();
+    }
+
+    @Operation(summary = "修改系统设置", description = "请求体为 设置键 -> 设置值，保存后立即生效")
+    @PutMapping("/update")
+    public Result<?> updateSettings(@RequestBody Map<String, String> values) {
+        return systemSettingService.updateSettings(values);
+    }
+}
@@ -3,7 +3,9 @@ package com.studyroom.controller;
 import com.studyroom.entity.User;
 import com.studyroom.service.UserService;
 import com.studyroom.utils.FileUploadUtil;
+import com.studyroom.utils.ImageVariant;
 import com.studyroom.utils.Result;
+import com.studyroom.utils.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -106,21 +108,21 @@ public class UserController {
 
     @Operation(summary = "更新个人信息")
     @PutMapping("/profile")
-    public Result<?> updateProfile(@RequestParam Long userId, @RequestBody User user) {
-        return userService.updateUserInfo(userId, user);
+    public Result<?> updateProfile(@RequestParam(required = false) Long userId, @RequestBody User user) {
+        return userService.updateUserInfo(SecurityUtils.resolveUserId(userId), user);
     }
 
     @Operation(summary = "获取个人信息")
     @GetMapping("/profile")
-    public Result<?> getProfile(@RequestParam Long userId) {
-        return userService.getUserInfo(userId);
+    public Result<?> getProfile(@RequestParam(required = false) Long userId) {
+        return userService.getUserInfo(SecurityUtils.resolveUserId(userId));
     }
     
     @Operation(summary = "上传头像")
     @PostMapping("/upload/avatar")
     public Result<?> uploadAvatar(@RequestParam("file") MultipartFile file) {
         try {
-            String imageUrl = fileUploadUtil.uploadImage(file);
+            String imageUrl = fileUploadUtil.uploadImage(file, ImageVariant.THUMBNAIL);
             if (imageUrl != null) {
                 return Result.success("上传成功", imageUrl);
             } else {
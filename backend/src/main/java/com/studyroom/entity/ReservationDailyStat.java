@@ -0,0 +1,23 @@
+package com.studyroom.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+@Data
+@TableName("reservation_daily_stats")
+public class ReservationDailyStat implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.INPUT)
+    private Date statDate;
+
+    private Integer reservationCount;
+
+    private Date updatedAt;
+}
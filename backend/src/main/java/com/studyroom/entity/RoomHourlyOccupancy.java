@@ -0,0 +1,29 @@
+package com.studyroom.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 自习室按小时的占用汇总（主键：自习室 + 日期 + 小时）
+ */
+@Data
+@TableName("room_hourly_occupancy")
+public class RoomHourlyOccupancy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long roomId;
+
+    private Date statDate;
+
+    private Integer statHour;
+
+    private Integer occupiedMinutes;//该小时内座位被占用的总分钟数
+
+    private Integer checkInCount;//该小时内的签到次数
+
+    private Date updatedAt;
+}
@@ -2,8 +2,10 @@ package com.studyroom.exception;
 
 import com.studyroom.utils.Result;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
@@ -56,4 +58,11 @@ public class GlobalExceptionHandler {
         log.error("禁止访问异常，请求路径: {}", request.getRequestURI(), e);
         return Result.forbidden();
     }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Result<?> handleTooManyRequestsException(TooManyRequestsException e, HttpServletRequest request) {
+        log.warn("请求过多，请求路径: {}, 原因: {}", request.getRequestURI(), e.getMessage());
+        return Result.error(429, e.getMessage());
+    }
 }
@@ -2,11 +2,19 @@ package com.studyroom.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.studyroom.entity.CheckIn;
+import com.studyroom.utils.KeysetCursor;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public interface CheckInMapper extends BaseMapper<CheckIn> {
 
+    List<CheckIn> selectPage(@Param("userId") Long userId, @Param("status") String status,
+                             @Param("cursor") KeysetCursor cursor, @Param("limit") int limit);
+
     List<CheckIn> selectByUserId(Long userId);
 
     List<CheckIn> selectByReservationId(Long reservationId);
@@ -16,4 +24,16 @@ public interface CheckInMapper extends BaseMapper<CheckIn> {
     CheckIn selectCurrentByUserId(Long userId);
 
     List<CheckIn> selectByDateRange(String startDate, String endDate);
-}
\ No newline at end of file
+
+    List<CheckIn> selectLeftForUpdate(@Param("deadline") Date deadline, @Param("ids") List<Long> ids);
+
+    int checkOutLeftByIds(@Param("ids") List<Long> ids, @Param("checkOutTime") Date checkOutTime);
+
+    int checkOutById(@Param("id") Long id, @Param("checkOutTime") Date checkOutTime);
+
+    int leaveById(@Param("id") Long id, @Param("leaveTime") Date leaveTime);
+
+    int returnById(@Param("id") Long id, @Param("returnTime") Date returnTime);
+
+    Cursor<Map<String, Object>> streamForExport(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
+}
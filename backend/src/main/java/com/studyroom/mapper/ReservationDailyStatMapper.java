@@ -0,0 +1,18 @@
+package com.studyroom.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.studyroom.entity.ReservationDailyStat;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+
+public interface ReservationDailyStatMapper extends BaseMapper<ReservationDailyStat> {
+
+    Date selectLastStatDate();
+
+    Date selectFirstReservationDate();
+
+    int deleteByDateRange(@Param("fromDate") Date fromDate, @Param("toDate") Date toDate);
+
+    int rollupByDateRange(@Param("fromDate") Date fromDate, @Param("toDate") Date toDate);
+}
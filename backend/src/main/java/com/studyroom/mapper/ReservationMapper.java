@@ -2,12 +2,20 @@ package com.studyroom.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.studyroom.entity.Reservation;
+import com.studyroom.utils.KeysetCursor;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public interface ReservationMapper extends BaseMapper<Reservation> {
 
+    List<Reservation> selectPage(@Param("userId") Long userId, @Param("status") String status,
+                                 @Param("reservationStatus") String reservationStatus,
+                                 @Param("cursor") KeysetCursor cursor, @Param("limit") int limit);
+
     List<Reservation> selectByUserId(Long userId);
 
     List<Reservation> selectBySeatId(Long seatId);
@@ -21,6 +29,20 @@ public interface ReservationMapper extends BaseMapper<Reservation> {
     List<Reservation> selectUpcomingByUserId(Long userId);
 
     List<Reservation> selectTodayByUserId(Long userId);
+
+    List<Reservation> selectBlockingReservations();
+
+    List<Reservation> selectRoomBlockingReservations(@Param("roomId") Long roomId, @Param("startTime") Date startTime, @Param("endTime") Date endTime);
+
+    List<Reservation> selectOverdueBookedForUpdate(@Param("deadline") Date deadline, @Param("ids") List<Long> ids, @Param("limit") int limit);
+
+    int markNoShowByIds(@Param("ids") List<Long> ids);
+
+    int markLeaveTimeoutByIds(@Param("ids") List<Long> ids, @Param("signOutTime") Date signOutTime);
+
+    int cancelById(@Param("id") Long id);
+
+    int checkInById(@Param("id") Long id, @Param("signInTime") Date signInTime);
     
     int countTodayReservations();
     
@@ -31,4 +53,6 @@ public interface ReservationMapper extends BaseMapper<Reservation> {
     int countTotalReservations();
     
     java.util.List<java.util.Map<String, Object>> countReservationsByDateRange(java.util.Date startDate, java.util.Date endDate);
+
+    Cursor<Map<String, Object>> streamForExport(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
 }
@@ -0,0 +1,28 @@
+package com.studyroom.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.studyroom.entity.RoomHourlyOccupancy;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public interface RoomHourlyOccupancyMapper extends BaseMapper<RoomHourlyOccupancy> {
+
+    int upsertBatch(@Param("rows") List<RoomHourlyOccupancy> rows);
+
+    int initBackfillMarker(@Param("cutoff") Date cutoff);
+
+    Date selectPendingBackfillCutoffForUpdate();
+
+    int completeBackfill(@Param("completedAt") Date completedAt);
+
+    List<Map<String, Object>> selectRoomHourlyMinutes(@Param("fromDate") Date fromDate, @Param("fromHour") int fromHour);
+
+    List<Map<String, Object>> selectRoomRanking(@Param("fromDate") Date fromDate, @Param("limit") int limit);
+
+    List<Map<String, Object>> selectHourlyMinutes(@Param("fromDate") Date fromDate);
+
+    List<Map<String, Object>> selectDailyMinutes(@Param("fromDate") Date fromDate, @Param("toDate") Date toDate);
+}
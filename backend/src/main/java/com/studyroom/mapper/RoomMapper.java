@@ -14,8 +14,4 @@ public interface RoomMapper extends BaseMapper<Room> {
     List<Room> selectByBuilding(String building);
 
     List<Room> selectByFloor(Integer floor);
-    
-    java.util.List<java.util.Map<String, Object>> selectRoomRanking();
-    
-    java.util.List<java.util.Map<String, Object>> selectRoomHeatmapData();
 }
\ No newline at end of file
@@ -14,4 +14,6 @@ public interface SeatMapper extends BaseMapper<Seat> {
     Seat selectByRoomIdAndSeatNum(Long roomId, String seatNum);
 
     List<Seat> selectByStatus(String status);
+
+    List<java.util.Map<String, Object>> countByRoom();
 }
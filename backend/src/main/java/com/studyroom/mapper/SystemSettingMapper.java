@@ -0,0 +1,21 @@
+package com.studyroom.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.studyroom.entity.SystemSetting;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+public interface SystemSettingMapper extends BaseMapper<SystemSetting> {
+
+    List<SystemSetting> selectAll();
+
+    SystemSetting selectByKey(@Param("key") String key);
+
+    /**
+     * 设置表版本：行数与所有键值校验和的组合，任一设置增删改都会改变
+     */
+    String selectVersion();
+
+    int updateValueByKey(@Param("key") String key, @Param("value") String value);
+}
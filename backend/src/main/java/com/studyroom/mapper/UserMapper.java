@@ -2,6 +2,9 @@ package com.studyroom.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.studyroom.entity.User;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Map;
 
 public interface UserMapper extends BaseMapper<User> {
 
@@ -12,4 +15,6 @@ public interface UserMapper extends BaseMapper<User> {
     User selectByPhone(String phone);
     
     java.util.List<java.util.Map<String, Object>> selectUserCollegeDistribution();
+
+    int deductCreditBatch(@Param("deductions") Map<Long, Integer> deductions, @Param("minimum") int minimum);
 }
\ No newline at end of file
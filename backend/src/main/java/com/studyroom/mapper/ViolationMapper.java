@@ -2,11 +2,19 @@ package com.studyroom.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.studyroom.entity.Violation;
+import com.studyroom.utils.KeysetCursor;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public interface ViolationMapper extends BaseMapper<Violation> {
 
+    List<Violation> selectPage(@Param("userId") Long userId, @Param("type") String type,
+                               @Param("cursor") KeysetCursor cursor, @Param("limit") int limit);
+
     List<Violation> selectByUserId(Long userId);
 
     List<Violation> selectByReservationId(Long reservationId);
@@ -16,4 +24,8 @@ public interface ViolationMapper extends BaseMapper<Violation> {
     List<Violation> selectByStatus(String status);
 
     List<Violation> selectByDateRange(String startDate, String endDate);
-}
\ No newline at end of file
+
+    int insertBatch(@Param("violations") List<Violation> violations);
+
+    Cursor<Map<String, Object>> streamForExport(@Param("startDate") Date startDate, @Param("endDate") Date endDate);
+}
@@ -0,0 +1,25 @@
+package com.studyroom.service;
+
+import com.studyroom.entity.Reservation;
+import com.studyroom.utils.Result;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface BookingQueueService {
+
+    /**
+     * 将预约请求放入排队队列，立即返回排队凭证
+     * @param reservation 预约信息
+     * @return 排队凭证
+     */
+    Result<?> enqueue(Reservation reservation);
+
+    /**
+     * 查询排队结果，结果未出时最多等待指定时间
+     * @param ticketId 排队凭证
+     * @param waitSeconds 最长等待秒数，0 表示立即返回
+     * @return 排队结果
+     * @throws com.studyroom.exception.ForbiddenException 凭证不属于当前用户
+     */
+    CompletableFuture<Result<?>> poll(String ticketId, Integer waitSeconds);
+}
@@ -2,9 +2,11 @@ package com.studyroom.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.studyroom.entity.CheckIn;
+import com.studyroom.entity.Reservation;
 import com.studyroom.entity.Violation;
 import com.studyroom.utils.Result;
 
+import java.util.Date;
 import java.util.List;
 
 public interface CheckInService extends IService<CheckIn> {
@@ -17,9 +19,22 @@ public interface CheckInService extends IService<CheckIn> {
 
     Result<?> returnFromLeave(Long id);
 
+    /**
+     * 将指定的签到记录中暂离开始时间不晚于截止时间仍未返回的批量签出，对应预约标记为违约
+     * @param deadline 截止时间（当前时间 - 暂离超时时间）
+     * @param ids 签到记录ID
+     * @return 被标记违约的预约
+     */
+    List<Reservation> handleLeaveTimeouts(Date deadline, List<Long> ids);
+
     Result<?> getCheckInDetail(Long id);
 
-    Result<?> getCheckInList(Long userId, String status, Integer page, Integer size);
+    /**
+     * 查询签到记录列表
+     * 传入 cursor 或 size 时按（创建时间, ID）倒序分页，返回 CursorPage；
+     * 只传 userId 时返回该用户的全部签到记录（兼容旧的调用方式）
+     */
+    Result<?> getCheckInList(Long userId, String status, String cursor, Integer size);
 
     Result<?> getCurrentCheckIn(Long userId);
 
@@ -31,7 +46,10 @@ public interface CheckInService extends IService<CheckIn> {
 
     Result<?> createViolation(Violation violation);
 
-    Result<?> getViolationList(Long userId, String type, Integer page, Integer size);
+    /**
+     * 查询违规记录列表，按（创建时间, ID）倒序分页，返回 CursorPage
+     */
+    Result<?> getViolationList(Long userId, String type, String cursor, Integer size);
 
     Result<?> getViolationDetail(Long id);
 
@@ -0,0 +1,31 @@
+package com.studyroom.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+
+/**
+ * 数据导出
+ * 从数据库游标逐行读取并直接写入输出流，内存占用与导出行数无关
+ */
+public interface ExportService {
+
+    /**
+     * 导出预约记录（按预约开始时间过滤）
+     * @param startDate 开始时间（含），为空时不限
+     * @param endDate 结束时间（不含），为空时不限
+     * @param out 输出流
+     * @return 导出行数
+     */
+    long exportReservations(Date startDate, Date endDate, OutputStream out) throws IOException;
+
+    /**
+     * 导出签到记录（按签到时间过滤）
+     */
+    long exportCheckIns(Date startDate, Date endDate, OutputStream out) throws IOException;
+
+    /**
+     * 导出违规记录（按违规时间过滤）
+     */
+    long exportViolations(Date startDate, Date endDate, OutputStream out) throws IOException;
+}
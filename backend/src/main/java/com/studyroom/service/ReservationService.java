@@ -13,7 +13,18 @@ public interface ReservationService extends IService<Reservation> {
 
     Result<?> cancelReservation(Long id);
 
-    Result<?> getReservationList(Long userId, String status, Integer page, Integer size);
+    /**
+     * 查询预约列表
+     * 传入 cursor 或 size 时按（预约开始时间, ID）倒序分页，返回 CursorPage；
+     * 只传 userId 时返回该用户的全部预约（兼容旧的调用方式）
+     * @param userId 用户ID
+     * @param status 状态
+     * @param reservationStatus 预约状态
+     * @param cursor 上一页返回的游标，第一页为空
+     * @param size 每页条数
+     * @return 预约列表
+     */
+    Result<?> getReservationList(Long userId, String status, String reservationStatus, String cursor, Integer size);
 
     Result<?> getReservationDetail(Long id);
 
@@ -21,6 +32,33 @@ public interface ReservationService extends IService<Reservation> {
 
     Result<?> checkReservationConflict(Long seatId, Date startTime, Date endTime);
 
+    /**
+     * 释放预约占用的座位时段（取消、签退、违约时调用）
+     * @param reservation 预约
+     */
+    void releaseSeatSlots(Reservation reservation);
+
+    /**
+     * 按数据库重新同步 Redis 座位时段位图（启动时和 Redis 故障恢复后调用），同步完成前不接受新预约
+     */
+    void resyncSeatSlots();
+
+    /**
+     * 将开始时间早于截止时间仍未签到的预约批量标记为违约，写入违约记录并扣除信用分
+     * @param deadline 截止时间（预约开始时间 + 宽限时间）
+     * @param limit 单批最多处理的预约数
+     * @return 本批被标记违约的预约
+     */
+    List<Reservation> handleNoShowReservations(Date deadline, int limit);
+
+    /**
+     * 将指定的预约中开始时间不晚于截止时间仍未签到的批量标记为违约
+     * @param deadline 截止时间（当前时间 - 宽限时间）
+     * @param ids 预约ID
+     * @return 被标记违约的预约
+     */
+    List<Reservation> handleNoShowReservations(Date deadline, List<Long> ids);
+
     Result<?> calculateReservationFee(Long id);
 
     Result<?> getUpcomingReservations(Long userId);
@@ -0,0 +1,18 @@
+package com.studyroom.service;
+
+import java.util.Date;
+
+public interface ReservationStatsService {
+
+    /**
+     * 重新汇总日期范围内每天的预约数
+     * @param fromDate 开始日期（含）
+     * @param toDate 结束日期（不含）
+     */
+    void rollupDailyStats(Date fromDate, Date toDate);
+
+    /**
+     * 补齐从最后一次汇总到昨天的日汇总（首次运行时从最早的预约开始）
+     */
+    void backfillDailyStats();
+}
@@ -0,0 +1,32 @@
+package com.studyroom.service;
+
+import java.util.Date;
+
+/**
+ * 自习室按小时占用汇总
+ * 签到、签退时增量更新，仪表盘的热力图、排行、高峰时段和趋势直接读取汇总表
+ */
+public interface RoomOccupancyService {
+
+    /**
+     * 记录一次签到
+     * @param seatId 座位ID
+     * @param checkInTime 签到时间
+     */
+    void recordCheckIn(Long seatId, Date checkInTime);
+
+    /**
+     * 记录一次签退，将占用时长按小时拆分累加
+     * @param seatId 座位ID
+     * @param checkInTime 签到时间
+     * @param checkOutTime 签退时间
+     */
+    void recordCheckOut(Long seatId, Date checkInTime, Date checkOutTime);
+
+    /**
+     * 根据已有签到记录重建汇总，只统计首次启动（开始实时更新）之前的签到和签退，之后的由实时更新负责。
+     * 重建结果和完成标记在同一事务中提交，失败时全部回滚，可以重试
+     * @return 重建已完成（本次完成或之前已完成）返回 true
+     */
+    boolean backfill();
+}
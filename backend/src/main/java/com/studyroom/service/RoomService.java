@@ -5,6 +5,7 @@ import com.studyroom.entity.Room;
 import com.studyroom.entity.Seat;
 import com.studyroom.utils.Result;
 
+import java.util.Date;
 import java.util.List;
 
 public interface RoomService extends IService<Room> {
@@ -24,4 +25,14 @@ public interface RoomService extends IService<Room> {
     Result<?> updateRoomStatus(Long id, String status);
 
     Result<?> getRoomStatus(Long id);
+
+    /**
+     * 获取自习室某一天的座位时段占用网格
+     * 座位按行列排序，每个座位占 SLOTS_PER_DAY 位，第 i 个座位第 j 个时段对应第 i * SLOTS_PER_DAY + j 位，
+     * 置位表示该时段不可预约。位图按 long 数组大端序编码为 Base64
+     * @param id 自习室ID
+     * @param date 日期
+     * @return 占用网格
+     */
+    Result<?> getRoomAvailability(Long id, Date date);
 }
\ No newline at end of file
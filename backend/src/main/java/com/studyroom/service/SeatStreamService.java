@@ -0,0 +1,30 @@
+package com.studyroom.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 座位实时状态推送
+ * 每个自习室一个 SSE 通道，订阅时先推送全部座位状态，之后只推送发生变化的座位
+ */
+public interface SeatStreamService {
+
+    /**
+     * 订阅自习室座位状态
+     * @param roomId 自习室ID
+     * @param lastEventId 断线重连时客户端带上的最后一个事件ID（版本号），为空时推送全量状态
+     * @return SSE 连接
+     */
+    SseEmitter subscribe(Long roomId, String lastEventId);
+
+    /**
+     * 座位的预约、签到或状态发生变化后调用，重新计算该座位状态并推送给订阅者。
+     * 在事务中调用时，事务提交后再推送
+     * @param seatId 座位ID
+     */
+    void seatChanged(Long seatId);
+
+    /**
+     * 重新计算有订阅者的自习室的全部座位状态，推送遗漏的变化（如预约开始时间到达）并发送心跳
+     */
+    void reconcile();
+}
@@ -0,0 +1,27 @@
+package com.studyroom.service;
+
+import com.studyroom.utils.Result;
+import com.studyroom.utils.SystemSettings;
+
+import java.util.Map;
+
+public interface SystemSettingService {
+
+    /**
+     * 当前系统设置快照，只读内存，不查询数据库
+     */
+    SystemSettings getSettings();
+
+    Result<?> getSettingList();
+
+    /**
+     * 批量修改设置值，保存后立即重新加载本节点快照
+     * @param values 设置键 -> 设置值
+     */
+    Result<?> updateSettings(Map<String, String> values);
+
+    /**
+     * 设置表版本变化时重新加载快照（其他节点修改设置后由定时检查生效）
+     */
+    void refreshIfChanged();
+}
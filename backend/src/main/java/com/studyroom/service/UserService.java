@@ -26,7 +26,12 @@ public interface UserService extends IService<User> {
 
     Result<?> updateCreditScore(Long userId, Integer score);
 
-    Result<?> logout(String token);
+    /**
+     * 注销，吊销访问令牌和刷新令牌
+     * @param token 访问令牌（可带 Bearer 前缀）
+     * @param refreshToken 刷新令牌，可以为空
+     */
+    Result<?> logout(String token, String refreshToken);
 
     User findByUsername(String username);
 
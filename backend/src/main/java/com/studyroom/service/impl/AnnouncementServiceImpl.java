@@ -1,6 +1,7 @@
 package com.studyroom.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.studyroom.config.CacheConfig;
 import com.studyroom.entity.Announcement;
 import com.studyroom.exception.BusinessException;
 import com.studyroom.mapper.AnnouncementMapper;
@@ -8,6 +9,9 @@ import com.studyroom.service.AnnouncementService;
 import com.studyroom.utils.Result;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -18,6 +22,7 @@ public class AnnouncementServiceImpl extends ServiceImpl<AnnouncementMapper, Ann
     private AnnouncementMapper announcementMapper;
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.ANNOUNCEMENT_LIST, allEntries = true)
     public Result<?> createAnnouncement(Announcement announcement) {
         if (save(announcement)) {
             return Result.success("公告创建成功");
@@ -27,6 +32,10 @@ public class AnnouncementServiceImpl extends ServiceImpl<AnnouncementMapper, Ann
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ANNOUNCEMENT_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ANNOUNCEMENT, key = "#id")
+    })
     public Result<?> updateAnnouncement(Long id, Announcement announcement) {
         Announcement existingAnnouncement = getById(id);
         if (existingAnnouncement == null) {
@@ -42,6 +51,10 @@ public class AnnouncementServiceImpl extends ServiceImpl<AnnouncementMapper, Ann
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ANNOUNCEMENT_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ANNOUNCEMENT, key = "#id")
+    })
     public Result<?> deleteAnnouncement(Long id) {
         Announcement announcement = getById(id);
         if (announcement == null) {
@@ -56,6 +69,7 @@ public class AnnouncementServiceImpl extends ServiceImpl<AnnouncementMapper, Ann
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ANNOUNCEMENT_LIST, key = "'list:' + #type", sync = true)
     public Result<?> getAnnouncementList(String type, Integer page, Integer size) {
         // 这里应该实现分页查询，暂时跳过
         if (type != null && !type.isEmpty()) {
@@ -65,6 +79,7 @@ public class AnnouncementServiceImpl extends ServiceImpl<AnnouncementMapper, Ann
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ANNOUNCEMENT, key = "#id", sync = true)
     public Result<?> getAnnouncementDetail(Long id) {
         Announcement announcement = getById(id);
         if (announcement == null) {
@@ -74,11 +89,16 @@ public class AnnouncementServiceImpl extends ServiceImpl<AnnouncementMapper, Ann
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ANNOUNCEMENT_LIST, key = "'active'", sync = true)
     public Result<?> getActiveAnnouncements() {
         return Result.success(announcementMapper.selectActiveAnnouncements());
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ANNOUNCEMENT_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ANNOUNCEMENT, key = "#id")
+    })
     public Result<?> updateAnnouncementStatus(Long id, Boolean isActive) {
         Announcement announcement = getById(id);
         if (announcement == null) {
@@ -94,6 +114,7 @@ public class AnnouncementServiceImpl extends ServiceImpl<AnnouncementMapper, Ann
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ANNOUNCEMENT_LIST, key = "'recent:' + #limit", sync = true)
     public Result<?> getRecentAnnouncements(int limit) {
         return Result.success(announcementMapper.selectRecentAnnouncements(limit));
     }
@@ -0,0 +1,173 @@
+package com.studyroom.service.impl;
+
+import com.studyroom.entity.Reservation;
+import com.studyroom.exception.BusinessException;
+import com.studyroom.exception.TooManyRequestsException;
+import com.studyroom.service.BookingQueueService;
+import com.studyroom.service.ReservationService;
+import com.studyroom.utils.Result;
+import com.studyroom.utils.SecurityUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预约排队服务
+ * 预约开放时的瞬时请求先进入有界队列，由固定数量的工作线程依次处理，
+ * 避免大量 Tomcat 线程同时争抢数据库连接；队列满时直接拒绝（429）
+ */
+@Slf4j
+@Service
+public class BookingQueueServiceImpl implements BookingQueueService {
+
+    /**
+     * 长轮询最长等待时间（需小于 Servlet 异步请求超时时间）
+     */
+    private static final int MAX_WAIT_SECONDS = 25;
+
+    /**
+     * 停止服务时等待队列中请求处理完成的最长时间
+     */
+    private static final int SHUTDOWN_WAIT_SECONDS = 30;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Value("${reservation.queue.capacity:2000}")
+    private int capacity;
+
+    @Value("${reservation.queue.workers:4}")
+    private int workers;
+
+    @Value("${reservation.queue.ticket-ttl:5m}")
+    private Duration ticketTtl;
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor bookingExecutor;
+
+    private Executor ticketCleaner;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        bookingExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "booking-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ticketCleaner = CompletableFuture.delayedExecutor(ticketTtl.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("预约排队服务启动，工作线程数: {}, 队列容量: {}", workers, capacity);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // 不再接收新请求，已进入队列的请求继续处理
+        bookingExecutor.shutdown();
+        try {
+            if (!bookingExecutor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("预约排队服务停止超时，剩余未处理请求数: {}", bookingExecutor.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            bookingExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // 未处理的请求直接返回失败，避免客户端一直等待
+        for (Ticket ticket : tickets.values()) {
+            ticket.future.complete(Result.error("服务正在停止，预约未处理，请重新预约"));
+        }
+    }
+
+    @Override
+    public Result<?> enqueue(Reservation reservation) {
+        String ticketId = UUID.randomUUID().toString();
+        CompletableFuture<Result<?>> future = new CompletableFuture<>();
+        tickets.put(ticketId, new Ticket(reservation.getUserId(), future));
+        try {
+            bookingExecutor.execute(() -> process(ticketId, reservation, future));
+        } catch (RejectedExecutionException e) {
+            tickets.remove(ticketId);
+            throw new TooManyRequestsException("预约人数过多，请稍后再试");
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("ticketId", ticketId);
+        data.put("status", "queued");
+        data.put("queueDepth", bookingExecutor.getQueue().size());
+        return Result.success("已进入预约队列", data);
+    }
+
+    @Override
+    public CompletableFuture<Result<?>> poll(String ticketId, Integer waitSeconds) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null) {
+            return CompletableFuture.completedFuture(Result.error(404, "排队凭证不存在或已过期"));
+        }
+        // 排队凭证只能由提交预约的用户查询
+        SecurityUtils.checkOwner(ticket.userId);
+
+        CompletableFuture<Result<?>> response = ticket.future.thenApply(result -> ticketStatus(ticketId, "done", result));
+        int wait = waitSeconds == null ? 0 : Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS));
+        if (wait == 0) {
+            return CompletableFuture.completedFuture(response.getNow(ticketStatus(ticketId, "queued", null)));
+        }
+        return response.completeOnTimeout(ticketStatus(ticketId, "queued", null), wait, TimeUnit.SECONDS);
+    }
+
+    private void process(String ticketId, Reservation reservation, CompletableFuture<Result<?>> future) {
+        try {
+            future.complete(reservationService.createReservation(reservation));
+        } catch (BusinessException e) {
+            future.complete(Result.error(e.getCode(), e.getMessage()));
+        } catch (Exception e) {
+            log.error("排队预约处理失败, ticketId: {}", ticketId, e);
+            future.complete(Result.error("预约处理失败: " + e.getMessage()));
+        } finally {
+            // 结果保留一段时间供客户端查询，过期后清理
+            ticketCleaner.execute(() -> tickets.remove(ticketId));
+        }
+    }
+
+    private Result<?> ticketStatus(String ticketId, String status, Result<?> result) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("ticketId", ticketId);
+        data.put("status", status);
+        if (result != null) {
+            data.put("result", result);
+        }
+        return Result.success(data);
+    }
+
+    /**
+     * 排队凭证，记录提交预约的用户
+     */
+    private static final class Ticket {
+
+        private final Long userId;
+        private final CompletableFuture<Result<?>> future;
+
+        private Ticket(Long userId, CompletableFuture<Result<?>> future) {
+            this.userId = userId;
+            this.future = future;
+        }
+    }
+}
@@ -7,21 +7,41 @@ import com.studyroom.entity.Violation;
 import com.studyroom.exception.BusinessException;
 import com.studyroom.mapper.CheckInMapper;
 import com.studyroom.mapper.ReservationMapper;
+import com.studyroom.mapper.UserMapper;
 import com.studyroom.mapper.ViolationMapper;
 import com.studyroom.service.CheckInService;
+import com.studyroom.service.ReservationService;
+import com.studyroom.service.RoomOccupancyService;
+import com.studyroom.service.SeatStreamService;
+import com.studyroom.service.SystemSettingService;
+import com.studyroom.utils.DeadlineTracker;
+import com.studyroom.utils.KeysetCursor;
 import com.studyroom.utils.Result;
+import com.studyroom.utils.SystemSettings;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class CheckInServiceImpl extends ServiceImpl<CheckInMapper, CheckIn> implements CheckInService {
 
+    /**
+     * 可以签出的签到状态：签到中、暂离中、暂离后已返回
+     */
+    private static final Set<String> CHECK_OUT_ALLOWED = Set.of("checked_in", "left", "returned");
+
     @Autowired
     private CheckInMapper checkInMapper;
 
@@ -31,7 +51,38 @@ public class CheckInServiceImpl extends ServiceImpl<CheckInMapper, CheckIn> impl
     @Autowired
     private ReservationMapper reservationMapper;
 
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private DeadlineTracker deadlineTracker;
+
+    @Autowired
+    private RoomOccupancyService roomOccupancyService;
+
+    @Autowired
+    private SeatStreamService seatStreamService;
+
+    @Autowired
+    private SystemSettingService systemSettingService;
+
+    /**
+     * 启动时恢复暂离中的签到记录的返回截止时间
+     */
+    @PostConstruct
+    public void initLeaveDeadlines() {
+        for (CheckIn checkIn : checkInMapper.selectByStatus("left")) {
+            deadlineTracker.trackLeave(checkIn.getId(),
+                    checkIn.getUpdatedAt() != null ? checkIn.getUpdatedAt() : checkIn.getCheckInTime());
+        }
+        log.info("暂离截止时间恢复完成，暂离中签到记录数: {}", deadlineTracker.trackedLeaves());
+    }
+
     @Override
+    @Transactional
     public Result<?> checkIn(Long reservationId, Long userId, String method) {
         // 检查是否已经有签到记录
         CheckIn existingCheckIn = checkInMapper.selectByReservationId(reservationId).stream().findFirst().orElse(null);
@@ -39,23 +90,30 @@ public class CheckInServiceImpl extends ServiceImpl<CheckInMapper, CheckIn> impl
             throw new BusinessException("该预约已经签到");
         }
 
-        // 更新预约表状态为使用中
         Reservation reservation = reservationMapper.selectById(reservationId);
         if (reservation == null) {
             throw new BusinessException("预约不存在");
         }
-        reservation.setReservationStatus("使用中");
-        reservation.setSignInTime(new Date());
-        reservationMapper.updateById(reservation);
+        if (!"已预约".equals(reservation.getReservationStatus())) {
+            throw new BusinessException("当前预约状态不能签到");
+        }
+        // 按状态条件更新为使用中：已取消、违约的预约时段已归还，不能再恢复占用
+        Date now = new Date();
+        if (reservationMapper.checkInById(reservationId, now) == 0) {
+            throw new BusinessException("当前预约状态不能签到");
+        }
+        deadlineTracker.untrackReservation(reservationId);
 
         CheckIn checkIn = new CheckIn();
         checkIn.setReservationId(reservationId);
         checkIn.setUserId(userId);
-        checkIn.setCheckInTime(new Date());
+        checkIn.setCheckInTime(now);
         checkIn.setCheckInMethod(method);
         checkIn.setStatus("checked_in");
 
         if (save(checkIn)) {
+            roomOccupancyService.recordCheckIn(reservation.getSeatId(), checkIn.getCheckInTime());
+            seatStreamService.seatChanged(reservation.getSeatId());
             return Result.success("签到成功");
         } else {
             throw new BusinessException("签到失败");
@@ -63,28 +121,34 @@ public class CheckInServiceImpl extends ServiceImpl<CheckInMapper, CheckIn> impl
     }
 
     @Override
+    @Transactional
     public Result<?> checkOut(Long id) {
         CheckIn checkIn = getById(id);
         if (checkIn == null) {
             throw new BusinessException("签到记录不存在");
         }
+        if (!CHECK_OUT_ALLOWED.contains(checkIn.getStatus())) {
+            throw new BusinessException("当前签到状态不能签出");
+        }
+
+        // 按状态条件更新，已签出的记录不会重复签出
+        Date now = new Date();
+        if (checkInMapper.checkOutById(id, now) == 0) {
+            throw new BusinessException("当前签到状态不能签出");
+        }
+        deadlineTracker.untrackLeave(id);
 
         // 更新预约表状态为完成预约
-        Long reservationId = checkIn.getReservationId();
-        Reservation reservation = reservationMapper.selectById(reservationId);
+        Reservation reservation = reservationMapper.selectById(checkIn.getReservationId());
         if (reservation != null) {
             reservation.setReservationStatus("完成预约");
-            reservation.setSignOutTime(new Date());
+            reservation.setSignOutTime(now);
             reservationMapper.updateById(reservation);
+            // 签退后释放座位剩余时段
+            reservationService.releaseSeatSlots(reservation);
+            roomOccupancyService.recordCheckOut(reservation.getSeatId(), checkIn.getCheckInTime(), now);
         }
-
-        checkIn.setCheckOutTime(new Date());
-        checkIn.setStatus("checked_out");
-        if (updateById(checkIn)) {
-            return Result.success("签出成功");
-        } else {
-            throw new BusinessException("签出失败");
-        }
+        return Result.success("签出成功");
     }
 
     @Override
@@ -94,12 +158,15 @@ public class CheckInServiceImpl extends ServiceImpl<CheckInMapper, CheckIn> impl
             throw new BusinessException("签到记录不存在");
         }
 
-        checkIn.setStatus("left");
-        if (updateById(checkIn)) {
-            return Result.success("暂离成功");
-        } else {
-            throw new BusinessException("暂离失败");
+        // 按状态条件更新并写入暂离开始时间，已签出的记录不会再进入暂离；
+        // 不能用 updateById，它会把读出的旧 updated_at 写回，重启后按旧时间恢复截止时间会立即超时
+        Date now = new Date();
+        if (checkInMapper.leaveById(id, now) == 0) {
+            throw new BusinessException("当前签到状态不能暂离");
         }
+        // 超过暂离时间未返回按违约处理
+        deadlineTracker.trackLeave(id, now);
+        return Result.success("暂离成功");
     }
 
     @Override
@@ -109,12 +176,60 @@ public class CheckInServiceImpl extends ServiceImpl<CheckInMapper, CheckIn> impl
             throw new BusinessException("签到记录不存在");
         }
 
-        checkIn.setStatus("returned");
-        if (updateById(checkIn)) {
-            return Result.success("返回成功");
-        } else {
-            throw new BusinessException("返回失败");
+        // 只有暂离中的记录可以返回，已超时签出的记录不会恢复
+        if (checkInMapper.returnById(id, new Date()) == 0) {
+            throw new BusinessException("当前签到状态不能返回");
+        }
+        deadlineTracker.untrackLeave(id);
+        return Result.success("返回成功");
+    }
+
+    @Override
+    @Transactional
+    public List<Reservation> handleLeaveTimeouts(Date deadline, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
+        List<CheckIn> timedOut = checkInMapper.selectLeftForUpdate(deadline, ids);
+        if (timedOut.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Date now = new Date();
+        checkInMapper.checkOutLeftByIds(timedOut.stream().map(CheckIn::getId).collect(Collectors.toList()), now);
+        List<Long> reservationIds = timedOut.stream().map(CheckIn::getReservationId).collect(Collectors.toList());
+        reservationMapper.markLeaveTimeoutByIds(reservationIds, now);
+
+        // 暂离超时未返回按早退处理
+        SystemSettings settings = systemSettingService.getSettings();
+        int leaveTimeoutPenalty = settings.getEarlyLeavePenalty();
+        List<Violation> violations = new ArrayList<>(timedOut.size());
+        Map<Long, Integer> deductions = new HashMap<>();
+        for (CheckIn checkIn : timedOut) {
+            Violation violation = new Violation();
+            violation.setUserId(checkIn.getUserId());
+            violation.setReservationId(checkIn.getReservationId());
+            violation.setType("暂离超时");
+            violation.setDescription("暂离时间: " + checkIn.getUpdatedAt() + " 超时未返回");
+            violation.setDeductCredit(leaveTimeoutPenalty);
+            violation.setStatus("已处理");
+            violations.add(violation);
+            deductions.merge(checkIn.getUserId(), leaveTimeoutPenalty, Integer::sum);
+        }
+        violationMapper.insertBatch(violations);
+        userMapper.deductCreditBatch(deductions, settings.getCreditMinimum());
+        log.info("暂离超时签出 {} 条，涉及用户 {} 人", timedOut.size(), deductions.size());
+
+        List<Reservation> reservations = reservationMapper.selectBatchIds(reservationIds);
+        Map<Long, Long> seatIds = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            seatIds.put(reservation.getId(), reservation.getSeatId());
+        }
+        for (CheckIn checkIn : timedOut) {
+            // 暂离期间座位仍被保留，占用时长计到签出为止
+            roomOccupancyService.recordCheckOut(seatIds.get(checkIn.getReservationId()), checkIn.getCheckInTime(), now);
+        }
+        return reservations;
     }
 
     @Override
@@ -127,17 +242,13 @@ public class CheckInServiceImpl extends ServiceImpl<CheckInMapper, CheckIn> impl
     }
 
     @Override
-    public Result<?> getCheckInList(Long userId, String status, Integer page, Integer size) {
-        // 这里应该实现分页查询，暂时跳过
-        List<CheckIn> checkIns;
-        if (userId != null) {
-            checkIns = checkInMapper.selectByUserId(userId);
-        } else if (status != null) {
-            checkIns = checkInMapper.selectByStatus(status);
-        } else {
-            checkIns = list();
+    public Result<?> getCheckInList(Long userId, String status, String cursor, Integer size) {
+        if (cursor == null && size == null && userId != null) {
+            return Result.success(checkInMapper.selectByUserId(userId));
         }
-        return Result.success(checkIns);
+        int pageSize = KeysetCursor.pageSize(size);
+        List<CheckIn> rows = checkInMapper.selectPage(userId, status, KeysetCursor.decode(cursor), pageSize + 1);
+        return Result.success(KeysetCursor.page(rows, pageSize, CheckIn::getCreatedAt, CheckIn::getId));
     }
 
     @Override
@@ -182,17 +293,10 @@ public class CheckInServiceImpl extends ServiceImpl<CheckInMapper, CheckIn> impl
     }
 
     @Override
-    public Result<?> getViolationList(Long userId, String type, Integer page, Integer size) {
-        // 这里应该实现分页查询，暂时跳过
-        List<Violation> violations;
-        if (userId != null) {
-            violations = violationMapper.selectByUserId(userId);
-        } else if (type != null) {
-            violations = violationMapper.selectByType(type);
-        } else {
-            violations = violationMapper.selectList(null);
-        }
-        return Result.success(violations);
+    public Result<?> getViolationList(Long userId, String type, String cursor, Integer size) {
+        int pageSize = KeysetCursor.pageSize(size);
+        List<Violation> rows = violationMapper.selectPage(userId, type, KeysetCursor.decode(cursor), pageSize + 1);
+        return Result.success(KeysetCursor.page(rows, pageSize, Violation::getCreatedAt, Violation::getId));
     }
 
     @Override
@@ -1,34 +1,56 @@
 package com.studyroom.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.studyroom.entity.Reservation;
 import com.studyroom.mapper.ReservationMapper;
-import com.studyroom.mapper.RoomMapper;
+import com.studyroom.mapper.RoomHourlyOccupancyMapper;
+import com.studyroom.mapper.SeatMapper;
 import com.studyroom.service.DashboardService;
-import com.studyroom.service.ReservationService;
 import com.studyroom.service.RoomService;
-import com.studyroom.service.SeatService;
 import com.studyroom.service.UserService;
 import com.studyroom.utils.Result;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 public class DashboardServiceImpl implements DashboardService {
 
-    @Autowired
-    private RoomService roomService;
+    /**
+     * 热度排行统计的天数和条数
+     */
+    private static final int RANKING_DAYS = 30;
+    private static final int RANKING_LIMIT = 5;
 
-    @Autowired
-    private SeatService seatService;
+    /**
+     * 高峰时段统计的天数
+     */
+    private static final int PEAK_TIME_DAYS = 7;
 
     @Autowired
-    private ReservationService reservationService;
+    private RoomService roomService;
 
     @Autowired
     private UserService userService;
@@ -36,61 +58,163 @@ public class DashboardServiceImpl implements DashboardService {
     @Autowired
     private ReservationMapper reservationMapper;
     
-    @Autowired
-    private RoomMapper roomMapper;
 
-    @Override
-    public Result<?> getDashboardStatistics() {
-        try {
-            log.info("=== 获取仪表盘统计数据 ===");
-
-            // 1. 获取总座位数
-            int totalSeats = getTotalSeats();
-            log.info("总座位数: {}", totalSeats);
-
-            // 2. 获取当前占用数
-            int currentOccupancy = getCurrentOccupancy();
-            log.info("当前占用数: {}", currentOccupancy);
+    @Autowired
+    private SeatMapper seatMapper;
 
-            // 3. 计算使用率
-            double usageRate = totalSeats > 0 ? Math.round((double) currentOccupancy / totalSeats * 100) : 0;
-            log.info("使用率: {}%", usageRate);
+    @Autowired
+    private RoomHourlyOccupancyMapper roomHourlyOccupancyMapper;
 
-            // 4. 获取今日预约数
-            int todayReservations = getTodayReservations();
-            log.info("今日预约数: {}", todayReservations);
+    /**
+     * 快照超过该时长未刷新时，读取时同步重新计算
+     */
+    @Value("${dashboard.snapshot.max-staleness:60000}")
+    private long maxStalenessMillis;
 
-            // 5. 计算昨日预约变化率
-            int yesterdayReservations = getYesterdayReservations();
-            double reservationChangeRate = yesterdayReservations > 0 ? 
-                    Math.round(((double) todayReservations - yesterdayReservations) / yesterdayReservations * 100) : 0;
-            log.info("昨日预约数: {}, 变化率: {}%", yesterdayReservations, reservationChangeRate);
+    /**
+     * 单项统计查询的超时时间，超时后使用回退值
+     */
+    @Value("${dashboard.query.timeout:2000}")
+    private long queryTimeoutMillis;
 
-            // 6. 计算爽约率
-            double noShowRate = calculateNoShowRate();
-            log.info("爽约率: {}%", noShowRate);
+    @Value("${dashboard.query.threads:8}")
+    private int queryThreads;
 
-            // 7. 获取高峰时段
-            String peakTime = getPeakTime();
-            log.info("高峰时段: {}", peakTime);
+    /**
+     * 当前统计快照，整体替换，读取时不加锁
+     */
+    private volatile Snapshot snapshot;
+
+    private ThreadPoolExecutor queryExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        queryExecutor = new ThreadPoolExecutor(queryThreads, queryThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queryThreads * 8),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-query-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
 
-            // 构建返回数据
-            Map<String, Object> statistics = new HashMap<>();
-            statistics.put("totalSeats", totalSeats);
-            statistics.put("currentOccupancy", currentOccupancy);
-            statistics.put("usageRate", usageRate);
-            statistics.put("todayReservations", todayReservations);
-            statistics.put("yesterdayReservationChange", reservationChangeRate);
-            statistics.put("noShowRate", noShowRate);
-            statistics.put("peakTime", peakTime);
+    @PreDestroy
+    public void destroy() {
+        queryExecutor.shutdown();
+    }
 
-            return Result.success(statistics);
+    @Override
+    public Result<?> getDashboardStatistics() {
+        try {
+            Snapshot current = snapshot;
+            if (current == null || current.isOlderThan(maxStalenessMillis)) {
+                current = refreshSnapshot(current);
+            }
+            return Result.success(current.toMap());
         } catch (Exception e) {
             log.error("获取仪表盘统计数据失败", e);
             return Result.error("获取仪表盘统计数据失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 定时刷新仪表盘统计快照，管理端自动刷新时直接读取快照
+     */
+    @Scheduled(fixedDelayString = "${dashboard.snapshot.refresh-interval:30000}")
+    public void scheduledRefresh() {
+        try {
+            refreshSnapshot(snapshot);
+        } catch (Exception e) {
+            log.error("刷新仪表盘统计快照失败", e);
+        }
+    }
+
+    /**
+     * 重新计算统计快照。并发请求同时发现快照过期时只计算一次
+     * @param expected 调用方读到的快照，已被其他线程替换时直接返回新快照
+     * @return 最新快照
+     */
+    private synchronized Snapshot refreshSnapshot(Snapshot expected) {
+        Snapshot current = snapshot;
+        if (current != null && current != expected) {
+            return current;
+        }
+        current = buildSnapshot();
+        snapshot = current;
+        return current;
+    }
+
+    /**
+     * 各项统计互不依赖，并发查询，耗时取决于最慢的一项。
+     * 单项查询超时或失败时沿用上一个快照的值（没有时为 0），并标记为部分结果；
+     * 各项查询不自行捕获异常，失败统一由 query 处理，不会用虚构的数值冒充真实结果
+     */
+    private Snapshot buildSnapshot() {
+        log.info("=== 计算仪表盘统计快照 ===");
+        Snapshot previous = snapshot;
+        AtomicBoolean partial = new AtomicBoolean();
+
+        // 1. 总座位数  2. 当前占用数  3. 今日预约数  4. 昨日预约数  5. 爽约率  6. 高峰时段
+        CompletableFuture<Integer> totalSeatsFuture = query("总座位数", this::getTotalSeats,
+                previous != null ? previous.totalSeats : 0, partial);
+        CompletableFuture<Integer> occupancyFuture = query("当前占用数", this::getCurrentOccupancy,
+                previous != null ? previous.currentOccupancy : 0, partial);
+        CompletableFuture<Integer> todayFuture = query("今日预约数", this::getTodayReservations,
+                previous != null ? previous.todayReservations : 0, partial);
+        CompletableFuture<Integer> yesterdayFuture = query("昨日预约数", this::getYesterdayReservations,
+                previous != null ? previous.yesterdayReservations : 0, partial);
+        CompletableFuture<Double> noShowFuture = query("爽约率", this::calculateNoShowRate,
+                previous != null ? previous.noShowRate : 0, partial);
+        CompletableFuture<String> peakTimeFuture = query("高峰时段", this::getPeakTime,
+                previous != null ? previous.peakTime : "暂无数据", partial);
+
+        int totalSeats = totalSeatsFuture.join();
+        int currentOccupancy = occupancyFuture.join();
+        int todayReservations = todayFuture.join();
+        int yesterdayReservations = yesterdayFuture.join();
+        double noShowRate = noShowFuture.join();
+        String peakTime = peakTimeFuture.join();
+
+        // 使用率
+        double usageRate = totalSeats > 0 ? Math.round((double) currentOccupancy / totalSeats * 100) : 0;
+
+        // 昨日预约变化率
+        double reservationChangeRate = yesterdayReservations > 0 ?
+                Math.round(((double) todayReservations - yesterdayReservations) / yesterdayReservations * 100) : 0;
+
+        log.info("总座位数: {}, 当前占用数: {}, 使用率: {}%, 今日预约数: {}, 昨日预约数: {}, 变化率: {}%, 爽约率: {}%, 高峰时段: {}, 部分结果: {}",
+                totalSeats, currentOccupancy, usageRate, todayReservations, yesterdayReservations,
+                reservationChangeRate, noShowRate, peakTime, partial.get());
+
+        return new Snapshot(totalSeats, currentOccupancy, usageRate, todayReservations, yesterdayReservations,
+                reservationChangeRate, noShowRate, peakTime, partial.get(), System.currentTimeMillis());
+    }
+
+    /**
+     * 在统计线程池中执行单项查询
+     * @param name 查询名称（用于日志）
+     * @param supplier 查询
+     * @param fallback 超时、失败或线程池已满时返回的值
+     * @param partial 使用了回退值时置为 true
+     */
+    private <T> CompletableFuture<T> query(String name, Supplier<T> supplier, T fallback, AtomicBoolean partial) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, queryExecutor)
+                    .orTimeout(queryTimeoutMillis, TimeUnit.MILLISECONDS)
+                    .exceptionally(e -> {
+                        log.warn("统计查询[{}]未在{}ms内完成或失败，使用回退值: {}", name, queryTimeoutMillis, fallback, e);
+                        partial.set(true);
+                        return fallback;
+                    });
+        } catch (RejectedExecutionException e) {
+            log.warn("统计线程池已满，查询[{}]使用回退值: {}", name, fallback);
+            partial.set(true);
+            return CompletableFuture.completedFuture(fallback);
+        }
+    }
+
     @Override
     public Result<?> getUsageTrend() {
         try {
@@ -104,9 +228,11 @@ public class DashboardServiceImpl implements DashboardService {
 
             log.info("开始日期: {}, 结束日期: {}", startDate, endDate);
 
-            // 从数据库获取近7天的预约数据
+            // 从数据库获取近7天的预约数据和占用时长
             List<Map<String, Object>> reservationData = reservationMapper.countReservationsByDateRange(startDate, endDate);
             log.info("数据库返回的预约数据: {}", reservationData);
+            List<Map<String, Object>> occupancyData = roomHourlyOccupancyMapper.selectDailyMinutes(
+                    java.sql.Date.valueOf(LocalDate.now().minusDays(6)), java.sql.Date.valueOf(LocalDate.now()));
 
             // 构建完整的近7天数据，包括没有预约的日期
             List<Map<String, Object>> trendData = new ArrayList<>();
@@ -120,6 +246,10 @@ public class DashboardServiceImpl implements DashboardService {
                 Integer count = Integer.parseInt(item.get("count").toString());
                 reservationMap.put(dateStr, count);
             }
+            java.util.Map<String, Integer> occupancyMap = new java.util.HashMap<>();
+            for (Map<String, Object> item : occupancyData) {
+                occupancyMap.put(item.get("date").toString(), ((Number) item.get("minutes")).intValue());
+            }
 
             // 生成近7天的日期数据
             for (int i = 0; i < 7; i++) {
@@ -132,6 +262,7 @@ public class DashboardServiceImpl implements DashboardService {
                 Map<String, Object> dataPoint = new HashMap<>();
                 dataPoint.put("date", dateLabel);
                 dataPoint.put("count", reservationMap.getOrDefault(dateKey, 0));
+                dataPoint.put("occupiedHours", Math.round(occupancyMap.getOrDefault(dateKey, 0) / 6.0) / 10.0);
                 trendData.add(dataPoint);
             }
 
@@ -148,8 +279,9 @@ public class DashboardServiceImpl implements DashboardService {
         try {
             log.info("=== 获取自习室热度排行 ===");
 
-            // 从数据库获取自习室热度排行数据
-            List<Map<String, Object>> rankingData = roomMapper.selectRoomRanking();
+            // 近30天占用时长（小时）最多的自习室
+            List<Map<String, Object>> rankingData =
+                    roomHourlyOccupancyMapper.selectRoomRanking(daysAgo(RANKING_DAYS - 1), RANKING_LIMIT);
             log.info("自习室热度排行数据: {}", rankingData);
 
             // 如果没有数据，返回空列表
@@ -191,68 +323,56 @@ public class DashboardServiceImpl implements DashboardService {
         try {
             log.info("=== 获取24小时热力图数据 ===");
 
-            // 从数据库获取自习室24小时热力图数据
-            List<Map<String, Object>> heatmapRawData = roomMapper.selectRoomHeatmapData();
-            log.info("热力图原始数据: {}", heatmapRawData);
-
-            // 提取所有自习室名称
-            java.util.Set<String> roomSet = new java.util.HashSet<>();
-            // 直接从数据库获取所有自习室，确保即使没有预约记录也能显示
-            Result<?> roomResult = roomService.getRoomList(null, null, null, null, null);
+            // 近24小时：从23小时前所在的整点开始，每个小时只对应一个日期
+            LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(23);
+            Date fromDate = java.sql.Date.valueOf(from.toLocalDate());
+            int fromHour = from.getHour();
+
+            // 占用汇总、座位数和自习室列表互不依赖，并发查询
+            AtomicBoolean partial = new AtomicBoolean();
+            CompletableFuture<List<Map<String, Object>>> heatmapFuture = query("热力图数据",
+                    () -> roomHourlyOccupancyMapper.selectRoomHourlyMinutes(fromDate, fromHour), List.of(), partial);
+            CompletableFuture<List<Map<String, Object>>> seatCountFuture =
+                    query("座位数", seatMapper::countByRoom, List.of(), partial);
+            // 直接从数据库获取所有自习室，确保即使没有使用记录也能显示
+            CompletableFuture<Result<?>> roomFuture = query("自习室列表",
+                    () -> roomService.getRoomList(null, null, null, null, null), Result.error("获取自习室列表超时"), partial);
+
+            List<Long> roomIds = new ArrayList<>();
+            List<String> rooms = new ArrayList<>();
+            Result<?> roomResult = roomFuture.join();
             if (roomResult.isSuccess() && roomResult.getData() instanceof List) {
-                List<?> allRooms = (List<?>) roomResult.getData();
-                for (Object room : allRooms) {
+                for (Object room : (List<?>) roomResult.getData()) {
                     if (room instanceof com.studyroom.entity.Room) {
                         com.studyroom.entity.Room roomEntity = (com.studyroom.entity.Room) room;
-                        roomSet.add(roomEntity.getName());
+                        roomIds.add(roomEntity.getId());
+                        rooms.add(roomEntity.getName());
                     }
                 }
             }
 
-            List<String> rooms = new java.util.ArrayList<>(roomSet);
-
-            // 如果没有自习室数据，使用默认自习室
-            if (rooms.isEmpty()) {
-                rooms = List.of("图书馆A区", "教学楼B301", "图书馆C区", "实验楼D202", "教学楼A105");
-            }
-
-            // 构建热力图数据
-            List<List<Object>> heatmapData = new ArrayList<>();
-
-            // 创建房间索引映射
-            java.util.Map<String, Integer> roomIndexMap = new java.util.HashMap<>();
-            for (int i = 0; i < rooms.size(); i++) {
-                roomIndexMap.put(rooms.get(i), i);
+            // 自习室ID -> 座位数
+            Map<Long, Integer> seatCounts = new HashMap<>();
+            for (Map<String, Object> item : seatCountFuture.join()) {
+                seatCounts.put(((Number) item.get("room_id")).longValue(), ((Number) item.get("seat_count")).intValue());
             }
 
-            // 构建小时到房间到预约数的映射
-            java.util.Map<Integer, java.util.Map<String, Integer>> hourRoomCountMap = new java.util.HashMap<>();
-            for (Map<String, Object> item : heatmapRawData) {
-                try {
-                    String roomName = item.get("room_name").toString();
-                    Object hourObj = item.get("hour");
-                    if (hourObj != null) {
-                        int hour = Integer.parseInt(hourObj.toString());
-                        Object countObj = item.get("count");
-                        int count = countObj != null ? Integer.parseInt(countObj.toString()) : 0;
-
-                        hourRoomCountMap.computeIfAbsent(hour, k -> new java.util.HashMap<>())
-                                .put(roomName, count);
-                    }
-                } catch (Exception e) {
-                    log.warn("处理热力图数据时出现异常: {}", e.getMessage());
-                    continue;
-                }
+            // 自习室ID -> 每小时占用分钟数
+            Map<Long, int[]> roomMinutes = new HashMap<>();
+            for (Map<String, Object> item : heatmapFuture.join()) {
+                long roomId = ((Number) item.get("room_id")).longValue();
+                int hour = ((Number) item.get("hour")).intValue();
+                roomMinutes.computeIfAbsent(roomId, k -> new int[24])[hour] += ((Number) item.get("minutes")).intValue();
             }
 
-            // 生成热力图数据
-            for (int roomIndex = 0; roomIndex < rooms.size(); roomIndex++) {
-                String roomName = rooms.get(roomIndex);
+            // 占用率 = 占用分钟数 / (座位数 × 60)
+            List<List<Object>> heatmapData = new ArrayList<>();
+            for (int roomIndex = 0; roomIndex < roomIds.size(); roomIndex++) {
+                int seats = seatCounts.getOrDefault(roomIds.get(roomIndex), 0);
+                int[] minutes = roomMinutes.get(roomIds.get(roomIndex));
                 for (int hour = 0; hour < 24; hour++) {
-                    java.util.Map<String, Integer> roomCountMap = hourRoomCountMap.get(hour);
-                    int count = roomCountMap != null ? roomCountMap.getOrDefault(roomName, 0) : 0;
-                    // 将预约数转换为占用率（假设每个自习室有100个座位）
-                    int occupancyRate = Math.min(100, count * 10); // 简化计算，实际应该根据座位数计算
+                    int occupancyRate = seats > 0 && minutes != null
+                            ? (int) Math.min(100, Math.round(minutes[hour] * 100.0 / (seats * 60))) : 0;
                     heatmapData.add(List.of(hour, roomIndex, occupancyRate));
                 }
             }
@@ -260,8 +380,7 @@ public class DashboardServiceImpl implements DashboardService {
             Map<String, Object> result = new HashMap<>();
             result.put("rooms", rooms);
             result.put("data", heatmapData);
-
-            log.info("24小时热力图数据: {}", result);
+            result.put("partial", partial.get());
             return Result.success(result);
         } catch (Exception e) {
             log.error("获取24小时热力图数据失败", e);
@@ -274,35 +393,7 @@ public class DashboardServiceImpl implements DashboardService {
      * @return 总座位数
      */
     private int getTotalSeats() {
-        try {
-            // 1. 获取所有房间
-            Result<?> roomResult = roomService.getRoomList(null, null, null, null, null);
-            if (roomResult.isSuccess() && roomResult.getData() instanceof List) {
-                List<?> rooms = (List<?>) roomResult.getData();
-                int totalSeats = 0;
-                
-                // 2. 遍历每个房间，获取其座位数
-                for (Object room : rooms) {
-                    if (room instanceof com.studyroom.entity.Room) {
-                        // 正确处理Room实体对象
-                        com.studyroom.entity.Room roomEntity = (com.studyroom.entity.Room) room;
-                        Long roomId = roomEntity.getId();
-                        Result<?> seatResult = seatService.getSeatsByRoomId(roomId);
-                        if (seatResult.isSuccess() && seatResult.getData() instanceof List) {
-                            totalSeats += ((List<?>) seatResult.getData()).size();
-                        }
-                    }
-                }
-                
-                log.info("总座位数: {}", totalSeats);
-                return totalSeats;
-            }
-            // 暂时返回模拟数据
-            return 100;
-        } catch (Exception e) {
-            log.error("获取总座位数失败", e);
-            return 100;
-        }
+        return seatMapper.selectCount(null).intValue();
     }
 
     /**
@@ -310,17 +401,9 @@ public class DashboardServiceImpl implements DashboardService {
      * @return 当前占用数
      */
     private int getCurrentOccupancy() {
-        try {
-            Result<?> result = reservationService.getReservationList(null, "active", null, null);
-            if (result.isSuccess() && result.getData() instanceof List) {
-                return ((List<?>) result.getData()).size();
-            }
-            // 暂时返回模拟数据
-            return 67;
-        } catch (Exception e) {
-            log.error("获取当前占用数失败", e);
-            return 67;
-        }
+        Long count = reservationMapper.selectCount(
+                new LambdaQueryWrapper<Reservation>().eq(Reservation::getStatus, "active"));
+        return count.intValue();
     }
 
     /**
@@ -328,15 +411,10 @@ public class DashboardServiceImpl implements DashboardService {
      * @return 今日预约数
      */
     private int getTodayReservations() {
-        try {
-            // 从数据库获取今日预约数
-            int count = reservationMapper.countTodayReservations();
-            log.info("今日预约数: {}", count);
-            return count;
-        } catch (Exception e) {
-            log.error("获取今日预约数失败", e);
-            return 0;
-        }
+        // 从数据库获取今日预约数
+        int count = reservationMapper.countTodayReservations();
+        log.info("今日预约数: {}", count);
+        return count;
     }
 
     /**
@@ -344,15 +422,10 @@ public class DashboardServiceImpl implements DashboardService {
      * @return 昨日预约数
      */
     private int getYesterdayReservations() {
-        try {
-            // 从数据库获取昨日预约数
-            int count = reservationMapper.countYesterdayReservations();
-            log.info("昨日预约数: {}", count);
-            return count;
-        } catch (Exception e) {
-            log.error("获取昨日预约数失败", e);
-            return 0;
-        }
+        // 从数据库获取昨日预约数
+        int count = reservationMapper.countYesterdayReservations();
+        log.info("昨日预约数: {}", count);
+        return count;
     }
 
     /**
@@ -360,19 +433,14 @@ public class DashboardServiceImpl implements DashboardService {
      * @return 爽约率
      */
     private double calculateNoShowRate() {
-        try {
-            // 从数据库获取爽约次数和总预约次数
-            int noShowCount = reservationMapper.countNoShowReservations();
-            int totalCount = reservationMapper.countTotalReservations();
-            
-            // 计算爽约率
-            double noShowRate = totalCount > 0 ? Math.round((double) noShowCount / totalCount * 1000) / 10.0 : 0;
-            log.info("爽约次数: {}, 总预约次数: {}, 爽约率: {}%", noShowCount, totalCount, noShowRate);
-            return noShowRate;
-        } catch (Exception e) {
-            log.error("计算爽约率失败", e);
-            return 0;
-        }
+        // 从数据库获取爽约次数和总预约次数
+        int noShowCount = reservationMapper.countNoShowReservations();
+        int totalCount = reservationMapper.countTotalReservations();
+        
+        // 计算爽约率
+        double noShowRate = totalCount > 0 ? Math.round((double) noShowCount / totalCount * 1000) / 10.0 : 0;
+        log.info("爽约次数: {}, 总预约次数: {}, 爽约率: {}%", noShowCount, totalCount, noShowRate);
+        return noShowRate;
     }
 
     /**
@@ -380,13 +448,80 @@ public class DashboardServiceImpl implements DashboardService {
      * @return 高峰时段
      */
     private String getPeakTime() {
-        try {
-            // 这里应该根据历史数据计算高峰时段
-            // 暂时返回固定值
-            return "19:00-21:00";
-        } catch (Exception e) {
-            log.error("获取高峰时段失败", e);
-            return "19:00-21:00";
+        // 近7天按小时合计的占用时长，取占用最多的连续两小时
+        int[] minutes = new int[24];
+        for (Map<String, Object> item : roomHourlyOccupancyMapper.selectHourlyMinutes(daysAgo(PEAK_TIME_DAYS - 1))) {
+            minutes[((Number) item.get("hour")).intValue()] = ((Number) item.get("minutes")).intValue();
+        }
+        int peakHour = -1;
+        int peakMinutes = 0;
+        for (int hour = 0; hour < 23; hour++) {
+            int windowMinutes = minutes[hour] + minutes[hour + 1];
+            if (windowMinutes > peakMinutes) {
+                peakMinutes = windowMinutes;
+                peakHour = hour;
+            }
+        }
+        if (peakHour < 0) {
+            return "暂无数据";
+        }
+        return String.format("%02d:00-%02d:00", peakHour, peakHour + 2);
+    }
+
+    /**
+     * N天前的零点
+     */
+    private static Date daysAgo(int days) {
+        return java.sql.Date.valueOf(LocalDate.now().minusDays(days));
+    }
+
+    /**
+     * 仪表盘统计快照，创建后不再修改
+     */
+    private static final class Snapshot {
+
+        private final int totalSeats;
+        private final int currentOccupancy;
+        private final double usageRate;
+        private final int todayReservations;
+        private final int yesterdayReservations;
+        private final double yesterdayReservationChange;
+        private final double noShowRate;
+        private final String peakTime;
+        private final boolean partial;
+        private final long generatedAt;
+
+        private Snapshot(int totalSeats, int currentOccupancy, double usageRate, int todayReservations,
+                         int yesterdayReservations, double yesterdayReservationChange, double noShowRate,
+                         String peakTime, boolean partial, long generatedAt) {
+            this.totalSeats = totalSeats;
+            this.currentOccupancy = currentOccupancy;
+            this.usageRate = usageRate;
+            this.todayReservations = todayReservations;
+            this.yesterdayReservations = yesterdayReservations;
+            this.yesterdayReservationChange = yesterdayReservationChange;
+            this.noShowRate = noShowRate;
+            this.peakTime = peakTime;
+            this.partial = partial;
+            this.generatedAt = generatedAt;
+        }
+
+        private boolean isOlderThan(long millis) {
+            return System.currentTimeMillis() - generatedAt > millis;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> statistics = new HashMap<>();
+            statistics.put("totalSeats", totalSeats);
+            statistics.put("currentOccupancy", currentOccupancy);
+            statistics.put("usageRate", usageRate);
+            statistics.put("todayReservations", todayReservations);
+            statistics.put("yesterdayReservationChange", yesterdayReservationChange);
+            statistics.put("noShowRate", noShowRate);
+            statistics.put("peakTime", peakTime);
+            statistics.put("partial", partial);
+            statistics.put("generatedAt", new Date(generatedAt));
+            return statistics;
         }
     }
 }
@@ -0,0 +1,128 @@
+package com.studyroom.service.impl;
+
+import com.studyroom.mapper.CheckInMapper;
+import com.studyroom.mapper.ReservationMapper;
+import com.studyroom.mapper.ViolationMapper;
+import com.studyroom.service.ExportService;
+import com.studyroom.utils.CsvWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    /**
+     * 每写出多少行刷新一次输出流，让客户端尽早开始接收
+     */
+    private static final int FLUSH_ROWS = 1000;
+
+    /**
+     * 导出列：查询结果列名 -> 表头
+     */
+    private static final Map<String, String> RESERVATION_COLUMNS = new LinkedHashMap<>();
+    private static final Map<String, String> CHECK_IN_COLUMNS = new LinkedHashMap<>();
+    private static final Map<String, String> VIOLATION_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        RESERVATION_COLUMNS.put("id", "预约ID");
+        RESERVATION_COLUMNS.put("user_id", "用户ID");
+        RESERVATION_COLUMNS.put("username", "用户名");
+        RESERVATION_COLUMNS.put("real_name", "姓名");
+        RESERVATION_COLUMNS.put("room_name", "自习室");
+        RESERVATION_COLUMNS.put("seat_num", "座位号");
+        RESERVATION_COLUMNS.put("status", "状态");
+        RESERVATION_COLUMNS.put("reservation_status", "预约状态");
+        RESERVATION_COLUMNS.put("reservation_in_time", "预约开始时间");
+        RESERVATION_COLUMNS.put("reservation_out_time", "预约结束时间");
+        RESERVATION_COLUMNS.put("sign_in_time", "签到时间");
+        RESERVATION_COLUMNS.put("sign_out_time", "签退时间");
+        RESERVATION_COLUMNS.put("remark", "备注");
+        RESERVATION_COLUMNS.put("created_at", "创建时间");
+
+        CHECK_IN_COLUMNS.put("id", "签到ID");
+        CHECK_IN_COLUMNS.put("reservation_id", "预约ID");
+        CHECK_IN_COLUMNS.put("user_id", "用户ID");
+        CHECK_IN_COLUMNS.put("username", "用户名");
+        CHECK_IN_COLUMNS.put("real_name", "姓名");
+        CHECK_IN_COLUMNS.put("room_name", "自习室");
+        CHECK_IN_COLUMNS.put("seat_num", "座位号");
+        CHECK_IN_COLUMNS.put("check_in_time", "签到时间");
+        CHECK_IN_COLUMNS.put("check_out_time", "签出时间");
+        CHECK_IN_COLUMNS.put("check_in_method", "签到方式");
+        CHECK_IN_COLUMNS.put("status", "状态");
+
+        VIOLATION_COLUMNS.put("id", "违规ID");
+        VIOLATION_COLUMNS.put("user_id", "用户ID");
+        VIOLATION_COLUMNS.put("username", "用户名");
+        VIOLATION_COLUMNS.put("real_name", "姓名");
+        VIOLATION_COLUMNS.put("reservation_id", "预约ID");
+        VIOLATION_COLUMNS.put("type", "违规类型");
+        VIOLATION_COLUMNS.put("description", "违规描述");
+        VIOLATION_COLUMNS.put("deduct_credit", "扣除信用分");
+        VIOLATION_COLUMNS.put("status", "状态");
+        VIOLATION_COLUMNS.put("created_at", "违规时间");
+    }
+
+    @Autowired
+    private ReservationMapper reservationMapper;
+
+    @Autowired
+    private CheckInMapper checkInMapper;
+
+    @Autowired
+    private ViolationMapper violationMapper;
+
+    // 游标在事务（数据库连接）关闭前有效
+    @Override
+    @Transactional(readOnly = true)
+    public long exportReservations(Date startDate, Date endDate, OutputStream out) throws IOException {
+        return write(reservationMapper.streamForExport(startDate, endDate), RESERVATION_COLUMNS, out);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportCheckIns(Date startDate, Date endDate, OutputStream out) throws IOException {
+        return write(checkInMapper.streamForExport(startDate, endDate), CHECK_IN_COLUMNS, out);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportViolations(Date startDate, Date endDate, OutputStream out) throws IOException {
+        return write(violationMapper.streamForExport(startDate, endDate), VIOLATION_COLUMNS, out);
+    }
+
+    private long write(Cursor<Map<String, Object>> cursor, Map<String, String> columns, OutputStream out) throws IOException {
+        try (cursor) {
+            CsvWriter csv = new CsvWriter(out);
+            csv.writeRow(new ArrayList<>(columns.values()));
+
+            long rows = 0;
+            List<Object> values = new ArrayList<>(columns.size());
+            for (Map<String, Object> row : cursor) {
+                values.clear();
+                for (String column : columns.keySet()) {
+                    values.add(row.get(column));
+                }
+                csv.writeRow(values);
+                if (++rows % FLUSH_ROWS == 0) {
+                    csv.flush();
+                }
+            }
+            csv.flush();
+            log.info("导出完成，行数: {}", rows);
+            return rows;
+        }
+    }
+}
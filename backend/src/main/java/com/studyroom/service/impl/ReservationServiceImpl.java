@@ -2,19 +2,40 @@ package com.studyroom.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.studyroom.entity.Reservation;
+import com.studyroom.entity.Seat;
 import com.studyroom.entity.Violation;
 import com.studyroom.exception.BusinessException;
 import com.studyroom.mapper.ReservationMapper;
+import com.studyroom.mapper.SeatMapper;
+import com.studyroom.mapper.UserMapper;
+import com.studyroom.mapper.ViolationMapper;
 import com.studyroom.service.ReservationService;
+import com.studyroom.service.SeatStreamService;
+import com.studyroom.service.SystemSettingService;
+import com.studyroom.utils.DeadlineTracker;
+import com.studyroom.utils.KeysetCursor;
 import com.studyroom.utils.Result;
+import com.studyroom.utils.SeatReservationIndex;
+import com.studyroom.utils.SeatSlotStore;
+import com.studyroom.utils.StripedLock;
+import com.studyroom.utils.SystemSettings;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -23,6 +44,72 @@ public class ReservationServiceImpl extends ServiceImpl<ReservationMapper, Reser
     @Autowired
     private ReservationMapper reservationMapper;
 
+    @Autowired
+    private SeatMapper seatMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ViolationMapper violationMapper;
+
+    @Autowired
+    private SeatReservationIndex seatReservationIndex;
+
+    @Autowired
+    private SeatSlotStore seatSlotStore;
+
+    @Autowired
+    private DeadlineTracker deadlineTracker;
+
+    @Autowired
+    private SeatStreamService seatStreamService;
+
+    @Autowired
+    private SystemSettingService systemSettingService;
+
+    /**
+     * 座位分段锁，保证同一座位的"检查冲突-保存"过程是原子的
+     */
+    private final StripedLock seatLocks = new StripedLock(256);
+
+    /**
+     * 座位ID -> 自习室ID，用于拼接座位时段位图的键，座位不会更换所属自习室
+     */
+    private final Map<Long, Long> seatRooms = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时从数据库加载仍占用座位的预约，构建座位时间轴索引，
+     * 并将其补写到 Redis 座位时段位图（位图丢失时可恢复，重复写入无副作用）
+     */
+    @PostConstruct
+    public void initSeatReservationIndex() {
+        List<Reservation> reservations = reservationMapper.selectBlockingReservations();
+        seatReservationIndex.load(reservations);
+        log.info("座位时间轴索引加载完成，预约数: {}", seatReservationIndex.size());
+        for (Reservation reservation : reservations) {
+            deadlineTracker.trackReservation(reservation);
+        }
+        log.info("签到截止时间恢复完成，待签到预约数: {}", deadlineTracker.trackedReservations());
+        resyncSeatSlots();
+    }
+
+    @Override
+    public synchronized void resyncSeatSlots() {
+        if (!seatSlotStore.needsResync()) {
+            return;
+        }
+        List<Reservation> reservations = reservationMapper.selectBlockingReservations();
+        List<Long> missing = reservations.stream().map(Reservation::getSeatId).distinct()
+                .filter(seatId -> !seatRooms.containsKey(seatId)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            for (Seat seat : seatMapper.selectBatchIds(missing)) {
+                seatRooms.put(seat.getId(), seat.getRoomId());
+            }
+        }
+        seatSlotStore.resync(reservations, seatRooms);
+    }
+
     @Override
     public Result<?> createReservation(Reservation reservation) {
         log.info("=== 开始创建预约 ===");
@@ -37,32 +124,54 @@ public class ReservationServiceImpl extends ServiceImpl<ReservationMapper, Reser
                 reservation.getReservationOutTime() != null ? reservation.getReservationOutTime().getClass().getName() : "null");
 
         try {
-            // 检查用户之前的预约是否违约
-            log.info("=== 开始检查用户之前的预约是否违约 ===");
-            checkUserViolations(reservation.getUserId());
-            log.info("用户违约检查完成");
-
-            // 检查预约冲突
-            log.info("=== 开始检查预约冲突 ===");
-            Result<?> conflictResult = checkReservationConflict(
-                    reservation.getSeatId(),
-                    reservation.getReservationInTime(),
-                    reservation.getReservationOutTime()
-            );
-            log.info("预约冲突检查结果: {}", conflictResult.isSuccess() ? "无冲突" : "有冲突");
-
-            if (!conflictResult.isSuccess()) {
-                return conflictResult;
-            }
-
-            // 设置默认状态
-            reservation.setStatus("pending");
-            reservation.setReservationStatus("已预约");
+            validateTimeRange(reservation.getSeatId(), reservation.getReservationInTime(), reservation.getReservationOutTime());
+            validateBookingRules(reservation.getReservationInTime(), reservation.getReservationOutTime());
+            Long roomId = getSeatRoomId(reservation.getSeatId());
+
+            // 同一座位的冲突检查与保存串行执行，不同座位互不阻塞
+            Lock seatLock = seatLocks.get(reservation.getSeatId());
+            seatLock.lock();
+            try {
+                // 在 Redis 座位时段位图上原子预约；本节点索引看不到其他节点的预约，Redis 不可用时拒绝预约，
+                // 只有未启用位图（单节点部署）时才以本节点索引为准
+                Boolean slotsReserved = seatSlotStore.tryReserve(roomId, reservation.getSeatId(),
+                        reservation.getReservationInTime(), reservation.getReservationOutTime());
+                if (slotsReserved == null && seatSlotStore.isEnabled()) {
+                    return Result.error("座位预约服务暂时不可用，请稍后再试");
+                }
+                boolean conflict = slotsReserved != null
+                        ? !slotsReserved
+                        : seatReservationIndex.hasConflict(reservation.getSeatId(),
+                                reservation.getReservationInTime(), reservation.getReservationOutTime(), null);
+                log.info("预约冲突检查结果: {}", conflict ? "有冲突" : "无冲突");
+                if (conflict) {
+                    return Result.error("该时间段座位已被预约");
+                }
 
-            if (save(reservation)) {
-                return Result.success("预约创建成功");
-            } else {
-                throw new BusinessException("预约创建失败");
+                // 设置默认状态
+                reservation.setStatus("pending");
+                reservation.setReservationStatus("已预约");
+
+                boolean saved = false;
+                try {
+                    saved = save(reservation);
+                } finally {
+                    // 数据库写入失败时归还已占用的时段
+                    if (!saved && Boolean.TRUE.equals(slotsReserved)) {
+                        seatSlotStore.release(roomId, reservation.getSeatId(),
+                                reservation.getReservationInTime(), reservation.getReservationOutTime());
+                    }
+                }
+                if (saved) {
+                    seatReservationIndex.add(reservation);
+                    deadlineTracker.trackReservation(reservation);
+                    seatStreamService.seatChanged(reservation.getSeatId());
+                    return Result.success("预约创建成功");
+                } else {
+                    throw new BusinessException("预约创建失败");
+                }
+            } finally {
+                seatLock.unlock();
             }
         } catch (Exception e) {
             log.error("创建预约时发生异常", e);
@@ -70,48 +179,55 @@ public class ReservationServiceImpl extends ServiceImpl<ReservationMapper, Reser
         }
     }
 
+    @Override
+    @Transactional
+    public List<Reservation> handleNoShowReservations(Date deadline, int limit) {
+        // 一次范围查询锁定一批超时未签到的预约，其他节点正在处理的行会被跳过
+        return markNoShow(reservationMapper.selectOverdueBookedForUpdate(deadline, null, limit));
+    }
+
+    @Override
+    @Transactional
+    public List<Reservation> handleNoShowReservations(Date deadline, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return markNoShow(reservationMapper.selectOverdueBookedForUpdate(deadline, ids, ids.size()));
+    }
+
     /**
-     * 检查用户之前的预约是否违约
-     * @param userId 用户ID
+     * 将已加锁的预约标记为违约，写入违约记录并扣除信用分
      */
-    private void checkUserViolations(Long userId) {
-        // 获取用户的所有预约
-        List<Reservation> userReservations = reservationMapper.selectByUserId(userId);
-        
-        // 检查每个预约是否违约
-        for (Reservation reservation : userReservations) {
-            // 只检查已预约但未签到的预约
-            if ("已预约".equals(reservation.getReservationStatus())) {
-                // 检查是否超过预约时间2小时
-                Date now = new Date();
-                Date reservationInTime = reservation.getReservationInTime();
-                
-                // 计算时间差（毫秒）
-                long timeDiff = now.getTime() - reservationInTime.getTime();
-                // 5分钟 = 5 * 60 * 1000
-                if (timeDiff > 300000) {
-                    // 标记为违约
-                    reservation.setStatus("违约");
-                    reservation.setReservationStatus("违约中");
-                    updateById(reservation);
-                    
-                    // 创建违约记录
-                    Violation violation = new Violation();
-                    violation.setUserId(userId);
-                    violation.setReservationId(reservation.getId());
-                    violation.setType("超时未签到");
-                    violation.setDescription("预约时间: " + reservation.getReservationInTime() + " 超时未签到");
-                    violation.setDeductCredit(1);
-                    violation.setStatus("已处理");
-                    violation.setCreatedAt(new Date());
-                    violation.setUpdatedAt(new Date());
-                    
-                    // 保存违约记录
-                    // 这里需要注入ViolationService
-                    // 暂时跳过，后续实现
-                }
-            }
+    private List<Reservation> markNoShow(List<Reservation> overdue) {
+        if (overdue.isEmpty()) {
+            return overdue;
         }
+
+        List<Long> ids = overdue.stream().map(Reservation::getId).collect(Collectors.toList());
+        reservationMapper.markNoShowByIds(ids);
+
+        SystemSettings settings = systemSettingService.getSettings();
+        int noShowPenalty = settings.getNoShowPenalty();
+        List<Violation> violations = new ArrayList<>(overdue.size());
+        Map<Long, Integer> deductions = new HashMap<>();
+        for (Reservation reservation : overdue) {
+            reservation.setStatus("违约");
+            reservation.setReservationStatus("违约中");
+
+            Violation violation = new Violation();
+            violation.setUserId(reservation.getUserId());
+            violation.setReservationId(reservation.getId());
+            violation.setType("超时未签到");
+            violation.setDescription("预约时间: " + reservation.getReservationInTime() + " 超时未签到");
+            violation.setDeductCredit(noShowPenalty);
+            violation.setStatus("已处理");
+            violations.add(violation);
+            deductions.merge(reservation.getUserId(), noShowPenalty, Integer::sum);
+        }
+        violationMapper.insertBatch(violations);
+        userMapper.deductCreditBatch(deductions, settings.getCreditMinimum());
+        log.info("标记超时未签到预约 {} 条，涉及用户 {} 人", overdue.size(), deductions.size());
+        return overdue;
     }
 
     @Override
@@ -120,27 +236,35 @@ public class ReservationServiceImpl extends ServiceImpl<ReservationMapper, Reser
         if (reservation == null) {
             throw new BusinessException("预约不存在");
         }
-//        reservation.setStatus("cancelled");
-        reservation.setReservationStatus("取消预约");
-        if (updateById(reservation)) {
+        // 已完成、违约、已取消的预约不再占用时段，其位图中的位可能已属于同一座位的后续预约，不能再归还
+        if (!SeatReservationIndex.isBlocking(reservation.getReservationStatus())) {
+            throw new BusinessException("当前预约状态不能取消");
+        }
+
+        Lock seatLock = seatLocks.get(reservation.getSeatId());
+        seatLock.lock();
+        try {
+            // 按状态条件更新，并发取消、签出或违约处理时只有一次生效，只有生效的一方归还时段
+            if (reservationMapper.cancelById(id) == 0) {
+                throw new BusinessException("当前预约状态不能取消");
+            }
+            reservation.setReservationStatus("取消预约");
+            releaseSeatSlots(reservation);
             return Result.success("预约取消成功");
-        } else {
-            throw new BusinessException("预约取消失败");
+        } finally {
+            seatLock.unlock();
         }
     }
 
     @Override
-    public Result<?> getReservationList(Long userId, String status, Integer page, Integer size) {
-        // 这里应该实现分页查询，暂时跳过
-        List<Reservation> reservations;
-        if (userId != null) {
-            reservations = reservationMapper.selectByUserId(userId);
-        } else if (status != null) {
-            reservations = reservationMapper.selectByStatus(status);
-        } else {
-            reservations = list();
+    public Result<?> getReservationList(Long userId, String status, String reservationStatus, String cursor, Integer size) {
+        if (cursor == null && size == null && userId != null) {
+            return Result.success(reservationMapper.selectByUserId(userId));
         }
-        return Result.success(reservations);
+        int pageSize = KeysetCursor.pageSize(size);
+        List<Reservation> rows = reservationMapper.selectPage(userId, status, reservationStatus,
+                KeysetCursor.decode(cursor), pageSize + 1);
+        return Result.success(KeysetCursor.page(rows, pageSize, Reservation::getReservationInTime, Reservation::getId));
     }
 
     @Override
@@ -159,55 +283,175 @@ public class ReservationServiceImpl extends ServiceImpl<ReservationMapper, Reser
             throw new BusinessException("预约不存在");
         }
 
-        reservation.setId(id);
-        if (updateById(reservation)) {
-            return Result.success("预约更新成功");
-        } else {
-            throw new BusinessException("预约更新失败");
+        if (reservation.getReservationInTime() != null || reservation.getReservationOutTime() != null) {
+            validateBookingRules(
+                    reservation.getReservationInTime() != null ? reservation.getReservationInTime() : existingReservation.getReservationInTime(),
+                    reservation.getReservationOutTime() != null ? reservation.getReservationOutTime() : existingReservation.getReservationOutTime());
         }
-    }
-
-    @Override
-    public Result<?> checkReservationConflict(Long seatId, Date startTime, Date endTime) {
-        log.info("=== 进入 checkReservationConflict 方法 ===");
 
+        // 合并出更新后的预约，用于冲突检查和刷新座位时间轴索引
+        Reservation merged = new Reservation();
+        merged.setId(id);
+        merged.setSeatId(reservation.getSeatId() != null ? reservation.getSeatId() : existingReservation.getSeatId());
+        merged.setReservationInTime(reservation.getReservationInTime() != null ? reservation.getReservationInTime() : existingReservation.getReservationInTime());
+        merged.setReservationOutTime(reservation.getReservationOutTime() != null ? reservation.getReservationOutTime() : existingReservation.getReservationOutTime());
+        merged.setReservationStatus(reservation.getReservationStatus() != null ? reservation.getReservationStatus() : existingReservation.getReservationStatus());
+
+        boolean wasBlocking = SeatReservationIndex.isBlocking(existingReservation.getReservationStatus());
+        boolean blocking = SeatReservationIndex.isBlocking(merged.getReservationStatus());
+        Long oldRoomId = getSeatRoomId(existingReservation.getSeatId());
+        Long newRoomId = getSeatRoomId(merged.getSeatId());
+
+        // 换座位时同时锁住原座位和新座位，按锁的顺序加锁避免死锁
+        List<Lock> locks = seatLocks.getAll(existingReservation.getSeatId(), merged.getSeatId());
+        locks.forEach(Lock::lock);
         try {
-            log.info("=== 进入 try 块 ===");
+            // 原时段的归还和新时段的预约在一个脚本内完成，冲突时原时段保持占用，不需要再恢复
+            Boolean slotsReserved = null;
+            if (blocking) {
+                slotsReserved = wasBlocking
+                        ? seatSlotStore.tryMove(oldRoomId, existingReservation.getSeatId(),
+                                existingReservation.getReservationInTime(), existingReservation.getReservationOutTime(),
+                                newRoomId, merged.getSeatId(), merged.getReservationInTime(), merged.getReservationOutTime())
+                        : seatSlotStore.tryReserve(newRoomId, merged.getSeatId(),
+                                merged.getReservationInTime(), merged.getReservationOutTime());
+                if (slotsReserved == null && seatSlotStore.isEnabled()) {
+                    return Result.error("座位预约服务暂时不可用，请稍后再试");
+                }
+                boolean conflict = slotsReserved != null
+                        ? !slotsReserved
+                        : seatReservationIndex.hasConflict(merged.getSeatId(),
+                                merged.getReservationInTime(), merged.getReservationOutTime(), id);
+                if (conflict) {
+                    return Result.error("该时间段座位已被预约");
+                }
+            }
 
-            // 参数验证
-            if (seatId == null) {
-                throw new BusinessException("座位ID不能为空");
+            reservation.setId(id);
+            boolean updated = false;
+            try {
+                updated = updateById(reservation);
+            } finally {
+                if (!updated && Boolean.TRUE.equals(slotsReserved)) {
+                    // 数据库更新失败，把时段移回原预约
+                    if (wasBlocking) {
+                        Boolean restored = seatSlotStore.tryMove(newRoomId, merged.getSeatId(),
+                                merged.getReservationInTime(), merged.getReservationOutTime(),
+                                oldRoomId, existingReservation.getSeatId(),
+                                existingReservation.getReservationInTime(), existingReservation.getReservationOutTime());
+                        if (!Boolean.TRUE.equals(restored)) {
+                            log.warn("预约更新失败后原时段已被占用或位图不可用, reservationId: {}", id);
+                        }
+                    } else {
+                        seatSlotStore.release(newRoomId, merged.getSeatId(),
+                                merged.getReservationInTime(), merged.getReservationOutTime());
+                    }
+                }
             }
-            if (startTime == null) {
-                throw new BusinessException("开始时间不能为空");
+            if (updated) {
+                if (wasBlocking && !blocking) {
+                    seatSlotStore.release(oldRoomId, existingReservation.getSeatId(),
+                            existingReservation.getReservationInTime(), existingReservation.getReservationOutTime());
+                }
+                seatReservationIndex.remove(existingReservation.getSeatId(), id);
+                seatReservationIndex.add(merged);
+                deadlineTracker.trackReservation(merged);
+                seatStreamService.seatChanged(existingReservation.getSeatId());
+                if (!merged.getSeatId().equals(existingReservation.getSeatId())) {
+                    seatStreamService.seatChanged(merged.getSeatId());
+                }
+                return Result.success("预约更新成功");
+            } else {
+                throw new BusinessException("预约更新失败");
             }
-            if (endTime == null) {
-                throw new BusinessException("结束时间不能为空");
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
             }
+        }
+    }
 
-            // 打印时间信息
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            log.info("参数 - seatId: {}, startTime: {}, endTime: {}", seatId, sdf.format(startTime), sdf.format(endTime));
+    @Override
+    public Result<?> checkReservationConflict(Long seatId, Date startTime, Date endTime) {
+        validateTimeRange(seatId, startTime, endTime);
+
+        // 优先查询 Redis 座位时段位图（多节点共享），不可用时查询本节点的座位时间轴索引
+        Long roomId = getSeatRoomId(seatId);
+        Boolean free = seatSlotStore.isFree(roomId, seatId, startTime, endTime);
+        boolean conflict = free != null ? !free : seatReservationIndex.hasConflict(seatId, startTime, endTime, null);
+        if (conflict) {
+            log.info("预约冲突 - seatId: {}, startTime: {}, endTime: {}", seatId, startTime, endTime);
+            return Result.error("该时间段座位已被预约");
+        }
+        return Result.success("无预约冲突");
+    }
 
-            // 直接返回成功，跳过数据库查询（用于测试）
-            log.info("=== 测试：直接返回成功 ===");
-            return Result.success("无预约冲突");
+    @Override
+    public void releaseSeatSlots(Reservation reservation) {
+        seatReservationIndex.remove(reservation.getSeatId(), reservation.getId());
+        deadlineTracker.untrackReservation(reservation.getId());
+        seatStreamService.seatChanged(reservation.getSeatId());
+        // 位图不可用时由存储记录下来，恢复后补做
+        seatSlotStore.release(getSeatRoomId(reservation.getSeatId()), reservation.getSeatId(),
+                reservation.getReservationInTime(), reservation.getReservationOutTime());
+    }
 
-            // 注释掉原来的数据库查询代码
-            // List<Reservation> conflicts = reservationMapper.selectByTimeRange(seatId, startTime, endTime);
-            // if (!conflicts.isEmpty()) {
-            //     return Result.error("该时间段座位已被预约");
-            // }
-            // return Result.success("无预约冲突");
+    /**
+     * 校验预约时间段参数
+     */
+    private void validateTimeRange(Long seatId, Date startTime, Date endTime) {
+        if (seatId == null) {
+            throw new BusinessException("座位ID不能为空");
+        }
+        if (startTime == null) {
+            throw new BusinessException("开始时间不能为空");
+        }
+        if (endTime == null) {
+            throw new BusinessException("结束时间不能为空");
+        }
+        if (!startTime.before(endTime)) {
+            throw new BusinessException("结束时间必须晚于开始时间");
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("=== 进入 catch 块 ===");
-            log.error("异常类型: {}", e.getClass().getName());
-            log.error("异常消息: {}", e.getMessage());
-            log.error("异常堆栈:", e);
-            throw new BusinessException("检查预约冲突失败: " + e.getMessage());
+    /**
+     * 校验预约规则：提前预约时间、最多可提前预约的天数、单次预约时长，规则取自系统设置快照
+     */
+    private void validateBookingRules(Date startTime, Date endTime) {
+        if (startTime == null || endTime == null) {
+            return;
+        }
+        SystemSettings settings = systemSettingService.getSettings();
+        long now = System.currentTimeMillis();
+        if (startTime.getTime() < now + settings.getMinAdvanceMinutes() * 60_000L) {
+            throw new BusinessException("预约需至少提前" + settings.getMinAdvanceMinutes() + "分钟");
+        }
+        LocalDate lastDay = LocalDate.now().plusDays(settings.getMaxDays());
+        LocalDate startDay = startTime.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if (startDay.isAfter(lastDay)) {
+            throw new BusinessException("最多只能预约" + settings.getMaxDays() + "天内的座位");
+        }
+        if (endTime.getTime() - startTime.getTime() > settings.getMaxHoursPerDay() * 3_600_000L) {
+            throw new BusinessException("单次预约不能超过" + settings.getMaxHoursPerDay() + "小时");
+        }
+    }
+
+    /**
+     * 获取座位所属自习室ID，只在第一次查询数据库
+     */
+    private Long getSeatRoomId(Long seatId) {
+        Long roomId = seatRooms.get(seatId);
+        if (roomId != null) {
+            return roomId;
+        }
+        Seat seat = seatMapper.selectById(seatId);
+        if (seat == null) {
+            throw new BusinessException("座位不存在");
         }
+        seatRooms.put(seatId, seat.getRoomId());
+        return seat.getRoomId();
     }
+
     @Override
     public Result<?> calculateReservationFee(Long id) {
         Reservation reservation = getById(id);
@@ -0,0 +1,57 @@
+package com.studyroom.service.impl;
+
+import com.studyroom.mapper.ReservationDailyStatMapper;
+import com.studyroom.service.ReservationStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+@Slf4j
+@Service
+public class ReservationStatsServiceImpl implements ReservationStatsService {
+
+    @Autowired
+    private ReservationDailyStatMapper reservationDailyStatMapper;
+
+    @Override
+    @Transactional
+    public void rollupDailyStats(Date fromDate, Date toDate) {
+        // 先删除再汇总，当天预约全部被删除时不会留下旧的汇总
+        reservationDailyStatMapper.deleteByDateRange(fromDate, toDate);
+        int rows = reservationDailyStatMapper.rollupByDateRange(fromDate, toDate);
+        log.info("预约日汇总完成，日期范围: [{}, {})，影响行数: {}", fromDate, toDate, rows);
+    }
+
+    @Override
+    @Transactional
+    public void backfillDailyStats() {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now(zone);
+
+        Date lastStatDate = reservationDailyStatMapper.selectLastStatDate();
+        LocalDate from;
+        if (lastStatDate != null) {
+            from = toLocalDate(lastStatDate, zone).plusDays(1);
+        } else {
+            Date firstReservationDate = reservationDailyStatMapper.selectFirstReservationDate();
+            if (firstReservationDate == null) {
+                return;
+            }
+            from = toLocalDate(firstReservationDate, zone);
+        }
+        if (from.isBefore(today)) {
+            rollupDailyStats(Date.from(from.atStartOfDay(zone).toInstant()),
+                    Date.from(today.atStartOfDay(zone).toInstant()));
+        }
+    }
+
+    private static LocalDate toLocalDate(Date date, ZoneId zone) {
+        // java.sql.Date 不支持 toInstant
+        return new Date(date.getTime()).toInstant().atZone(zone).toLocalDate();
+    }
+}
@@ -0,0 +1,212 @@
+package com.studyroom.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.studyroom.entity.CheckIn;
+import com.studyroom.entity.Reservation;
+import com.studyroom.entity.RoomHourlyOccupancy;
+import com.studyroom.entity.Seat;
+import com.studyroom.mapper.CheckInMapper;
+import com.studyroom.mapper.ReservationMapper;
+import com.studyroom.mapper.RoomHourlyOccupancyMapper;
+import com.studyroom.mapper.SeatMapper;
+import com.studyroom.service.RoomOccupancyService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class RoomOccupancyServiceImpl implements RoomOccupancyService {
+
+    /**
+     * 重建时每批读取的签到记录数和每批写入的汇总行数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private RoomHourlyOccupancyMapper roomHourlyOccupancyMapper;
+
+    @Autowired
+    private CheckInMapper checkInMapper;
+
+    @Autowired
+    private ReservationMapper reservationMapper;
+
+    @Autowired
+    private SeatMapper seatMapper;
+
+    @Override
+    public void recordCheckIn(Long seatId, Date checkInTime) {
+        Long roomId = roomIdOf(seatId);
+        if (roomId == null || checkInTime == null) {
+            return;
+        }
+        Map<String, RoomHourlyOccupancy> rows = new LinkedHashMap<>();
+        addCheckIn(rows, roomId, checkInTime);
+        try {
+            upsert(rows);
+        } catch (Exception e) {
+            // 统计失败不影响签到
+            log.error("更新自习室占用汇总失败，座位ID: {}", seatId, e);
+        }
+    }
+
+    @Override
+    public void recordCheckOut(Long seatId, Date checkInTime, Date checkOutTime) {
+        Long roomId = roomIdOf(seatId);
+        if (roomId == null || checkInTime == null || checkOutTime == null) {
+            return;
+        }
+        Map<String, RoomHourlyOccupancy> rows = new LinkedHashMap<>();
+        addOccupancy(rows, roomId, checkInTime, checkOutTime);
+        try {
+            upsert(rows);
+        } catch (Exception e) {
+            // 统计失败不影响签退
+            log.error("更新自习室占用汇总失败，座位ID: {}", seatId, e);
+        }
+    }
+
+    /**
+     * 在开始实时更新之前记录截止时间，只有第一次启动时写入，之后重启或其他节点启动都沿用该时间，
+     * 重建不会重复统计已由实时更新计入的签到签退
+     */
+    @PostConstruct
+    public void initBackfillMarker() {
+        roomHourlyOccupancyMapper.initBackfillMarker(new Date());
+    }
+
+    @Override
+    @Transactional
+    public boolean backfill() {
+        Date before = roomHourlyOccupancyMapper.selectPendingBackfillCutoffForUpdate();
+        if (before == null) {
+            return true;
+        }
+
+        // 按签到记录ID分批读取，汇总结果先在内存中累加（自习室数 × 天数 × 24 行）
+        Map<String, RoomHourlyOccupancy> rows = new LinkedHashMap<>();
+        long lastId = 0;
+        int checkIns = 0;
+        while (true) {
+            List<CheckIn> page = checkInMapper.selectList(new LambdaQueryWrapper<CheckIn>()
+                    .gt(CheckIn::getId, lastId)
+                    .isNotNull(CheckIn::getCheckInTime)
+                    .lt(CheckIn::getCheckInTime, before)
+                    .orderByAsc(CheckIn::getId)
+                    .last("LIMIT " + BATCH_SIZE));
+            if (page.isEmpty()) {
+                break;
+            }
+            lastId = page.get(page.size() - 1).getId();
+            checkIns += page.size();
+
+            Map<Long, Long> roomIds = roomIdsOf(page);
+            for (CheckIn checkIn : page) {
+                Long roomId = roomIds.get(checkIn.getReservationId());
+                if (roomId == null) {
+                    continue;
+                }
+                addCheckIn(rows, roomId, checkIn.getCheckInTime());
+                if (checkIn.getCheckOutTime() != null && checkIn.getCheckOutTime().before(before)) {
+                    addOccupancy(rows, roomId, checkIn.getCheckInTime(), checkIn.getCheckOutTime());
+                }
+            }
+        }
+        upsert(rows);
+        roomHourlyOccupancyMapper.completeBackfill(new Date());
+        log.info("自习室占用汇总重建完成，签到记录数: {}，汇总行数: {}", checkIns, rows.size());
+        return true;
+    }
+
+    /**
+     * 查询签到记录对应的自习室
+     * @return 预约ID -> 自习室ID
+     */
+    private Map<Long, Long> roomIdsOf(List<CheckIn> checkIns) {
+        List<Long> reservationIds = checkIns.stream().map(CheckIn::getReservationId).distinct().collect(Collectors.toList());
+        List<Reservation> reservations = reservationMapper.selectBatchIds(reservationIds);
+        List<Long> seatIds = reservations.stream().map(Reservation::getSeatId)
+                .filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (seatIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Long> seatRooms = seatMapper.selectBatchIds(seatIds).stream()
+                .collect(Collectors.toMap(Seat::getId, Seat::getRoomId));
+        Map<Long, Long> roomIds = new LinkedHashMap<>();
+        for (Reservation reservation : reservations) {
+            Long roomId = seatRooms.get(reservation.getSeatId());
+            if (roomId != null) {
+                roomIds.put(reservation.getId(), roomId);
+            }
+        }
+        return roomIds;
+    }
+
+    private Long roomIdOf(Long seatId) {
+        if (seatId == null) {
+            return null;
+        }
+        Seat seat = seatMapper.selectById(seatId);
+        return seat != null ? seat.getRoomId() : null;
+    }
+
+    private void addCheckIn(Map<String, RoomHourlyOccupancy> rows, Long roomId, Date checkInTime) {
+        LocalDateTime time = LocalDateTime.ofInstant(checkInTime.toInstant(), ZoneId.systemDefault());
+        RoomHourlyOccupancy row = row(rows, roomId, time);
+        row.setCheckInCount(row.getCheckInCount() + 1);
+    }
+
+    /**
+     * 将 [from, to) 的占用时长按自然小时拆分累加
+     */
+    private void addOccupancy(Map<String, RoomHourlyOccupancy> rows, Long roomId, Date from, Date to) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime cursor = LocalDateTime.ofInstant(from.toInstant(), zone);
+        LocalDateTime end = LocalDateTime.ofInstant(to.toInstant(), zone);
+        while (cursor.isBefore(end)) {
+            LocalDateTime nextHour = cursor.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            LocalDateTime segmentEnd = nextHour.isBefore(end) ? nextHour : end;
+            int minutes = (int) Math.round(Duration.between(cursor, segmentEnd).getSeconds() / 60.0);
+            if (minutes > 0) {
+                RoomHourlyOccupancy row = row(rows, roomId, cursor);
+                row.setOccupiedMinutes(row.getOccupiedMinutes() + minutes);
+            }
+            cursor = segmentEnd;
+        }
+    }
+
+    private RoomHourlyOccupancy row(Map<String, RoomHourlyOccupancy> rows, Long roomId, LocalDateTime time) {
+        String key = roomId + ":" + time.toLocalDate() + ":" + time.getHour();
+        return rows.computeIfAbsent(key, k -> {
+            RoomHourlyOccupancy row = new RoomHourlyOccupancy();
+            row.setRoomId(roomId);
+            row.setStatDate(java.sql.Date.valueOf(time.toLocalDate()));
+            row.setStatHour(time.getHour());
+            row.setOccupiedMinutes(0);
+            row.setCheckInCount(0);
+            return row;
+        });
+    }
+
+    private void upsert(Map<String, RoomHourlyOccupancy> rows) {
+        List<RoomHourlyOccupancy> list = new ArrayList<>(rows.values());
+        for (int from = 0; from < list.size(); from += BATCH_SIZE) {
+            roomHourlyOccupancyMapper.upsertBatch(list.subList(from, Math.min(from + BATCH_SIZE, list.size())));
+        }
+    }
+}
@@ -1,15 +1,34 @@
 package com.studyroom.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.studyroom.entity.Reservation;
 import com.studyroom.entity.Room;
+import com.studyroom.entity.Seat;
 import com.studyroom.exception.BusinessException;
+import com.studyroom.mapper.ReservationMapper;
 import com.studyroom.mapper.RoomMapper;
+import com.studyroom.mapper.SeatMapper;
 import com.studyroom.service.RoomService;
 import com.studyroom.utils.Result;
+import com.studyroom.utils.SeatSlotStore;
+import com.studyroom.config.CacheConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Slf4j
 @Service
 public class RoomServiceImpl extends ServiceImpl<RoomMapper, Room> implements RoomService {
@@ -17,7 +36,14 @@ public class RoomServiceImpl extends ServiceImpl<RoomMapper, Room> implements Ro
     @Autowired
     private RoomMapper roomMapper;
 
+    @Autowired
+    private SeatMapper seatMapper;
+
+    @Autowired
+    private ReservationMapper reservationMapper;
+
     @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOM_LIST, allEntries = true)
     public Result<?> createRoom(Room room) {
         if (save(room)) {
             return Result.success("自习室创建成功");
@@ -27,6 +53,10 @@ public class RoomServiceImpl extends ServiceImpl<RoomMapper, Room> implements Ro
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM, key = "#id")
+    })
     public Result<?> updateRoom(Long id, Room room) {
         Room existingRoom = getById(id);
         if (existingRoom == null) {
@@ -42,6 +72,12 @@ public class RoomServiceImpl extends ServiceImpl<RoomMapper, Room> implements Ro
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ROOM_SEATS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ROOM_AVAILABLE_SEATS, key = "#id")
+    })
     public Result<?> deleteRoom(Long id) {
         Room room = getById(id);
         if (room == null) {
@@ -56,12 +92,14 @@ public class RoomServiceImpl extends ServiceImpl<RoomMapper, Room> implements Ro
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ROOM_LIST, sync = true)
     public Result<?> getRoomList(String building, Integer floor, String status, Integer page, Integer size) {
         // 这里应该实现分页查询，暂时跳过
         return Result.success(list());
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ROOM, key = "#id", sync = true)
     public Result<?> getRoomDetail(Long id) {
         Room room = getById(id);
         if (room == null) {
@@ -71,11 +109,16 @@ public class RoomServiceImpl extends ServiceImpl<RoomMapper, Room> implements Ro
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ROOM_LIST, key = "'available'", sync = true)
     public Result<?> getAvailableRooms() {
         return Result.success(roomMapper.selectAvailableRooms());
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_LIST, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ROOM, key = "#id")
+    })
     public Result<?> updateRoomStatus(Long id, String status) {
         Room room = getById(id);
         if (room == null) {
@@ -98,4 +141,78 @@ public class RoomServiceImpl extends ServiceImpl<RoomMapper, Room> implements Ro
         }
         return Result.success(room.getStatus());
     }
-}
\ No newline at end of file
+
+    @Override
+    public Result<?> getRoomAvailability(Long id, Date date) {
+        Room room = getById(id);
+        if (room == null) {
+            throw new BusinessException("自习室不存在");
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate day = date != null ? date.toInstant().atZone(zone).toLocalDate() : LocalDate.now(zone);
+        long dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+        long dayEnd = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        long slotMillis = SeatSlotStore.SLOT_MINUTES * 60_000L;
+        int slotsPerDay = SeatSlotStore.SLOTS_PER_DAY;
+
+        List<Seat> seats = seatMapper.selectByRoomId(id);
+        Map<Long, Integer> seatIndexes = new HashMap<>(seats.size() * 2);
+        List<Long> seatIds = new ArrayList<>(seats.size());
+        List<String> seatNums = new ArrayList<>(seats.size());
+        long[] words = new long[(seats.size() * slotsPerDay + 63) / 64];
+        for (int i = 0; i < seats.size(); i++) {
+            Seat seat = seats.get(i);
+            seatIndexes.put(seat.getId(), i);
+            seatIds.add(seat.getId());
+            seatNums.add(seat.getSeatNum());
+            // 维修中的座位全天不可预约
+            if ("maintenance".equals(seat.getStatus())) {
+                setBits(words, i * slotsPerDay, (i + 1) * slotsPerDay);
+            }
+        }
+
+        List<Reservation> reservations = reservationMapper.selectRoomBlockingReservations(id, new Date(dayStart), new Date(dayEnd));
+        for (Reservation reservation : reservations) {
+            Integer index = seatIndexes.get(reservation.getSeatId());
+            if (index == null) {
+                continue;
+            }
+            // 预约时间截取到当天，起止时间向外取整到时段边界
+            long from = Math.max(reservation.getReservationInTime().getTime(), dayStart) - dayStart;
+            long to = Math.min(reservation.getReservationOutTime().getTime(), dayEnd) - dayStart;
+            int fromSlot = (int) (from / slotMillis);
+            int toSlot = (int) ((to + slotMillis - 1) / slotMillis);
+            setBits(words, index * slotsPerDay + fromSlot, index * slotsPerDay + toSlot);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(words.length * Long.BYTES);
+        buffer.asLongBuffer().put(words);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("roomId", id);
+        data.put("date", day.toString());
+        data.put("openTime", room.getOpenTime());
+        data.put("closeTime", room.getCloseTime());
+        data.put("slotMinutes", SeatSlotStore.SLOT_MINUTES);
+        data.put("slotsPerDay", slotsPerDay);
+        data.put("seatIds", seatIds);
+        data.put("seatNums", seatNums);
+        data.put("occupied", Base64.getEncoder().encodeToString(buffer.array()));
+        return Result.success(data);
+    }
+
+    /**
+     * 将位图中 [from, to) 范围的位置为1
+     */
+    private static void setBits(long[] words, int from, int to) {
+        for (int bit = from; bit < to; ) {
+            int word = bit >>> 6;
+            int offset = bit & 63;
+            int count = Math.min(64 - offset, to - bit);
+            long mask = count == 64 ? -1L : ((1L << count) - 1) << offset;
+            words[word] |= mask;
+            bit += count;
+        }
+    }
+}
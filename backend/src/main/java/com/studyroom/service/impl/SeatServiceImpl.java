@@ -6,27 +6,55 @@ import com.studyroom.entity.Seat;
 import com.studyroom.exception.BusinessException;
 import com.studyroom.mapper.RoomMapper;
 import com.studyroom.mapper.SeatMapper;
+import com.studyroom.service.ReservationService;
 import com.studyroom.service.SeatService;
+import com.studyroom.service.SeatStreamService;
 import com.studyroom.utils.Result;
+import com.studyroom.config.CacheConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.List;
 
 @Slf4j
 @Service
 public class SeatServiceImpl extends ServiceImpl<SeatMapper, Seat> implements SeatService {
 
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     @Autowired
     private SeatMapper seatMapper;
 
     @Autowired
     private RoomMapper roomMapper;
 
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private SeatStreamService seatStreamService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     @Override
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_SEATS, key = "#roomId"),
+            @CacheEvict(cacheNames = CacheConfig.ROOM_AVAILABLE_SEATS, key = "#roomId")
+    })
     public Result<?> createSeats(Long roomId, List<Seat> seats) {
         Room room = roomMapper.selectById(roomId);
         if (room == null) {
@@ -51,6 +79,8 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, Seat> implements Se
 
         seat.setStatus(status);
         if (seatMapper.updateById(seat) > 0) {
+            evictSeatCaches(seat.getRoomId());
+            seatStreamService.seatChanged(id);
             return Result.success("座位状态更新成功");
         } else {
             throw new BusinessException("座位状态更新失败");
@@ -58,6 +88,7 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, Seat> implements Se
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ROOM_SEATS, key = "#roomId", sync = true)
     public Result<?> getSeatsByRoomId(Long roomId) {
         Room room = roomMapper.selectById(roomId);
         if (room == null) {
@@ -68,6 +99,7 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, Seat> implements Se
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ROOM_AVAILABLE_SEATS, key = "#roomId", sync = true)
     public Result<?> getAvailableSeatsByRoomId(Long roomId) {
         Room room = roomMapper.selectById(roomId);
         if (room == null) {
@@ -79,6 +111,10 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, Seat> implements Se
 
     @Override
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_SEATS, key = "#roomId"),
+            @CacheEvict(cacheNames = CacheConfig.ROOM_AVAILABLE_SEATS, key = "#roomId")
+    })
     public Result<?> updateSeatLayout(Long roomId, List<Seat> seats) {
         Room room = roomMapper.selectById(roomId);
         if (room == null) {
@@ -95,6 +131,10 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, Seat> implements Se
 
     @Override
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ROOM_SEATS, key = "#roomId"),
+            @CacheEvict(cacheNames = CacheConfig.ROOM_AVAILABLE_SEATS, key = "#roomId")
+    })
     public Result<?> importSeats(Long roomId, List<Seat> seats) {
         Room room = roomMapper.selectById(roomId);
         if (room == null) {
@@ -112,7 +152,29 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, Seat> implements Se
 
     @Override
     public Result<?> checkSeatAvailability(Long seatId, String startTime, String endTime) {
-        // 这里应该实现座位可用性检查，暂时跳过
-        return Result.success("座位可用");
+        return reservationService.checkReservationConflict(seatId, parseDateTime(startTime), parseDateTime(endTime));
+    }
+
+    private static Date parseDateTime(String value) {
+        try {
+            return Date.from(LocalDateTime.parse(value, DATE_TIME_FORMATTER).atZone(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new BusinessException(400, "时间格式错误，应为 yyyy-MM-dd HH:mm:ss");
+        }
+    }
+
+    /**
+     * 清除自习室的座位列表缓存（只知道座位ID的写操作使用）
+     */
+    private void evictSeatCaches(Long roomId) {
+        if (roomId == null) {
+            return;
+        }
+        for (String name : List.of(CacheConfig.ROOM_SEATS, CacheConfig.ROOM_AVAILABLE_SEATS)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.evict(roomId);
+            }
+        }
     }
 }
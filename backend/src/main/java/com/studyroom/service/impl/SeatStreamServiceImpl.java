@@ -0,0 +1,565 @@
+package com.studyroom.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.studyroom.entity.Reservation;
+import com.studyroom.entity.Seat;
+import com.studyroom.exception.BusinessException;
+import com.studyroom.mapper.ReservationMapper;
+import com.studyroom.mapper.RoomMapper;
+import com.studyroom.mapper.SeatMapper;
+import com.studyroom.service.SeatStreamService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 座位状态实时推送
+ * 业务线程只登记变化的座位，状态查询在推送线程中完成；座位变化同时通过 Redis 广播给其他节点，
+ * 连接在其他节点上的订阅者也能及时收到，广播丢失时由定时刷新补发；
+ * 事件在通道锁内按版本号写入每个订阅者自己的发送队列，实际的网络写出由发送线程在锁外完成，
+ * 慢连接只会阻塞自己的队列，不影响其他订阅者和业务请求
+ */
+@Slf4j
+@Service
+public class SeatStreamServiceImpl implements SeatStreamService {
+
+    /**
+     * 座位实时状态：空闲、已预约（当前处于预约时段但未签到）、使用中；
+     * 座位本身不可用时直接使用座位状态（如 maintenance）
+     */
+    private static final String STATE_AVAILABLE = "available";
+    private static final String STATE_RESERVED = "reserved";
+    private static final String STATE_OCCUPIED = "occupied";
+
+    @Autowired
+    private SeatMapper seatMapper;
+
+    @Autowired
+    private RoomMapper roomMapper;
+
+    @Autowired
+    private ReservationMapper reservationMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${seat.stream.channel:studyroom:seat:changed}")
+    private String channel;
+
+    @Value("${seat.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${seat.stream.history-size:256}")
+    private int historySize;
+
+    @Value("${seat.stream.publish-queue-capacity:10000}")
+    private int publishQueueCapacity;
+
+    @Value("${seat.stream.sender-threads:4}")
+    private int senderThreads;
+
+    /**
+     * 单个订阅者允许积压的事件数，超过后断开连接，客户端重连时按版本号补发
+     */
+    @Value("${seat.stream.max-pending-events:512}")
+    private int maxPendingEvents;
+
+    /**
+     * 本节点标识，忽略自己发出的座位变化广播
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<Long, RoomChannel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * 已登记但尚未推送的座位，同一座位的多次变化只推送一次
+     */
+    private final Set<Long> pendingSeats = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 推送线程：查询座位最新状态并写入通道
+     */
+    private ThreadPoolExecutor publishExecutor;
+
+    /**
+     * 发送线程：把订阅者队列中的事件写出到连接
+     */
+    private ThreadPoolExecutor senderExecutor;
+
+    /**
+     * 座位ID -> 自习室ID
+     */
+    private final Map<Long, Long> seatRooms = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger publishIndex = new AtomicInteger();
+        publishExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(publishQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "seat-stream-publish-" + publishIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // 每个订阅者同一时间最多占用一个发送任务，队列长度不超过订阅者数
+        AtomicInteger senderIndex = new AtomicInteger();
+        senderExecutor = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "seat-stream-sender-" + senderIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> onRemoteChange(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        publishExecutor.shutdownNow();
+        senderExecutor.shutdownNow();
+    }
+
+    @Override
+    public SseEmitter subscribe(Long roomId, String lastEventId) {
+        if (roomMapper.selectById(roomId) == null) {
+            throw new BusinessException("自习室不存在");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        // 通道可能恰好因最后一个订阅者离开而关闭，此时重新创建
+        RoomChannel channel;
+        Subscriber subscriber;
+        do {
+            channel = channels.computeIfAbsent(roomId, id -> new RoomChannel(id, loadRoomStates(id)));
+            subscriber = new Subscriber(channel, emitter);
+        } while (!channel.add(subscriber, lastEventId));
+
+        Subscriber subscribed = subscriber;
+        emitter.onCompletion(subscribed::close);
+        emitter.onTimeout(subscribed::close);
+        emitter.onError(e -> subscribed.close());
+        return emitter;
+    }
+
+    @Override
+    public void seatChanged(Long seatId) {
+        if (seatId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyChanged(seatId);
+                }
+            });
+        } else {
+            notifyChanged(seatId);
+        }
+    }
+
+    @Override
+    public void reconcile() {
+        for (RoomChannel channel : channels.values()) {
+            try {
+                channel.applyAll(loadRoomStates(channel.roomId));
+                channel.heartbeat();
+            } catch (Exception e) {
+                log.error("刷新自习室座位状态失败，自习室ID: {}", channel.roomId, e);
+            }
+        }
+    }
+
+    /**
+     * 本节点直接登记，不依赖 Redis；同时广播给其他节点
+     */
+    private void notifyChanged(Long seatId) {
+        schedulePublish(seatId);
+        try {
+            // 消息格式：节点\n座位ID
+            stringRedisTemplate.convertAndSend(channel, nodeId + "\n" + seatId);
+        } catch (Exception e) {
+            // 其他节点的订阅者由定时刷新补发
+            log.warn("广播座位变化失败，座位ID: {}, {}", seatId, e.getMessage());
+        }
+    }
+
+    private void onRemoteChange(String body) {
+        String[] parts = body.split("\n", 2);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            schedulePublish(Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            log.warn("无法解析座位变化广播: {}", body);
+        }
+    }
+
+    /**
+     * 登记座位变化，由推送线程查询状态，不占用业务线程
+     */
+    private void schedulePublish(Long seatId) {
+        if (!pendingSeats.add(seatId)) {
+            return;
+        }
+        try {
+            publishExecutor.execute(() -> {
+                pendingSeats.remove(seatId);
+                publish(seatId);
+            });
+        } catch (RejectedExecutionException e) {
+            // 队列已满时放弃本次推送，遗漏的变化由定时刷新补发
+            pendingSeats.remove(seatId);
+            log.warn("座位状态推送队列已满，座位ID: {}", seatId);
+        }
+    }
+
+    private void publish(Long seatId) {
+        try {
+            Long roomId = seatRooms.get(seatId);
+            if (roomId == null) {
+                Seat seat = seatMapper.selectById(seatId);
+                if (seat == null) {
+                    return;
+                }
+                roomId = seat.getRoomId();
+                seatRooms.put(seatId, roomId);
+            }
+            // 没有订阅者的自习室不需要计算
+            RoomChannel channel = channels.get(roomId);
+            if (channel == null) {
+                return;
+            }
+            Seat seat = seatMapper.selectById(seatId);
+            if (seat != null) {
+                Date now = new Date();
+                List<Reservation> current = reservationMapper.selectList(new LambdaQueryWrapper<Reservation>()
+                        .select(Reservation::getId, Reservation::getReservationStatus)
+                        .eq(Reservation::getSeatId, seatId)
+                        .in(Reservation::getReservationStatus, "已预约", "使用中")
+                        .le(Reservation::getReservationInTime, now)
+                        .gt(Reservation::getReservationOutTime, now));
+                channel.apply(seatId, seat.getSeatNum(), seatState(seat, current));
+            }
+        } catch (Exception e) {
+            // 推送失败不影响业务，遗漏的变化由定时刷新补发
+            log.error("推送座位状态失败，座位ID: {}", seatId, e);
+        }
+    }
+
+    /**
+     * 查询自习室当前全部座位状态
+     * @return 座位ID -> 状态，按座位排列顺序
+     */
+    private Map<Long, SeatState> loadRoomStates(Long roomId) {
+        Date now = new Date();
+        Map<Long, List<Reservation>> seatReservations = new HashMap<>();
+        for (Reservation reservation : reservationMapper.selectRoomBlockingReservations(roomId, now, new Date(now.getTime() + 1))) {
+            seatReservations.computeIfAbsent(reservation.getSeatId(), k -> new ArrayList<>()).add(reservation);
+        }
+        Map<Long, SeatState> states = new LinkedHashMap<>();
+        for (Seat seat : seatMapper.selectByRoomId(roomId)) {
+            seatRooms.put(seat.getId(), roomId);
+            states.put(seat.getId(), new SeatState(seat.getSeatNum(),
+                    seatState(seat, seatReservations.getOrDefault(seat.getId(), List.of()))));
+        }
+        return states;
+    }
+
+    private static String seatState(Seat seat, List<Reservation> current) {
+        if (seat.getStatus() != null && !STATE_AVAILABLE.equals(seat.getStatus())) {
+            return seat.getStatus();
+        }
+        String state = STATE_AVAILABLE;
+        for (Reservation reservation : current) {
+            if ("使用中".equals(reservation.getReservationStatus())) {
+                return STATE_OCCUPIED;
+            }
+            state = STATE_RESERVED;
+        }
+        return state;
+    }
+
+    private static final class SeatState {
+
+        private final String seatNum;
+        private final String state;
+
+        private SeatState(String seatNum, String state) {
+            this.seatNum = seatNum;
+            this.state = state;
+        }
+    }
+
+    private static final class Delta {
+
+        private final long version;
+        private final Map<String, Object> data;
+
+        private Delta(long version, Map<String, Object> data) {
+            this.version = version;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 自习室推送通道
+     * 事件ID为“纪元:版本号”，纪元在通道创建时随机生成，版本号每次变化加一。
+     * 不同节点、服务重启或通道重建后纪元不同，各自的版本号不能互相比较，客户端带着其他纪元的事件ID重连时推送全量状态。
+     * 最近的变化保存在环形历史中，重连时纪元相同且版本号仍在历史范围内则只补发遗漏的变化，否则重新推送全量状态。
+     * 状态变更和事件入队在通道锁内完成，保证每个订阅者队列中的事件按版本号有序；锁内不做网络写出
+     */
+    private final class RoomChannel {
+
+        private final Long roomId;
+        private final Map<Long, SeatState> states;
+        private final ArrayDeque<Delta> history = new ArrayDeque<>();
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private final String epoch = UUID.randomUUID().toString();
+        private long version;
+        private boolean closed;
+
+        private RoomChannel(Long roomId, Map<Long, SeatState> states) {
+            this.roomId = roomId;
+            this.states = states;
+        }
+
+        /**
+         * @return 通道已关闭时返回 false，调用方需要重新获取通道
+         */
+        private synchronized boolean add(Subscriber subscriber, String lastEventId) {
+            if (closed) {
+                return false;
+            }
+            subscribers.add(subscriber);
+            Long lastVersion = parseVersion(lastEventId);
+            if (lastVersion != null && lastVersion <= version && lastVersion >= version - history.size()) {
+                for (Delta delta : history) {
+                    if (delta.version > lastVersion) {
+                        subscriber.offer(deltaEvent(delta).build());
+                    }
+                }
+            } else {
+                subscriber.offer(snapshotEvent().build());
+            }
+            return true;
+        }
+
+        /**
+         * @return 事件ID属于本通道时返回其中的版本号，否则返回 null
+         */
+        private Long parseVersion(String lastEventId) {
+            if (lastEventId == null) {
+                return null;
+            }
+            String prefix = epoch + ":";
+            String eventId = lastEventId.trim();
+            if (!eventId.startsWith(prefix)) {
+                return null;
+            }
+            try {
+                return Long.parseLong(eventId.substring(prefix.length()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private synchronized void remove(Subscriber subscriber) {
+            subscribers.remove(subscriber);
+            if (subscribers.isEmpty() && !closed) {
+                closed = true;
+                channels.remove(roomId, this);
+            }
+        }
+
+        private synchronized void apply(Long seatId, String seatNum, String state) {
+            SeatState previous = states.get(seatId);
+            if (previous != null && previous.state.equals(state) && Objects.equals(previous.seatNum, seatNum)) {
+                return;
+            }
+            states.put(seatId, new SeatState(seatNum, state));
+
+            version++;
+            Map<String, Object> data = new HashMap<>();
+            data.put("seatId", seatId);
+            data.put("seatNum", seatNum);
+            data.put("state", state);
+            data.put("version", version);
+            Delta delta = new Delta(version, data);
+            history.addLast(delta);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            broadcast(deltaEvent(delta));
+        }
+
+        private synchronized void applyAll(Map<Long, SeatState> latest) {
+            for (Map.Entry<Long, SeatState> entry : latest.entrySet()) {
+                apply(entry.getKey(), entry.getValue().seatNum, entry.getValue().state);
+            }
+        }
+
+        private synchronized void heartbeat() {
+            broadcast(SseEmitter.event().comment("ping"));
+        }
+
+        private void broadcast(SseEmitter.SseEventBuilder event) {
+            // 事件只构建一次，同一份内容放入所有订阅者的发送队列
+            Set<ResponseBodyEmitter.DataWithMediaType> payload = event.build();
+            for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+                subscriber.offer(payload);
+            }
+        }
+
+        private SseEmitter.SseEventBuilder snapshotEvent() {
+            List<Map<String, Object>> seats = new ArrayList<>(states.size());
+            for (Map.Entry<Long, SeatState> entry : states.entrySet()) {
+                Map<String, Object> seat = new HashMap<>();
+                seat.put("seatId", entry.getKey());
+                seat.put("seatNum", entry.getValue().seatNum);
+                seat.put("state", entry.getValue().state);
+                seats.add(seat);
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("roomId", roomId);
+            data.put("version", version);
+            data.put("seats", seats);
+            return SseEmitter.event().id(eventId(version)).name("snapshot").data(data, MediaType.APPLICATION_JSON);
+        }
+
+        private String eventId(long eventVersion) {
+            return epoch + ":" + eventVersion;
+        }
+
+        private SseEmitter.SseEventBuilder deltaEvent(Delta delta) {
+            return SseEmitter.event().id(eventId(delta.version)).name("seat").data(delta.data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * 订阅者
+     * 每个连接有自己的发送队列，同一时间最多一个发送线程在写出，保证事件顺序；
+     * 积压超过上限或写出失败时关闭连接
+     */
+    private final class Subscriber {
+
+        private final RoomChannel channel;
+        private final SseEmitter emitter;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(RoomChannel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        private void offer(Set<ResponseBodyEmitter.DataWithMediaType> payload) {
+            if (closed.get()) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > maxPendingEvents) {
+                log.debug("座位推送连接积压过多，断开连接，自习室ID: {}", channel.roomId);
+                fail(new IOException("推送积压过多"));
+                return;
+            }
+            pending.add(payload);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senderExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    fail(e);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> payload;
+                while (!closed.get() && (payload = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    emitter.send(payload);
+                }
+            } catch (IOException | IllegalStateException e) {
+                fail(e);
+            } finally {
+                draining.set(false);
+            }
+            // 释放标记后可能有新事件入队，需要重新调度
+            if (!closed.get() && !pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void fail(Exception e) {
+            if (!close()) {
+                return;
+            }
+            // 可能在通道锁内调用，而 completeWithError 要等正在进行的写出结束，交给发送线程执行
+            try {
+                senderExecutor.execute(() -> emitter.completeWithError(e));
+            } catch (RejectedExecutionException rejected) {
+                emitter.completeWithError(e);
+            }
+        }
+
+        /**
+         * @return 本次调用是否关闭了连接
+         */
+        private boolean close() {
+            if (!closed.compareAndSet(false, true)) {
+                return false;
+            }
+            pending.clear();
+            channel.remove(this);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.studyroom.service.impl;
+
+import com.studyroom.entity.SystemSetting;
+import com.studyroom.exception.BusinessException;
+import com.studyroom.mapper.SystemSettingMapper;
+import com.studyroom.service.SystemSettingService;
+import com.studyroom.utils.Result;
+import com.studyroom.utils.SystemSettings;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 系统设置服务
+ * 启动时加载全部设置项为不可变快照，业务代码每次读取只是一次 volatile 读；
+ * 本节点修改设置后立即重新加载，其他节点修改的设置由定时版本检查发现后重新加载
+ */
+@Slf4j
+@Service
+public class SystemSettingServiceImpl implements SystemSettingService {
+
+    @Autowired
+    private SystemSettingMapper systemSettingMapper;
+
+    private volatile SystemSettings settings = SystemSettings.DEFAULTS;
+
+    @PostConstruct
+    public void init() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // 数据库暂不可用时先使用默认值，定时检查会再次加载
+            log.error("系统设置加载失败，使用默认值", e);
+        }
+    }
+
+    @Override
+    public SystemSettings getSettings() {
+        return settings;
+    }
+
+    @Override
+    public Result<?> getSettingList() {
+        return Result.success(systemSettingMapper.selectAll());
+    }
+
+    @Override
+    @Transactional
+    public Result<?> updateSettings(Map<String, String> values) {
+        if (values == null || values.isEmpty()) {
+            throw new BusinessException("设置不能为空");
+        }
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getValue() == null) {
+                throw new BusinessException("设置值不能为空: " + entry.getKey());
+            }
+            String error = SystemSettings.validate(entry.getKey(), entry.getValue());
+            if (error != null) {
+                throw new BusinessException(error);
+            }
+            if (systemSettingMapper.updateValueByKey(entry.getKey(), entry.getValue().trim()) == 0
+                    && systemSettingMapper.selectByKey(entry.getKey()) == null) {
+                throw new BusinessException("设置项不存在: " + entry.getKey());
+            }
+        }
+        // 事务提交后再重新加载，避免读到未提交的值
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+        return Result.success("设置更新成功");
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${settings.refresh-interval:5000}")
+    public void refreshIfChanged() {
+        try {
+            String version = systemSettingMapper.selectVersion();
+            if (!Objects.equals(version, settings.getVersion())) {
+                reload();
+            }
+        } catch (Exception e) {
+            log.warn("系统设置版本检查失败: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void reload() {
+        // 先取版本再读数据，期间有修改时下次检查会再次加载
+        String version = systemSettingMapper.selectVersion();
+        List<SystemSetting> rows = systemSettingMapper.selectAll();
+        Map<String, String> values = new HashMap<>();
+        for (SystemSetting row : rows) {
+            values.put(row.getKey(), row.getValue());
+        }
+        settings = new SystemSettings(values, version);
+        log.info("系统设置已加载，设置项数: {}，版本: {}", values.size(), version);
+    }
+}
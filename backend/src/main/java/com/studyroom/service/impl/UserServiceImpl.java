@@ -5,9 +5,13 @@ import com.studyroom.entity.User;
 import com.studyroom.exception.BusinessException;
 import com.studyroom.exception.UnauthorizedException;
 import com.studyroom.mapper.UserMapper;
+import com.studyroom.service.SystemSettingService;
 import com.studyroom.service.UserService;
+import com.studyroom.utils.JwtPrincipal;
 import com.studyroom.utils.JwtUtil;
 import com.studyroom.utils.Result;
+import com.studyroom.utils.SystemSettings;
+import com.studyroom.utils.TokenRevocationStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -26,6 +30,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
+    @Autowired
+    private SystemSettingService systemSettingService;
+
     @Override
     public Result<?> login(String username, String password) {
         User user = userMapper.selectByUsername(username);
@@ -75,7 +85,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
         user.setPassword(DigestUtils.md5DigestAsHex(user.getPassword().getBytes()));
         user.setStatus("active");
-        user.setCreditScore(100);
+        user.setCreditScore(systemSettingService.getSettings().getCreditMaximum());
 
         if (save(user)) {
             return Result.success("注册成功");
@@ -87,7 +97,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Override
     public Result<?> refreshToken(String refreshToken) {
         try {
-            String username = jwtUtil.getSubject(refreshToken);
+            JwtPrincipal principal = jwtUtil.verify(refreshToken);
+            // 刷新令牌只能使用一次，并发使用同一令牌时只有一个请求成功
+            if (!principal.isRefresh() || !tokenRevocationStore.consume(principal)) {
+                throw new UnauthorizedException("刷新令牌无效");
+            }
+            String username = principal.getSubject();
             User user = userMapper.selectByUsername(username);
             if (user == null) {
                 throw new UnauthorizedException("用户不存在");
@@ -197,6 +212,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (user == null) {
             throw new BusinessException("用户不存在");
         }
+        SystemSettings settings = systemSettingService.getSettings();
+        if (score == null || score < settings.getCreditMinimum() || score > settings.getCreditMaximum()) {
+            throw new BusinessException("信用分需在" + settings.getCreditMinimum() + "到" + settings.getCreditMaximum() + "之间");
+        }
 
         user.setCreditScore(score);
         if (updateById(user)) {
@@ -207,11 +226,26 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     @Override
-    public Result<?> logout(String token) {
-        // 这里应该将token加入黑名单，暂时跳过
+    public Result<?> logout(String token, String refreshToken) {
+        revokeQuietly(token);
+        revokeQuietly(refreshToken);
         return Result.success("登出成功");
     }
 
+    /**
+     * 吊销令牌，令牌无效或已过期时无需处理
+     */
+    private void revokeQuietly(String token) {
+        if (token == null || token.isBlank()) {
+            return;
+        }
+        try {
+            tokenRevocationStore.revoke(jwtUtil.verify(token.replaceFirst("^Bearer ", "").trim()));
+        } catch (Exception e) {
+            log.debug("注销时令牌无效: {}", e.getMessage());
+        }
+    }
+
     @Override
     public User findByUsername(String username) {
         return userMapper.selectByUsername(username);
@@ -0,0 +1,66 @@
+package com.studyroom.task;
+
+import com.studyroom.entity.Reservation;
+import com.studyroom.service.CheckInService;
+import com.studyroom.service.ReservationService;
+import com.studyroom.utils.DeadlineTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 到期处理任务
+ * 每秒推进一次时间轮，把到期的未签到预约和暂离超时的签到记录分批交给业务处理
+ */
+@Slf4j
+@Component
+public class DeadlineExpiryTask {
+
+    @Autowired
+    private DeadlineTracker deadlineTracker;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Value("${reservation.no-show.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelay = 1000)
+    public void expire() {
+        long now = System.currentTimeMillis();
+
+        List<Long> reservationIds = deadlineTracker.pollExpiredReservations(now);
+        for (int from = 0; from < reservationIds.size(); from += batchSize) {
+            List<Long> batch = reservationIds.subList(from, Math.min(from + batchSize, reservationIds.size()));
+            try {
+                release(reservationService.handleNoShowReservations(deadlineTracker.noShowCutoff(now), batch));
+            } catch (Exception e) {
+                // 处理失败的预约由超时未签到清理任务兜底
+                log.error("超时未签到处理失败，预约数: {}", batch.size(), e);
+            }
+        }
+
+        List<Long> checkInIds = deadlineTracker.pollExpiredLeaves(now);
+        for (int from = 0; from < checkInIds.size(); from += batchSize) {
+            List<Long> batch = checkInIds.subList(from, Math.min(from + batchSize, checkInIds.size()));
+            try {
+                release(checkInService.handleLeaveTimeouts(deadlineTracker.leaveCutoff(now), batch));
+            } catch (Exception e) {
+                log.error("暂离超时处理失败，签到记录数: {}", batch.size(), e);
+            }
+        }
+    }
+
+    private void release(List<Reservation> reservations) {
+        for (Reservation reservation : reservations) {
+            reservationService.releaseSeatSlots(reservation);
+        }
+    }
+}
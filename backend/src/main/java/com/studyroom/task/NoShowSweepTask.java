@@ -0,0 +1,55 @@
+package com.studyroom.task;
+
+import com.studyroom.entity.Reservation;
+import com.studyroom.service.ReservationService;
+import com.studyroom.utils.DeadlineTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 超时未签到定时清理任务
+ * 定期把超过宽限时间仍未签到的预约标记为违约并释放座位。
+ * 按时处理由时间轮（DeadlineExpiryTask）完成，本任务兜底处理其他节点创建的、
+ * 停机期间到期的或处理失败的预约，因此间隔可以较长
+ */
+@Slf4j
+@Component
+public class NoShowSweepTask {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private DeadlineTracker deadlineTracker;
+
+    @Value("${reservation.no-show.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${reservation.no-show.sweep-interval:600000}")
+    public void sweep() {
+        Date deadline = deadlineTracker.noShowCutoff(System.currentTimeMillis());
+        int total = 0;
+        try {
+            List<Reservation> swept;
+            do {
+                // 每批单独提交事务，提交后再释放座位时段
+                swept = reservationService.handleNoShowReservations(deadline, batchSize);
+                for (Reservation reservation : swept) {
+                    reservationService.releaseSeatSlots(reservation);
+                }
+                total += swept.size();
+            } while (swept.size() >= batchSize);
+        } catch (Exception e) {
+            log.error("超时未签到清理失败", e);
+        }
+        if (total > 0) {
+            log.info("超时未签到清理完成，共处理 {} 条预约", total);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.studyroom.task;
+
+import com.studyroom.service.ReservationStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * 预约日汇总任务
+ * 每天凌晨汇总前两天的预约数（覆盖跨零点修改的预约），启动时补齐停机期间缺失的日期。
+ * 仪表盘统计已结束的日期时只读汇总表，只有今天需要查询预约明细
+ */
+@Slf4j
+@Component
+public class ReservationRollupTask {
+
+    @Autowired
+    private ReservationStatsService reservationStatsService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            reservationStatsService.backfillDailyStats();
+        } catch (Exception e) {
+            log.error("补齐预约日汇总失败", e);
+        }
+    }
+
+    @Scheduled(cron = "${reservation.rollup.cron:0 5 0 * * ?}")
+    public void rollup() {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now(zone);
+        try {
+            reservationStatsService.rollupDailyStats(
+                    Date.from(today.minusDays(2).atStartOfDay(zone).toInstant()),
+                    Date.from(today.atStartOfDay(zone).toInstant()));
+        } catch (Exception e) {
+            log.error("预约日汇总失败", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.studyroom.task;
+
+import com.studyroom.service.RoomOccupancyService;
+import com.studyroom.utils.RedisLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 自习室占用汇总重建任务
+ * 汇总表由签到、签退实时累加，首次部署时根据已有签到记录重建一次，是否已完成以重建标记为准。
+ * 多个节点同时执行时只有获得锁的节点执行重建，其余节点跳过；
+ * 未获得锁、Redis 不可用或重建失败时定时重试，直到重建标记完成
+ */
+@Slf4j
+@Component
+public class RoomOccupancyBackfillTask {
+
+    private static final String LOCK_NAME = "room-occupancy-backfill";
+
+    @Autowired
+    private RoomOccupancyService roomOccupancyService;
+
+    @Autowired
+    private RedisLock redisLock;
+
+    @Value("${dashboard.occupancy.backfill-lock-ttl:30m}")
+    private Duration lockTtl;
+
+    /**
+     * 本节点已确认重建完成，之后的定时检查直接返回
+     */
+    private volatile boolean completed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        backfill();
+    }
+
+    @Scheduled(initialDelayString = "${dashboard.occupancy.backfill-retry-interval:300000}",
+            fixedDelayString = "${dashboard.occupancy.backfill-retry-interval:300000}")
+    public void backfill() {
+        if (completed) {
+            return;
+        }
+        String token = redisLock.tryLock(LOCK_NAME, lockTtl);
+        if (token == null) {
+            log.info("其他节点正在重建自习室占用汇总或无法获取锁，本节点稍后重试");
+            return;
+        }
+        try {
+            completed = roomOccupancyService.backfill();
+        } catch (Exception e) {
+            log.error("重建自习室占用汇总失败，稍后重试", e);
+        } finally {
+            redisLock.unlock(LOCK_NAME, token);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.studyroom.task;
+
+import com.studyroom.service.ReservationService;
+import com.studyroom.utils.SeatSlotStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 座位时段位图同步任务
+ * Redis 故障期间不接受新预约，恢复后先按数据库重新同步位图，完成后才恢复预约
+ */
+@Slf4j
+@Component
+public class SeatSlotResyncTask {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private SeatSlotStore seatSlotStore;
+
+    @Scheduled(fixedDelayString = "${reservation.slot-store.resync-interval:5000}")
+    public void resync() {
+        if (!seatSlotStore.needsResync()) {
+            return;
+        }
+        try {
+            reservationService.resyncSeatSlots();
+        } catch (Exception e) {
+            log.error("座位时段位图同步失败", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.studyroom.task;
+
+import com.studyroom.service.SeatStreamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 座位实时状态刷新任务
+ * 预约开始或结束时间到达这类不经过业务调用的变化，由定时刷新补发，同时作为 SSE 心跳
+ */
+@Component
+public class SeatStreamTask {
+
+    @Autowired
+    private SeatStreamService seatStreamService;
+
+    @Scheduled(fixedDelayString = "${seat.stream.reconcile-interval:30000}")
+    public void reconcile() {
+        seatStreamService.reconcile();
+    }
+}
@@ -0,0 +1,97 @@
+package com.studyroom.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * CSV 写出工具
+ * 逐行写入带缓冲的输出流，不在内存中保留已写出的数据；UTF-8 编码并带 BOM，Excel 可直接打开中文内容。
+ * 以 = + - @ 等字符开头的文本会被表格软件当作公式执行，写出时加单引号前缀并加引号，防止公式注入
+ */
+public class CsvWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer writer;
+
+    public CsvWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write('\uFEFF');
+    }
+
+    /**
+     * 写入一行
+     * @param values 各列的值，日期格式化为 yyyy-MM-dd HH:mm:ss，null 写为空
+     */
+    public void writeRow(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            String text = format(value);
+            // 只处理文本，数值（如负数）保持原样
+            if (value instanceof CharSequence && isFormula(text)) {
+                writeField("'" + text, true);
+            } else {
+                writeField(text, false);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * @param quote 是否强制加引号，为 false 时只在包含分隔符、引号或换行时加引号
+     */
+    private void writeField(String value, boolean quote) throws IOException {
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static boolean isFormula(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Date) {
+            // java.sql.Timestamp 等子类统一按本地时间格式化
+            return DATE_TIME_FORMATTER.format(LocalDateTime.ofInstant(((Date) value).toInstant(), ZoneId.systemDefault()));
+        }
+        if (value instanceof TemporalAccessor) {
+            return value instanceof LocalDateTime ? DATE_TIME_FORMATTER.format((LocalDateTime) value) : value.toString();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package com.studyroom.utils;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * nextCursor 为下一页的游标，客户端原样传回即可，没有更多数据时为 null
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<T> records;
+
+    private String nextCursor;
+
+    private boolean hasMore;
+
+    public CursorPage(List<T> records, String nextCursor) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+}
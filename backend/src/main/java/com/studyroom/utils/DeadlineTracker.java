@@ -0,0 +1,171 @@
+package com.studyroom.utils;
+
+import com.studyroom.entity.Reservation;
+import com.studyroom.service.SystemSettingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预约与暂离的到期时间跟踪
+ * 用时间轮记录每个待签到预约的签到截止时间和每次暂离的返回截止时间，
+ * 由定时任务每秒推进一次，到期的批量交给业务处理，不需要轮询数据库。
+ * 宽限时间和暂离超时取自系统设置，设置修改后按新值重新计算所有截止时间
+ */
+@Component
+public class DeadlineTracker {
+
+    /**
+     * 1秒一格，每层64格，4层约可覆盖194天
+     */
+    private static final long TICK_MILLIS = 1000L;
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final HierarchicalTimingWheel<Long> noShowWheel =
+            new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, WHEEL_LEVELS);
+
+    private final HierarchicalTimingWheel<Long> leaveWheel =
+            new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, WHEEL_LEVELS);
+
+    @Autowired
+    private SystemSettingService systemSettingService;
+
+    /**
+     * 预约ID -> 预约开始时间，暂离签到记录ID -> 暂离开始时间，设置修改后据此重新计算截止时间
+     */
+    private final Map<Long, Long> reservationStarts = new HashMap<>();
+    private final Map<Long, Long> leaveStarts = new HashMap<>();
+
+    /**
+     * 当前截止时间所依据的宽限时间和暂离超时（毫秒）
+     */
+    private long scheduledGraceMillis = -1;
+    private long scheduledLeaveTimeoutMillis = -1;
+
+    /**
+     * 跟踪预约的签到截止时间，非"已预约"状态的预约会被移除
+     * @param reservation 预约
+     */
+    public synchronized void trackReservation(Reservation reservation) {
+        if (reservation.getId() == null) {
+            return;
+        }
+        if (!"已预约".equals(reservation.getReservationStatus()) || reservation.getReservationInTime() == null) {
+            untrackReservation(reservation.getId());
+            return;
+        }
+        long start = reservation.getReservationInTime().getTime();
+        reservationStarts.put(reservation.getId(), start);
+        noShowWheel.schedule(reservation.getId(), start + graceMillis());
+    }
+
+    /**
+     * 停止跟踪预约（签到、取消、签退、违约时调用）
+     * @param reservationId 预约ID
+     */
+    public synchronized void untrackReservation(Long reservationId) {
+        if (reservationId != null) {
+            reservationStarts.remove(reservationId);
+            noShowWheel.cancel(reservationId);
+        }
+    }
+
+    /**
+     * 跟踪暂离的返回截止时间
+     * @param checkInId 签到记录ID
+     * @param leaveTime 暂离开始时间
+     */
+    public synchronized void trackLeave(Long checkInId, Date leaveTime) {
+        if (checkInId == null || leaveTime == null) {
+            return;
+        }
+        leaveStarts.put(checkInId, leaveTime.getTime());
+        leaveWheel.schedule(checkInId, leaveTime.getTime() + leaveTimeoutMillis());
+    }
+
+    /**
+     * 停止跟踪暂离（返回、签退时调用）
+     * @param checkInId 签到记录ID
+     */
+    public synchronized void untrackLeave(Long checkInId) {
+        if (checkInId != null) {
+            leaveStarts.remove(checkInId);
+            leaveWheel.cancel(checkInId);
+        }
+    }
+
+    /**
+     * 取出到当前时间为止超时未签到的预约ID
+     */
+    public synchronized List<Long> pollExpiredReservations(long nowMillis) {
+        graceMillis();
+        List<Long> expired = noShowWheel.advance(nowMillis);
+        expired.forEach(reservationStarts::remove);
+        return expired;
+    }
+
+    /**
+     * 取出到当前时间为止暂离超时的签到记录ID
+     */
+    public synchronized List<Long> pollExpiredLeaves(long nowMillis) {
+        leaveTimeoutMillis();
+        List<Long> expired = leaveWheel.advance(nowMillis);
+        expired.forEach(leaveStarts::remove);
+        return expired;
+    }
+
+    /**
+     * 预约开始时间不晚于该时间仍未签到即为违约
+     */
+    public Date noShowCutoff(long nowMillis) {
+        return new Date(nowMillis - systemSettingService.getSettings().getLateThresholdMinutes() * 60_000L);
+    }
+
+    /**
+     * 暂离开始时间不晚于该时间仍未返回即为超时
+     */
+    public Date leaveCutoff(long nowMillis) {
+        return new Date(nowMillis - systemSettingService.getSettings().getLeaveTimeoutMinutes() * 60_000L);
+    }
+
+    public int trackedReservations() {
+        return noShowWheel.size();
+    }
+
+    public int trackedLeaves() {
+        return leaveWheel.size();
+    }
+
+    /**
+     * 当前宽限时间，与已排期的不同时按新值重新排期所有待签到预约
+     */
+    private long graceMillis() {
+        long grace = systemSettingService.getSettings().getLateThresholdMinutes() * 60_000L;
+        if (grace != scheduledGraceMillis) {
+            if (scheduledGraceMillis >= 0) {
+                reservationStarts.forEach((id, start) -> noShowWheel.schedule(id, start + grace));
+            }
+            scheduledGraceMillis = grace;
+        }
+        return grace;
+    }
+
+    /**
+     * 当前暂离超时，与已排期的不同时按新值重新排期所有暂离
+     */
+    private long leaveTimeoutMillis() {
+        long timeout = systemSettingService.getSettings().getLeaveTimeoutMinutes() * 60_000L;
+        if (timeout != scheduledLeaveTimeoutMillis) {
+            if (scheduledLeaveTimeoutMillis >= 0) {
+                leaveStarts.forEach((id, start) -> leaveWheel.schedule(id, start + timeout));
+            }
+            scheduledLeaveTimeoutMillis = timeout;
+        }
+        return timeout;
+    }
+}
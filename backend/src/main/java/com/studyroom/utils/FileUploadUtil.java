@@ -1,11 +1,15 @@
 package com.studyroom.utils;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.UUID;
@@ -19,6 +23,9 @@ public class FileUploadUtil {
     @Value("${file.upload.image.url}")
     private String imageUploadUrl;
 
+    @Autowired
+    private ImageVariantProcessor imageVariantProcessor;
+
     /**
      * 上传图片
      * @param file 图片文件
@@ -57,8 +64,57 @@ public class FileUploadUtil {
     }
 
     /**
-     * 删除图片
-     * @param imagePath 图片访问路径
+     * 上传图片并异步生成缩略图和展示图
+     * @param file 图片文件
+     * @param variant 需要返回的版本
+     * @return 版本的访问路径，版本生成完成前访问该路径返回原图；格式不支持生成版本时返回原图访问路径
+     * @throws IOException 上传失败时抛出异常
+     */
+    public String uploadImage(MultipartFile file, ImageVariant variant) throws IOException {
+        String imageUrl = uploadImage(file);
+        if (imageUrl == null) {
+            return null;
+        }
+        int dot = imageUrl.lastIndexOf('.');
+        String extension = imageUrl.substring(dot + 1);
+        if (!ImageVariantProcessor.supports(extension)) {
+            return imageUrl;
+        }
+        imageVariantProcessor.submit(new File(imageUploadPath + imageUrl.replace(imageUploadUrl, "")).toPath());
+        return imageUrl.substring(0, dot) + "_" + variant.getSuffix() + "." + ImageVariantProcessor.variantExtension(extension);
+    }
+
+    /**
+     * 查找版本文件对应的原图，用于版本尚未生成时返回原图
+     * @param variantFile 版本文件路径
+     * @return 原图路径，不是版本文件名或原图不存在时返回 null
+     */
+    public Path findOriginal(Path variantFile) throws IOException {
+        String fileName = variantFile.getFileName().toString();
+        int underscore = fileName.lastIndexOf('_');
+        int dot = fileName.lastIndexOf('.');
+        if (underscore <= 0 || dot < underscore || ImageVariant.fromSuffix(fileName.substring(underscore + 1, dot)) == null) {
+            return null;
+        }
+        Path dir = variantFile.getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return null;
+        }
+        // 原图扩展名可能是 jpg/jpeg/png/bmp 等，按 UUID 前缀查找
+        try (DirectoryStream<Path> candidates = Files.newDirectoryStream(dir, fileName.substring(0, underscore) + ".*")) {
+            for (Path candidate : candidates) {
+                String name = candidate.getFileName().toString();
+                if (!name.endsWith(".tmp") && ImageVariantProcessor.supports(name.substring(name.lastIndexOf('.') + 1))) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 删除图片，同时删除原图和所有版本
+     * @param imagePath 图片访问路径（原图或版本）
      * @return 是否删除成功
      */
     public boolean deleteImage(String imagePath) {
@@ -70,10 +126,29 @@ public class FileUploadUtil {
         String relativePath = imagePath.replace(imageUploadUrl, "");
         File file = new File(imageUploadPath + relativePath);
 
+        boolean deleted = false;
+        try {
+            Path original = findOriginal(file.toPath());
+            if (original != null) {
+                file = original.toFile();
+            }
+            String fileName = file.getName();
+            int dot = fileName.lastIndexOf('.');
+            if (dot > 0 && ImageVariantProcessor.supports(fileName.substring(dot + 1))) {
+                String format = ImageVariantProcessor.variantExtension(fileName.substring(dot + 1));
+                for (ImageVariant variant : ImageVariant.values()) {
+                    Path variantFile = file.toPath().resolveSibling(fileName.substring(0, dot) + "_" + variant.getSuffix() + "." + format);
+                    deleted |= Files.deleteIfExists(variantFile);
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        }
+
         if (file.exists()) {
-            return file.delete();
+            return file.delete() || deleted;
         }
 
-        return false;
+        return deleted;
     }
 }
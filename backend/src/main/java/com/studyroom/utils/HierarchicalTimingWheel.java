@@ -0,0 +1,242 @@
+package com.studyroom.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分层时间轮
+ * 每层一个环形数组，每个槽位是一个双向链表。到期时间较远的任务放在上层，
+ * 时间推进到对应槽位时再逐层下放，最终在最底层槽位到期。
+ * 添加和取消任务都是 O(1)，推进时只处理经过的槽位，适合管理大量的到期时间。
+ * 非线程安全的操作都在对象锁内完成。
+ * @param <K> 任务标识，同一标识重复添加时以最后一次为准
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final Bucket<K>[][] wheels;
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+
+    /**
+     * 添加时已经到期的任务，下次推进时直接返回
+     */
+    private final Bucket<K> overdue = new Bucket<>();
+
+    private long currentTick;
+
+    /**
+     * @param tickMillis 每个槽位代表的毫秒数
+     * @param wheelSize 每层槽位数，会向上取整为2的幂
+     * @param levels 层数，可覆盖的时间范围约为 tickMillis * wheelSize ^ levels
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels) {
+        if (tickMillis <= 0 || wheelSize <= 1 || levels <= 0) {
+            throw new IllegalArgumentException("invalid timing wheel size");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        if ((long) bits * levels >= 62) {
+            throw new IllegalArgumentException("timing wheel range too large");
+        }
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.wheels = new Bucket[levels][1 << bits];
+        for (int level = 0; level < levels; level++) {
+            for (int i = 0; i <= mask; i++) {
+                wheels[level][i] = new Bucket<>();
+            }
+        }
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    /**
+     * 添加或更新任务
+     * @param key 任务标识
+     * @param deadlineMillis 到期时间戳（毫秒）
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        } else {
+            node.unlink();
+        }
+        // 向上取整，保证不会提前到期
+        node.deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        place(node);
+    }
+
+    /**
+     * 取消任务
+     * @param key 任务标识
+     * @return 任务是否存在
+     */
+    public synchronized boolean cancel(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        node.unlink();
+        return true;
+    }
+
+    /**
+     * 将时间轮推进到指定时间，返回期间到期的任务（到期的任务同时被移除）
+     * @param nowMillis 当前时间戳（毫秒）
+     * @return 到期的任务标识
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        drain(overdue, expired);
+
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 从高层到低层下放，上层下放的任务可能正好落在本次要处理的低层槽位
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(wheels[level][index(currentTick, level)]);
+                }
+            }
+            drain(wheels[0][index(currentTick, 0)], expired);
+            // 下放时恰好在当前时间到期的任务
+            drain(overdue, expired);
+        }
+        return expired;
+    }
+
+    /**
+     * 当前任务数
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 清空所有任务
+     */
+    public synchronized void clear() {
+        for (Node<K> node : nodes.values()) {
+            node.unlink();
+        }
+        nodes.clear();
+    }
+
+    /**
+     * 按到期时间与当前时间的距离选择层级：
+     * 取两者相差不足一圈的最低层，放在该层对应的槽位，时间推进到该槽位时再下放
+     */
+    private void place(Node<K> node) {
+        if (node.deadlineTick <= currentTick) {
+            overdue.append(node);
+            return;
+        }
+        for (int level = 0; level < levels; level++) {
+            int shift = bits * level;
+            if ((node.deadlineTick >>> shift) - (currentTick >>> shift) <= mask) {
+                wheels[level][index(node.deadlineTick, level)].append(node);
+                return;
+            }
+        }
+        // 超出时间轮范围，先放在最高层最晚才会处理的槽位，下放时重新计算
+        wheels[levels - 1][(index(currentTick, levels - 1) - 1) & mask].append(node);
+    }
+
+    private void cascade(Bucket<K> bucket) {
+        for (Node<K> node : bucket.takeAll()) {
+            place(node);
+        }
+    }
+
+    private void drain(Bucket<K> bucket, List<K> expired) {
+        for (Node<K> node : bucket.takeAll()) {
+            if (node.deadlineTick > currentTick) {
+                // 超出范围后被临时放置的任务，尚未真正到期
+                place(node);
+                continue;
+            }
+            nodes.remove(node.key);
+            expired.add(node.key);
+        }
+    }
+
+    private int index(long tick, int level) {
+        return (int) ((tick >>> (bits * level)) & mask);
+    }
+
+    private static final class Node<K> {
+
+        private final K key;
+        private long deadlineTick;
+        private Bucket<K> bucket;
+        private Node<K> prev;
+        private Node<K> next;
+
+        private Node(K key) {
+            this.key = key;
+        }
+
+        private void unlink() {
+            if (bucket != null) {
+                bucket.remove(this);
+            }
+        }
+    }
+
+    /**
+     * 槽位，带头结点的双向链表
+     */
+    private static final class Bucket<K> {
+
+        private final Node<K> head = new Node<>(null);
+
+        private Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        private void append(Node<K> node) {
+            node.bucket = this;
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+        }
+
+        private void remove(Node<K> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            node.bucket = null;
+        }
+
+        /**
+         * 取出全部结点，处理过程中重新放入的结点不会被再次取到
+         */
+        private List<Node<K>> takeAll() {
+            if (head.next == head) {
+                return List.of();
+            }
+            List<Node<K>> taken = new ArrayList<>();
+            for (Node<K> node = head.next; node != head; ) {
+                Node<K> next = node.next;
+                node.prev = null;
+                node.next = null;
+                node.bucket = null;
+                taken.add(node);
+                node = next;
+            }
+            head.prev = head;
+            head.next = head;
+            return taken;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.studyroom.utils;
+
+/**
+ * 上传图片的缩放版本
+ * 版本文件与原图放在同一目录，文件名为 原图UUID_后缀.扩展名，例如 xxx_thumb.jpg
+ */
+public enum ImageVariant {
+
+    /**
+     * 缩略图，用于头像和列表
+     */
+    THUMBNAIL("thumb"),
+
+    /**
+     * 展示图，用于轮播图和自习室详情
+     */
+    DISPLAY("display");
+
+    private final String suffix;
+
+    ImageVariant(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * 按文件名后缀查找版本
+     * @return 不是版本后缀时返回 null
+     */
+    public static ImageVariant fromSuffix(String suffix) {
+        for (ImageVariant variant : values()) {
+            if (variant.suffix.equals(suffix)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
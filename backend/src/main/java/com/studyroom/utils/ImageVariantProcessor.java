@@ -0,0 +1,359 @@
+package com.studyroom.utils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图片缩放版本生成
+ * 上传完成后在有界线程池中用 ImageIO 生成缩略图和展示图，不阻塞上传请求。
+ * 版本先写入临时文件再原子改名，生成完成前或生成失败时访问版本地址会返回原图。
+ * 上传内容不可信：解码前先只读文件头取得宽高，超过像素上限的图片不解码，避免声明超大尺寸的图片耗尽内存；
+ * 手机照片的方向记录在 EXIF 中，重新编码会丢失 EXIF，因此缩放后按方向标记旋转
+ */
+@Slf4j
+@Component
+public class ImageVariantProcessor {
+
+    /**
+     * ImageIO 可以读取并生成版本的原图格式，其他格式（如 gif、webp）直接使用原图
+     */
+    private static final Set<String> SUPPORTED_EXTENSIONS = Set.of("jpg", "jpeg", "png", "bmp");
+
+    /**
+     * 查找 EXIF 时最多读取的文件开头字节数，APP1 段不超过 64KB
+     */
+    private static final int EXIF_SCAN_BYTES = 128 * 1024;
+
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    @Value("${file.upload.image.variant.workers:2}")
+    private int workers;
+
+    @Value("${file.upload.image.variant.queue-capacity:100}")
+    private int queueCapacity;
+
+    /**
+     * 缩略图最长边（像素）
+     */
+    @Value("${file.upload.image.variant.thumbnail-size:240}")
+    private int thumbnailSize;
+
+    /**
+     * 展示图最长边（像素）
+     */
+    @Value("${file.upload.image.variant.display-size:1280}")
+    private int displaySize;
+
+    @Value("${file.upload.image.variant.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    /**
+     * 可以处理的最大像素数（宽 x 高），默认约 4000 万像素，解码时约占用 160MB 内存
+     */
+    @Value("${file.upload.image.variant.max-pixels:40000000}")
+    private long maxPixels;
+
+    private ThreadPoolExecutor imageExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        imageExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        imageExecutor.shutdown();
+    }
+
+    /**
+     * 原图格式是否支持生成版本
+     * @param extension 不带点的扩展名
+     */
+    public static boolean supports(String extension) {
+        return extension != null && SUPPORTED_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 版本文件的扩展名：png 保留透明通道，其他格式统一输出 jpg
+     */
+    public static String variantExtension(String extension) {
+        return "png".equalsIgnoreCase(extension) ? "png" : "jpg";
+    }
+
+    /**
+     * 提交原图，异步生成所有版本
+     * @param original 原图文件
+     */
+    public void submit(Path original) {
+        try {
+            imageExecutor.execute(() -> process(original));
+        } catch (RejectedExecutionException e) {
+            // 队列已满时不生成版本，访问版本地址会返回原图
+            log.warn("图片处理队列已满，跳过生成缩放版本: {}", original.getFileName());
+        }
+    }
+
+    private void process(Path original) {
+        long start = System.currentTimeMillis();
+        try {
+            BufferedImage source;
+            int width;
+            int height;
+            try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+                Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+                if (readers == null || !readers.hasNext()) {
+                    log.warn("无法识别的图片格式，跳过生成缩放版本: {}", original.getFileName());
+                    return;
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    // 只读取文件头中的尺寸，不解码像素
+                    width = reader.getWidth(0);
+                    height = reader.getHeight(0);
+                    if ((long) width * height > maxPixels) {
+                        log.warn("图片尺寸过大（{}x{}），跳过生成缩放版本: {}", width, height, original.getFileName());
+                        return;
+                    }
+                    // 远大于展示图的原图隔行采样解码，减少内存占用
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    int step = Math.max(1, Math.max(width, height) / (2 * Math.max(displaySize, thumbnailSize)));
+                    if (step > 1) {
+                        param.setSourceSubsampling(step, step, 0, 0);
+                    }
+                    source = reader.read(0, param);
+                } finally {
+                    reader.dispose();
+                }
+            }
+            int orientation = readExifOrientation(original);
+            for (ImageVariant variant : ImageVariant.values()) {
+                writeVariant(original, source, Math.max(width, height), orientation, variant);
+            }
+            log.debug("图片缩放版本生成完成: {}, 原图 {}x{}, 方向 {}, 耗时 {}ms", original.getFileName(),
+                    width, height, orientation, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("图片缩放版本生成失败: {}", original.getFileName(), e);
+        }
+    }
+
+    /**
+     * @param originalLongest 原图最长边（解码时可能经过采样，按原图尺寸判断是否可以直接复制）
+     * @param orientation EXIF 方向标记，1 为正常方向
+     */
+    private void writeVariant(Path original, BufferedImage source, int originalLongest, int orientation,
+                              ImageVariant variant) throws IOException {
+        String fileName = original.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String extension = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        String format = variantExtension(extension);
+        Path target = original.resolveSibling(fileName.substring(0, dot) + "_" + variant.getSuffix() + "." + format);
+        Path temp = original.resolveSibling(target.getFileName() + ".tmp");
+
+        int maxEdge = variant == ImageVariant.THUMBNAIL ? thumbnailSize : displaySize;
+        if (originalLongest <= maxEdge && orientation == 1 && (extension.equals(format) || "jpeg".equals(extension))) {
+            // 原图已经足够小、方向正常且格式相同，重新编码只会变大
+            Files.copy(original, temp, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            int longest = Math.max(source.getWidth(), source.getHeight());
+            double scale = Math.min(1.0, (double) maxEdge / longest);
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            // 先缩放再旋转，旋转只需处理缩小后的像素
+            BufferedImage resized = orient(resize(source, width, height, "png".equals(format)), orientation);
+            if ("png".equals(format)) {
+                ImageIO.write(resized, format, temp.toFile());
+            } else {
+                writeJpeg(resized, temp);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 缩放图片，缩小超过一半时逐次减半，避免一次双线性插值丢失细节
+     */
+    private static BufferedImage resize(BufferedImage source, int width, int height, boolean keepAlpha) {
+        int type = keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                if (!keepAlpha) {
+                    // jpg 没有透明通道，透明区域填充白色
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, currentWidth, currentHeight);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        // ImageOutputStream 不会截断已存在的文件
+        Files.deleteIfExists(target);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * 按 EXIF 方向标记把图片转为正常方向
+     * 2 水平翻转，3 旋转180度，4 垂直翻转，5 沿主对角线翻转，6 顺时针旋转90度，7 沿副对角线翻转，8 逆时针旋转90度
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        int outWidth = swap ? h : w;
+        int outHeight = swap ? w : h;
+        int[] src = image.getRGB(0, 0, w, h, null, 0, w);
+        int[] dst = new int[src.length];
+        for (int y = 0; y < outHeight; y++) {
+            for (int x = 0; x < outWidth; x++) {
+                int sx;
+                int sy;
+                switch (orientation) {
+                    case 2 -> { sx = w - 1 - x; sy = y; }
+                    case 3 -> { sx = w - 1 - x; sy = h - 1 - y; }
+                    case 4 -> { sx = x; sy = h - 1 - y; }
+                    case 5 -> { sx = y; sy = x; }
+                    case 6 -> { sx = y; sy = h - 1 - x; }
+                    case 7 -> { sx = w - 1 - y; sy = h - 1 - x; }
+                    default -> { sx = w - 1 - y; sy = x; }
+                }
+                dst[y * outWidth + x] = src[sy * w + sx];
+            }
+        }
+        BufferedImage oriented = new BufferedImage(outWidth, outHeight, image.getType());
+        oriented.setRGB(0, 0, outWidth, outHeight, dst, 0, outWidth);
+        return oriented;
+    }
+
+    /**
+     * 读取 JPEG 文件 EXIF 中的方向标记，没有或无法解析时返回 1（正常方向）
+     */
+    static int readExifOrientation(Path file) throws IOException {
+        byte[] data;
+        try (InputStream in = Files.newInputStream(file)) {
+            data = in.readNBytes(EXIF_SCAN_BYTES);
+        }
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int pos = 2;
+        while (pos + 4 <= data.length && (data[pos] & 0xFF) == 0xFF) {
+            int marker = data[pos + 1] & 0xFF;
+            // 图像数据开始后不再有元数据段
+            if (marker == 0xDA || marker == 0xD9) {
+                return 1;
+            }
+            int length = readUnsignedShort(data, pos + 2, false);
+            int end = pos + 2 + length;
+            if (marker == 0xE1 && length >= 16 && end <= data.length
+                    && data[pos + 4] == 'E' && data[pos + 5] == 'x' && data[pos + 6] == 'i' && data[pos + 7] == 'f'
+                    && data[pos + 8] == 0 && data[pos + 9] == 0) {
+                return readTiffOrientation(data, pos + 10, end);
+            }
+            pos = end;
+        }
+        return 1;
+    }
+
+    /**
+     * 在 EXIF 的 TIFF 结构中查找第一个 IFD 的方向标记
+     */
+    private static int readTiffOrientation(byte[] data, int start, int end) {
+        boolean littleEndian;
+        if (data[start] == 'I' && data[start + 1] == 'I') {
+            littleEndian = true;
+        } else if (data[start] == 'M' && data[start + 1] == 'M') {
+            littleEndian = false;
+        } else {
+            return 1;
+        }
+        int low = readUnsignedShort(data, start + 4, littleEndian);
+        int high = readUnsignedShort(data, start + 6, littleEndian);
+        long ifdOffset = littleEndian ? (long) high << 16 | low : (long) low << 16 | high;
+        if (ifdOffset < 8 || start + ifdOffset + 2 > end) {
+            return 1;
+        }
+        int ifd = start + (int) ifdOffset;
+        int entries = readUnsignedShort(data, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (readUnsignedShort(data, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = readUnsignedShort(data, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readUnsignedShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? b1 << 8 | b0 : b0 << 8 | b1;
+    }
+}
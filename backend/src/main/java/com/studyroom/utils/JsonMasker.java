@@ -0,0 +1,133 @@
+package com.studyroom.utils;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 日志脱敏
+ * 单次扫描 JSON 文本，遇到敏感字段名（如 password、token）时把其后的值替换为 ******，
+ * 不使用正则表达式；查询字符串和表单参数按 name=value 同样处理
+ */
+public final class JsonMasker {
+
+    private static final String MASK = "******";
+
+    /**
+     * 敏感字段名（小写）
+     */
+    private static final Set<String> SENSITIVE_KEYS = Set.of(
+            "password", "newpassword", "oldpassword", "token", "accesstoken", "refreshtoken",
+            "idcard", "verificationcode");
+
+    private JsonMasker() {
+    }
+
+    public static boolean isSensitive(String key) {
+        return SENSITIVE_KEYS.contains(key.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 脱敏 JSON 文本，格式不完整（如被截断）时尽量处理已扫描的部分
+     */
+    public static String maskJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return json;
+        }
+        int length = json.length();
+        StringBuilder out = new StringBuilder(length);
+        // 上一个字符串是否为敏感字段名，且其后紧跟冒号
+        boolean maskNextValue = false;
+        int i = 0;
+        while (i < length) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                int end = skipString(json, i);
+                if (maskNextValue) {
+                    out.append('"').append(MASK).append('"');
+                    maskNextValue = false;
+                } else {
+                    out.append(json, i, end);
+                    int next = skipWhitespace(json, end);
+                    if (next < length && json.charAt(next) == ':' && end - i >= 2
+                            && isSensitive(json.substring(i + 1, end - 1))) {
+                        maskNextValue = true;
+                    }
+                }
+                i = end;
+            } else if (maskNextValue && c != ':' && !Character.isWhitespace(c)) {
+                maskNextValue = false;
+                if (c == '{' || c == '[') {
+                    // 对象或数组值不脱敏，继续扫描其中的字段
+                    out.append(c);
+                    i++;
+                } else {
+                    // 数字、true/false/null 等字面量
+                    int end = i;
+                    while (end < length && ",}] \t\r\n".indexOf(json.charAt(end)) < 0) {
+                        end++;
+                    }
+                    out.append(MASK);
+                    i = end;
+                }
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * 脱敏查询字符串或表单参数（a=1&password=xxx）
+     */
+    public static String maskQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return query;
+        }
+        StringBuilder out = new StringBuilder(query.length());
+        int start = 0;
+        while (start <= query.length()) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = query.length();
+            }
+            int eq = query.indexOf('=', start);
+            if (eq > start && eq < end && isSensitive(query.substring(start, eq))) {
+                out.append(query, start, eq + 1).append(MASK);
+            } else {
+                out.append(query, start, end);
+            }
+            if (end < query.length()) {
+                out.append('&');
+            }
+            start = end + 1;
+        }
+        return out.toString();
+    }
+
+    /**
+     * 返回字符串结束引号之后的位置，处理转义字符
+     */
+    private static int skipString(String json, int start) {
+        int i = start + 1;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return json.length();
+    }
+
+    private static int skipWhitespace(String json, int start) {
+        int i = start;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,59 @@
+package com.studyroom.utils;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+
+/**
+ * 已验证令牌的身份信息
+ * 令牌只解析一次，之后读取该对象，不再重复解析和验签；创建后不再修改，可以在线程间共享和缓存
+ */
+@Getter
+public final class JwtPrincipal {
+
+    /**
+     * 刷新令牌的 typ 声明
+     */
+    public static final String TYPE_REFRESH = "refresh";
+
+    private final String subject;
+
+    /**
+     * 令牌ID，用于吊销
+     */
+    private final String jti;
+    private final Long userId;
+    private final String username;
+    private final String role;
+
+    /**
+     * 是否为刷新令牌，刷新令牌只能用于换取新令牌
+     */
+    private final boolean refresh;
+
+    private final long issuedAt;
+    private final long expiration;
+
+    private JwtPrincipal(Claims claims) {
+        this.subject = claims.getSubject();
+        this.jti = claims.getId();
+        Object userIdClaim = claims.get("userId");
+        // 刷新令牌没有 userId 声明；三个分支都必须是 Long，否则 null 会被拆箱
+        this.userId = userIdClaim instanceof Number ? Long.valueOf(((Number) userIdClaim).longValue())
+                : userIdClaim != null ? Long.valueOf(userIdClaim.toString()) : null;
+        Object usernameClaim = claims.get("username");
+        this.username = usernameClaim != null ? usernameClaim.toString() : subject;
+        Object roleClaim = claims.get("role");
+        this.role = roleClaim != null ? roleClaim.toString() : null;
+        this.refresh = TYPE_REFRESH.equals(claims.get("typ"));
+        this.issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+        this.expiration = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+    }
+
+    static JwtPrincipal of(Claims claims) {
+        return new JwtPrincipal(claims);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiration <= nowMillis;
+    }
+}
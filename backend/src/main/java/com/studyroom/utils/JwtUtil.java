@@ -1,16 +1,28 @@
 package com.studyroom.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
@@ -24,10 +36,43 @@ public class JwtUtil {
     @Value("${jwt.refresh-expire}")
     private long refreshExpire;
 
-    // 生成安全的 SecretKey
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${jwt.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    /**
+     * 签名密钥和解析器只在启动时创建一次，JwtParser 是线程安全的
+     */
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    /**
+     * 最近验证通过的令牌，键为令牌的 SHA-256 摘要，条目在令牌过期时失效
+     */
+    private Cache<String, JwtPrincipal> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(secret));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtPrincipal principal, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, principal.getExpiration() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(String subject) {
@@ -35,21 +80,24 @@ public class JwtUtil {
         Date expireTime = new Date(now.getTime() + expire);
         return Jwts.builder()
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(now)
                 .setExpiration(expireTime)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public String generateToken(String subject, Map<String, Object> claims) {
         Date now = new Date();
         Date expireTime = new Date(now.getTime() + expire);
+        // setClaims 会替换全部声明，必须在 setSubject 之前调用
         return Jwts.builder()
-                .setSubject(subject)
                 .setClaims(claims)
+                .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(now)
                 .setExpiration(expireTime)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -57,43 +105,70 @@ public class JwtUtil {
         Date now = new Date();
         Date expireTime = new Date(now.getTime() + refreshExpire);
         return Jwts.builder()
+                .claim("typ", JwtPrincipal.TYPE_REFRESH)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(now)
                 .setExpiration(expireTime)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * 验证令牌并返回身份信息，最近验证过的令牌直接从缓存返回，不再验签
+     * @param token 令牌（不含 Bearer 前缀）
+     * @return 身份信息
+     * @throws JwtException 令牌无效或已过期
+     */
+    public JwtPrincipal verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new JwtException("令牌为空");
+        }
+        String hash = hash(token);
+        JwtPrincipal principal = verifiedTokens.getIfPresent(hash);
+        long now = System.currentTimeMillis();
+        if (principal == null) {
+            principal = JwtPrincipal.of(parseToken(token));
+            verifiedTokens.put(hash, principal);
+        }
+        if (principal.isExpired(now)) {
+            verifiedTokens.invalidate(hash);
+            throw new ExpiredJwtException(null, null, "令牌已过期");
+        }
+        return principal;
+    }
+
     public Claims parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public boolean validateToken(String token) {
         try {
-            Claims claims = parseToken(token);
-            Date expiration = claims.getExpiration();
-            return expiration.after(new Date());
+            verify(token);
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
 
     public String getSubject(String token) {
-        Claims claims = parseToken(token);
-        return claims.getSubject();
+        return verify(token).getSubject();
     }
 
     public Date getIssuedAt(String token) {
-        Claims claims = parseToken(token);
-        return claims.getIssuedAt();
+        return new Date(verify(token).getIssuedAt());
     }
 
     public Date getExpiration(String token) {
-        Claims claims = parseToken(token);
-        return claims.getExpiration();
+        return new Date(verify(token).getExpiration());
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
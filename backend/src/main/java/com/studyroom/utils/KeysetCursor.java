@@ -0,0 +1,96 @@
+package com.studyroom.utils;
+
+import com.studyroom.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 键集分页游标
+ * 记录上一页最后一行的排序键（时间, ID），下一页从该位置之后继续查询，
+ * 不需要 OFFSET 跳过前面的行。对客户端是不透明的 Base64 字符串
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_SIZE = 20;
+
+    public static final int MAX_SIZE = 100;
+
+    private final Date time;
+
+    private final Long id;
+
+    private KeysetCursor(Date time, Long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public Date getTime() {
+        return time;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * 解析游标，为空时返回 null（第一页）
+     * @param cursor 游标字符串
+     * @return 游标
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            return new KeysetCursor(new Date(Long.parseLong(value.substring(0, separator))),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException(400, "无效的分页游标");
+        }
+    }
+
+    /**
+     * 生成游标
+     * @param time 排序时间
+     * @param id 行ID
+     * @return 游标字符串
+     */
+    public static String encode(Date time, Long id) {
+        String value = time.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 规范化每页条数
+     */
+    public static int pageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * 根据多查询一行的结果构造分页：查询时 LIMIT 为 size + 1，多出的一行说明还有下一页
+     * @param rows 查询结果
+     * @param size 每页条数
+     * @param timeOf 取排序时间
+     * @param idOf 取行ID
+     * @return 分页结果
+     */
+    public static <T> CursorPage<T> page(List<T> rows, int size, Function<T, Date> timeOf, Function<T, Long> idOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> records = new ArrayList<>(rows.subList(0, size));
+        T last = records.get(size - 1);
+        return new CursorPage<>(records, encode(timeOf.apply(last), idOf.apply(last)));
+    }
+}
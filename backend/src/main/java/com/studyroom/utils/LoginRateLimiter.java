@@ -0,0 +1,124 @@
+package com.studyroom.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.studyroom.exception.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录限流
+ * 按用户名和客户端IP分别限制登录尝试次数，超出时在查询数据库和校验密码之前直接拒绝。
+ * 每个键一个令牌桶，用 GCRA 算法实现：只保存一个"理论到达时间"，通过 CAS 更新，不加锁。
+ * 令牌桶保存在有界的 Caffeine 缓存中，长时间没有尝试的键被淘汰（淘汰时桶已经回满，不影响限流结果）
+ */
+@Component
+public class LoginRateLimiter {
+
+    @Value("${auth.login-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.login-limit.username.capacity:5}")
+    private int usernameCapacity;
+
+    @Value("${auth.login-limit.username.period:5m}")
+    private Duration usernamePeriod;
+
+    @Value("${auth.login-limit.ip.capacity:30}")
+    private int ipCapacity;
+
+    @Value("${auth.login-limit.ip.period:1m}")
+    private Duration ipPeriod;
+
+    @Value("${auth.login-limit.maximum-keys:100000}")
+    private long maximumKeys;
+
+    private Bucket usernameBuckets;
+    private Bucket ipBuckets;
+
+    @PostConstruct
+    public void init() {
+        usernameBuckets = new Bucket(usernameCapacity, usernamePeriod, maximumKeys);
+        ipBuckets = new Bucket(ipCapacity, ipPeriod, maximumKeys);
+    }
+
+    /**
+     * 记录一次登录尝试，超出限制时抛出异常
+     * @param username 用户名
+     * @param clientIp 客户端IP
+     * @throws TooManyRequestsException 尝试过于频繁
+     */
+    public void acquire(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        // 先按IP限制，防止同一来源遍历大量用户名
+        long waitNanos = clientIp != null ? ipBuckets.tryAcquire(clientIp, now) : 0L;
+        if (waitNanos == 0L && username != null) {
+            waitNanos = usernameBuckets.tryAcquire(username.trim().toLowerCase(Locale.ROOT), now);
+        }
+        if (waitNanos > 0L) {
+            long seconds = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            throw new TooManyRequestsException("登录尝试过于频繁，请" + seconds + "秒后再试");
+        }
+    }
+
+    /**
+     * 一组同样参数的令牌桶
+     */
+    private static final class Bucket {
+
+        /**
+         * 每个令牌的补充间隔
+         */
+        private final long emissionNanos;
+
+        /**
+         * 允许的突发量对应的时间容差
+         */
+        private final long toleranceNanos;
+
+        /**
+         * 键 -> 理论到达时间（System.nanoTime 时间轴）
+         */
+        private final Cache<String, AtomicLong> arrivals;
+
+        private Bucket(int capacity, Duration period, long maximumKeys) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("login limit capacity must be positive");
+            }
+            this.emissionNanos = period.toNanos() / capacity;
+            this.toleranceNanos = emissionNanos * (capacity - 1);
+            this.arrivals = Caffeine.newBuilder()
+                    .maximumSize(maximumKeys)
+                    // 理论到达时间最多超前 period，此后桶已回满，条目可以丢弃
+                    .expireAfterAccess(period)
+                    .build();
+        }
+
+        /**
+         * @return 0 表示允许，否则为需要等待的纳秒数
+         */
+        private long tryAcquire(String key, long now) {
+            AtomicLong arrival = arrivals.get(key, k -> new AtomicLong(now - toleranceNanos - emissionNanos));
+            while (true) {
+                long tat = arrival.get();
+                long base = Math.max(tat, now);
+                long allowAt = base - toleranceNanos;
+                if (allowAt > now) {
+                    return allowAt - now;
+                }
+                if (arrival.compareAndSet(tat, base + emissionNanos)) {
+                    return 0L;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.studyroom.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 基于 Redis 的跨节点互斥锁，用于只允许一个节点执行的任务
+ * 加锁使用 SET NX 并设置过期时间，持有锁的节点异常退出后锁自动释放；
+ * 释放时校验锁的值，避免删除过期后被其他节点重新获取的锁
+ */
+@Slf4j
+@Component
+public class RedisLock {
+
+    private static final String KEY_PREFIX = "studyroom:lock:";
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+            "  return redis.call('DEL', KEYS[1])\n" +
+            "end\n" +
+            "return 0", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 尝试获取锁，不等待
+     * @param name 锁名称
+     * @param ttl 锁的过期时间，需大于任务的最长执行时间
+     * @return 获取成功返回锁的值，用于释放；已被其他节点持有或 Redis 不可用时返回 null
+     */
+    public String tryLock(String name, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + name, token, ttl);
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (Exception e) {
+            log.warn("获取锁失败，锁名称: {}", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * 释放锁，锁已过期或已被其他节点持有时不做处理
+     */
+    public void unlock(String name, String token) {
+        try {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(KEY_PREFIX + name), token);
+        } catch (Exception e) {
+            // 释放失败时等待锁过期
+            log.warn("释放锁失败，锁名称: {}", name, e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.studyroom.utils;
+
+import lombok.Getter;
+
+/**
+ * 一次请求的日志记录，请求结束时在请求线程中创建，由后台线程格式化并写出
+ */
+@Getter
+public final class RequestLogEvent {
+
+    private final long timestamp;
+    private final String method;
+    private final String uri;
+    private final String query;
+    private final int status;
+    private final long durationMillis;
+    private final String clientIp;
+    private final Long userId;
+
+    /**
+     * 请求体（已截断，未脱敏），脱敏在后台线程中完成
+     */
+    private final String body;
+
+    private final String error;
+
+    public RequestLogEvent(long timestamp, String method, String uri, String query, int status, long durationMillis,
+                           String clientIp, Long userId, String body, String error) {
+        this.timestamp = timestamp;
+        this.method = method;
+        this.uri = uri;
+        this.query = query;
+        this.status = status;
+        this.durationMillis = durationMillis;
+        this.clientIp = clientIp;
+        this.userId = userId;
+        this.body = body;
+        this.error = error;
+    }
+}
@@ -0,0 +1,116 @@
+package com.studyroom.utils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 请求日志后台写出
+ * 请求线程只把日志记录放入无锁环形队列，由一个后台线程批量脱敏、格式化并写入日志，
+ * 请求线程不做字符串拼接和 IO。队列满时丢弃记录并计数，不阻塞请求
+ */
+@Component
+public class RequestLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger("com.studyroom.request");
+
+    private static final int DRAIN_BATCH = 256;
+
+    @Value("${request-log.buffer-size:8192}")
+    private int bufferSize;
+
+    /**
+     * 队列为空时后台线程的休眠时间
+     */
+    @Value("${request-log.idle-wait:20ms}")
+    private Duration idleWait;
+
+    private RingBuffer<RequestLogEvent> buffer;
+    private Thread writerThread;
+    private volatile boolean running;
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        buffer = new RingBuffer<>(bufferSize);
+        running = true;
+        writerThread = new Thread(this::run, "request-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * 提交日志记录，队列满时丢弃
+     */
+    public void submit(RequestLogEvent event) {
+        if (!buffer.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void run() {
+        long idleNanos = idleWait.toNanos();
+        while (running) {
+            try {
+                if (buffer.drain(this::write, DRAIN_BATCH) == 0) {
+                    reportDropped();
+                    LockSupport.parkNanos(idleNanos);
+                }
+            } catch (Throwable e) {
+                log.warn("请求日志写出失败: {}", e.getMessage());
+            }
+        }
+        // 停止前写出剩余的记录
+        while (buffer.drain(this::write, DRAIN_BATCH) > 0) {
+            // 继续写出
+        }
+        reportDropped();
+    }
+
+    private void write(RequestLogEvent event) {
+        StringBuilder line = new StringBuilder(128);
+        line.append(event.getMethod()).append(' ').append(event.getUri());
+        if (event.getQuery() != null) {
+            line.append('?').append(JsonMasker.maskQuery(event.getQuery()));
+        }
+        line.append(' ').append(event.getStatus())
+                .append(" (").append(event.getDurationMillis()).append("ms)")
+                .append(" ip=").append(event.getClientIp());
+        if (event.getUserId() != null) {
+            line.append(" user=").append(event.getUserId());
+        }
+        if (event.getBody() != null) {
+            String body = event.getBody();
+            line.append(" body=").append(body.startsWith("{") || body.startsWith("[")
+                    ? JsonMasker.maskJson(body) : JsonMasker.maskQuery(body));
+        }
+        if (event.getError() != null) {
+            line.append(" error=").append(event.getError());
+            log.warn("[REQUEST] {}", line);
+        } else {
+            log.info("[REQUEST] {}", line);
+        }
+    }
+
+    private void reportDropped() {
+        long count = dropped.getAndSet(0);
+        if (count > 0) {
+            log.warn("请求日志队列已满，丢弃 {} 条记录", count);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.studyroom.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁环形队列（多生产者、单消费者）
+ * 每个槽位带一个序号：生产者用 CAS 抢占写入位置，写入元素后发布序号；消费者按序号判断槽位是否可读。
+ * 队列满时 offer 直接返回 false，不阻塞生产者
+ * @param <E> 元素类型
+ */
+public class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 只由消费者线程读写
+     */
+    private long head;
+
+    /**
+     * @param capacity 容量，会向上取整为2的幂
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("invalid ring buffer capacity");
+        }
+        int size = 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 放入元素，可由多个线程同时调用
+     * @return 队列已满时返回 false
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // 写入元素后再发布序号，消费者看到序号时一定能看到元素
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false;
+            }
+            // 其他生产者已抢占该位置，重试
+        }
+    }
+
+    /**
+     * 取出最多 limit 个元素，只能由一个消费者线程调用
+     * @return 取出的元素数
+     */
+    public int drain(Consumer<E> consumer, int limit) {
+        int count = 0;
+        while (count < limit) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            E element = elements.get(index);
+            elements.lazySet(index, null);
+            // 归还槽位，序号推进一圈后生产者可以再次写入
+            sequences.set(index, head + mask + 1);
+            head++;
+            count++;
+            consumer.accept(element);
+        }
+        return count;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,185 @@
+package com.studyroom.utils;
+
+import com.studyroom.entity.Reservation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 座位预约时间轴索引
+ * 每个座位维护一条按开始时间排序的时间段集合，用于在内存中完成预约冲突判断，
+ * 避免每次预约都查询数据库
+ */
+@Component
+public class SeatReservationIndex {
+
+    /**
+     * 占用座位的预约状态
+     */
+    private static final Set<String> BLOCKING_STATUSES = Set.of("已预约", "使用中");
+
+    private final Map<Long, SeatTimeline> timelines = new ConcurrentHashMap<>();
+
+    /**
+     * 判断预约状态是否占用座位
+     * @param reservationStatus 预约状态
+     * @return 是否占用
+     */
+    public static boolean isBlocking(String reservationStatus) {
+        return reservationStatus != null && BLOCKING_STATUSES.contains(reservationStatus);
+    }
+
+    /**
+     * 批量加载预约（启动时调用），会清空已有索引
+     * @param reservations 占用座位的预约
+     */
+    public void load(List<Reservation> reservations) {
+        timelines.clear();
+        for (Reservation reservation : reservations) {
+            add(reservation);
+        }
+    }
+
+    /**
+     * 判断座位在指定时间段内是否存在冲突预约
+     * @param seatId 座位ID
+     * @param startTime 开始时间
+     * @param endTime 结束时间
+     * @param excludeReservationId 需要忽略的预约ID（修改预约时传入自身ID），可为空
+     * @return 是否冲突
+     */
+    public boolean hasConflict(Long seatId, Date startTime, Date endTime, Long excludeReservationId) {
+        SeatTimeline timeline = timelines.get(seatId);
+        if (timeline == null) {
+            return false;
+        }
+        long exclude = excludeReservationId != null ? excludeReservationId : Long.MIN_VALUE;
+        return timeline.overlaps(startTime.getTime(), endTime.getTime(), exclude);
+    }
+
+    /**
+     * 将预约加入索引，非占用状态或时间不完整的预约会被忽略
+     * @param reservation 预约
+     */
+    public void add(Reservation reservation) {
+        if (reservation.getId() == null || reservation.getSeatId() == null
+                || reservation.getReservationInTime() == null || reservation.getReservationOutTime() == null
+                || !isBlocking(reservation.getReservationStatus())) {
+            return;
+        }
+        timelines.computeIfAbsent(reservation.getSeatId(), k -> new SeatTimeline())
+                .add(new Slot(reservation.getReservationInTime().getTime(),
+                        reservation.getReservationOutTime().getTime(),
+                        reservation.getId()));
+    }
+
+    /**
+     * 从索引中移除预约（取消、签退、违约时调用）
+     * @param seatId 座位ID
+     * @param reservationId 预约ID
+     */
+    public void remove(Long seatId, Long reservationId) {
+        if (seatId == null || reservationId == null) {
+            return;
+        }
+        SeatTimeline timeline = timelines.get(seatId);
+        if (timeline != null) {
+            timeline.remove(reservationId);
+        }
+    }
+
+    /**
+     * 获取索引中的预约数量
+     * @return 预约数量
+     */
+    public int size() {
+        int size = 0;
+        for (SeatTimeline timeline : timelines.values()) {
+            size += timeline.size();
+        }
+        return size;
+    }
+
+    private static final class Slot {
+
+        private static final Comparator<Slot> ORDER = Comparator
+                .comparingLong((Slot slot) -> slot.start)
+                .thenComparingLong(slot -> slot.reservationId);
+
+        private final long start;
+        private final long end;
+        private final long reservationId;
+
+        private Slot(long start, long end, long reservationId) {
+            this.start = start;
+            this.end = end;
+            this.reservationId = reservationId;
+        }
+    }
+
+    /**
+     * 单个座位的时间轴
+     * 时间段按开始时间排序，同时记录最长时间段跨度，
+     * 查询时只需扫描 [start - maxSpan, end) 范围内的候选时间段
+     */
+    private static final class SeatTimeline {
+
+        private final NavigableSet<Slot> slots = new TreeSet<>(Slot.ORDER);
+        private final Map<Long, Slot> slotsById = new HashMap<>();
+        private long maxSpan;
+
+        synchronized boolean overlaps(long start, long end, long excludeReservationId) {
+            Slot from = new Slot(start - maxSpan, 0, Long.MIN_VALUE);
+            Slot to = new Slot(end, 0, Long.MIN_VALUE);
+            for (Slot slot : slots.subSet(from, true, to, false)) {
+                if (slot.end > start && slot.reservationId != excludeReservationId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void add(Slot slot) {
+            evictExpired(System.currentTimeMillis());
+            Slot previous = slotsById.put(slot.reservationId, slot);
+            if (previous != null) {
+                slots.remove(previous);
+            }
+            slots.add(slot);
+            maxSpan = Math.max(maxSpan, slot.end - slot.start);
+        }
+
+        synchronized void remove(long reservationId) {
+            Slot slot = slotsById.remove(reservationId);
+            if (slot != null) {
+                slots.remove(slot);
+            }
+        }
+
+        synchronized int size() {
+            return slots.size();
+        }
+
+        /**
+         * 清理已经结束的时间段，避免时间轴随历史数据无限增长
+         */
+        private void evictExpired(long now) {
+            while (!slots.isEmpty()) {
+                Slot first = slots.first();
+                if (first.end > now) {
+                    break;
+                }
+                slots.pollFirst();
+                slotsById.remove(first.reservationId);
+            }
+        }
+    }
+}
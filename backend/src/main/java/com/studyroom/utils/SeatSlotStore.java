@@ -0,0 +1,382 @@
+package com.studyroom.utils;
+
+import com.studyroom.entity.Reservation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 Redis 位图的座位时段存储
+ * 每个座位每天一个位图，每一位代表一个15分钟时段（每天96位）。
+ * 预约时通过 Lua 脚本在一次往返中检查所有时段是否空闲并全部置位，
+ * 作为多节点部署时座位占用的唯一来源，不需要锁 MySQL 的行。
+ * Redis 不可用时方法返回 null：本节点的座位时间轴索引看不到其他节点的预约，调用方不能用它代替预约，
+ * 只能用于查询。故障期间的释放先记录在本节点，恢复后先补做这些释放，再按数据库重新标记所有仍占用座位的预约，
+ * 完成同步之前存储一直视为不可用。
+ */
+@Slf4j
+@Component
+public class SeatSlotStore {
+
+    /**
+     * 每个时段的分钟数
+     */
+    public static final int SLOT_MINUTES = 15;
+
+    /**
+     * 每天的时段数
+     */
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    private static final String KEY_PREFIX = "studyroom:seat-slots:";
+
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+    /**
+     * 重新同步时每个脚本处理的时段数
+     */
+    private static final int RESYNC_BATCH = 200;
+
+    /**
+     * 检查所有时段空闲后再全部置位，返回 1 表示预约成功，0 表示有时段已被占用
+     * ARGV 每三个一组，依次为：起始时段、结束时段（不含）、过期时间戳（秒）
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #KEYS do\n" +
+            "  local from = tonumber(ARGV[i * 3 - 2])\n" +
+            "  local to = tonumber(ARGV[i * 3 - 1])\n" +
+            "  for slot = from, to - 1 do\n" +
+            "    if redis.call('GETBIT', KEYS[i], slot) == 1 then\n" +
+            "      return 0\n" +
+            "    end\n" +
+            "  end\n" +
+            "end\n" +
+            "for i = 1, #KEYS do\n" +
+            "  local from = tonumber(ARGV[i * 3 - 2])\n" +
+            "  local to = tonumber(ARGV[i * 3 - 1])\n" +
+            "  for slot = from, to - 1 do\n" +
+            "    redis.call('SETBIT', KEYS[i], slot, 1)\n" +
+            "  end\n" +
+            "  redis.call('EXPIREAT', KEYS[i], ARGV[i * 3])\n" +
+            "end\n" +
+            "return 1", Long.class);
+
+    /**
+     * 只检查时段是否全部空闲，返回 1 表示空闲
+     */
+    private static final RedisScript<Long> CHECK_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #KEYS do\n" +
+            "  local from = tonumber(ARGV[i * 3 - 2])\n" +
+            "  local to = tonumber(ARGV[i * 3 - 1])\n" +
+            "  for slot = from, to - 1 do\n" +
+            "    if redis.call('GETBIT', KEYS[i], slot) == 1 then\n" +
+            "      return 0\n" +
+            "    end\n" +
+            "  end\n" +
+            "end\n" +
+            "return 1", Long.class);
+
+    /**
+     * 无条件设置时段的位，ARGV[1] 为位的值，其后每三个一组同 RESERVE_SCRIPT
+     */
+    private static final RedisScript<Long> SET_SCRIPT = new DefaultRedisScript<>(
+            "local value = tonumber(ARGV[1])\n" +
+            "for i = 1, #KEYS do\n" +
+            "  local from = tonumber(ARGV[i * 3 - 1])\n" +
+            "  local to = tonumber(ARGV[i * 3])\n" +
+            "  for slot = from, to - 1 do\n" +
+            "    redis.call('SETBIT', KEYS[i], slot, value)\n" +
+            "  end\n" +
+            "  if value == 1 then\n" +
+            "    redis.call('EXPIREAT', KEYS[i], ARGV[i * 3 + 1])\n" +
+            "  end\n" +
+            "end\n" +
+            "return 1", Long.class);
+
+    /**
+     * 在一次调用中归还原时段并预约新时段，修改预约时使用。
+     * ARGV[1] 为原时段的键数 n，KEYS 前 n 个为原时段、其余为新时段，ARGV 其后每三个一组同 RESERVE_SCRIPT。
+     * 新时段有冲突时在脚本内恢复原时段并返回 0，脚本原子执行，恢复前不会被其他请求占用
+     */
+    private static final RedisScript<Long> MOVE_SCRIPT = new DefaultRedisScript<>(
+            "local n = tonumber(ARGV[1])\n" +
+            "local function fill(i, value)\n" +
+            "  for slot = tonumber(ARGV[i * 3 - 1]), tonumber(ARGV[i * 3]) - 1 do\n" +
+            "    redis.call('SETBIT', KEYS[i], slot, value)\n" +
+            "  end\n" +
+            "end\n" +
+            "for i = 1, n do\n" +
+            "  fill(i, 0)\n" +
+            "end\n" +
+            "for i = n + 1, #KEYS do\n" +
+            "  for slot = tonumber(ARGV[i * 3 - 1]), tonumber(ARGV[i * 3]) - 1 do\n" +
+            "    if redis.call('GETBIT', KEYS[i], slot) == 1 then\n" +
+            "      for j = 1, n do\n" +
+            "        fill(j, 1)\n" +
+            "      end\n" +
+            "      return 0\n" +
+            "    end\n" +
+            "  end\n" +
+            "end\n" +
+            "for i = n + 1, #KEYS do\n" +
+            "  fill(i, 1)\n" +
+            "  redis.call('EXPIREAT', KEYS[i], ARGV[i * 3 + 1])\n" +
+            "end\n" +
+            "return 1", Long.class);
+
+    /**
+     * 故障期间最多记录的释放数，超出后丢弃（对应时段在位图过期前会被误判为占用，不会导致重复预约）
+     */
+    private static final int MAX_PENDING_RELEASES = 10000;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${reservation.slot-store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reservation.slot-store.retry-interval:30s}")
+    private Duration retryInterval;
+
+    /**
+     * Redis 故障后暂停使用的截止时间，避免每次预约都等待连接超时
+     */
+    private volatile long suspendedUntil;
+
+    /**
+     * Redis 出现过故障（或启动后尚未同步），恢复使用前需要先按数据库重新同步
+     */
+    private volatile boolean resyncRequired = true;
+
+    /**
+     * 故障期间的释放，重新同步时补做
+     */
+    private final Queue<SlotRange> pendingReleases = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingReleaseCount = new AtomicInteger();
+
+    /**
+     * 原子地预约座位时段
+     * @return true 预约成功，false 时段已被占用，null 存储不可用
+     */
+    public Boolean tryReserve(Long roomId, Long seatId, Date startTime, Date endTime) {
+        Long result = execute(RESERVE_SCRIPT, List.of(new SlotRange(roomId, seatId, startTime, endTime)), null, false);
+        return result == null ? null : result == 1L;
+    }
+
+    /**
+     * 原子地把预约从原时段移到新时段（可以是其他座位）
+     * @return true 成功，false 新时段已被占用（原时段保持占用），null 存储不可用
+     */
+    public Boolean tryMove(Long oldRoomId, Long oldSeatId, Date oldStartTime, Date oldEndTime,
+                           Long newRoomId, Long newSeatId, Date newStartTime, Date newEndTime) {
+        SlotRange from = new SlotRange(oldRoomId, oldSeatId, oldStartTime, oldEndTime);
+        SlotRange to = new SlotRange(newRoomId, newSeatId, newStartTime, newEndTime);
+        if (!from.isValid() || !to.isValid() || !isAvailable()) {
+            return null;
+        }
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        // 第一个参数是原时段的键数，先占位
+        args.add(null);
+        appendSlots(from, keys, args);
+        args.set(0, String.valueOf(keys.size()));
+        appendSlots(to, keys, args);
+        Long result = run(MOVE_SCRIPT, keys, args);
+        return result == null ? null : result == 1L;
+    }
+
+    /**
+     * 检查座位时段是否空闲
+     * @return true 空闲，false 已被占用，null 存储不可用
+     */
+    public Boolean isFree(Long roomId, Long seatId, Date startTime, Date endTime) {
+        Long result = execute(CHECK_SCRIPT, List.of(new SlotRange(roomId, seatId, startTime, endTime)), null, false);
+        return result == null ? null : result == 1L;
+    }
+
+    /**
+     * 释放座位时段（取消、签退、违约时调用），存储不可用时记录下来，恢复后补做
+     */
+    public void release(Long roomId, Long seatId, Date startTime, Date endTime) {
+        if (!enabled) {
+            return;
+        }
+        SlotRange range = new SlotRange(roomId, seatId, startTime, endTime);
+        if (execute(SET_SCRIPT, List.of(range), "0", false) == null && range.isValid()) {
+            if (pendingReleaseCount.incrementAndGet() <= MAX_PENDING_RELEASES) {
+                pendingReleases.add(range);
+            } else {
+                pendingReleaseCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 存储是否启用，未启用时（单节点部署）以本节点索引为准
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 存储当前是否可用
+     */
+    public boolean isAvailable() {
+        return enabled && !resyncRequired && System.currentTimeMillis() >= suspendedUntil;
+    }
+
+    /**
+     * 是否到了重新同步的时间：启动后或 Redis 故障后，暂停时间已过但尚未同步
+     */
+    public boolean needsResync() {
+        return enabled && resyncRequired && System.currentTimeMillis() >= suspendedUntil;
+    }
+
+    /**
+     * 按数据库重新同步位图：先补做故障期间的释放，再标记所有仍占用座位的预约，成功后恢复使用。
+     * 只补标记、不清除其他位，同步期间其他节点的新预约不会被覆盖
+     * @param reservations 数据库中仍占用座位的预约
+     * @param seatRoomIds 座位ID -> 自习室ID
+     * @return 是否同步成功，失败时继续暂停使用
+     */
+    public boolean resync(List<Reservation> reservations, Map<Long, Long> seatRoomIds) {
+        List<SlotRange> releases = new ArrayList<>();
+        for (SlotRange range; (range = pendingReleases.poll()) != null; ) {
+            pendingReleaseCount.decrementAndGet();
+            releases.add(range);
+        }
+        List<SlotRange> marks = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            SlotRange range = new SlotRange(seatRoomIds.get(reservation.getSeatId()), reservation.getSeatId(),
+                    reservation.getReservationInTime(), reservation.getReservationOutTime());
+            // 座位已删除的预约没有对应的位图
+            if (range.isValid()) {
+                marks.add(range);
+            }
+        }
+        // 每批一次往返，避免单个脚本执行过久阻塞 Redis
+        for (int from = 0; from < releases.size(); from += RESYNC_BATCH) {
+            if (execute(SET_SCRIPT, releases.subList(from, Math.min(from + RESYNC_BATCH, releases.size())), "0", true) == null) {
+                // 未完成的释放放回队列，下次同步时重试
+                releases.subList(from, releases.size()).forEach(range -> {
+                    pendingReleaseCount.incrementAndGet();
+                    pendingReleases.add(range);
+                });
+                return false;
+            }
+        }
+        for (int from = 0; from < marks.size(); from += RESYNC_BATCH) {
+            if (execute(SET_SCRIPT, marks.subList(from, Math.min(from + RESYNC_BATCH, marks.size())), "1", true) == null) {
+                return false;
+            }
+        }
+        resyncRequired = false;
+        // 同步期间记录下来的释放直接补做
+        for (SlotRange range; (range = pendingReleases.poll()) != null; ) {
+            pendingReleaseCount.decrementAndGet();
+            release(range.roomId, range.seatId, range.startTime, range.endTime);
+        }
+        log.info("座位时段位图同步完成，补做释放 {} 条，标记预约 {} 条", releases.size(), marks.size());
+        return true;
+    }
+
+    /**
+     * 对一组时段执行脚本
+     * @param prefixValue 非空时作为第一个参数（SET_SCRIPT 的位值）
+     * @param force 是否在同步前（不可用状态下）执行，只用于重新同步
+     */
+    private Long execute(RedisScript<Long> script, List<SlotRange> ranges, String prefixValue, boolean force) {
+        if (force ? !enabled || System.currentTimeMillis() < suspendedUntil : !isAvailable()) {
+            return null;
+        }
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        if (prefixValue != null) {
+            args.add(prefixValue);
+        }
+        for (SlotRange range : ranges) {
+            if (!range.isValid()) {
+                return null;
+            }
+            appendSlots(range, keys, args);
+        }
+        return run(script, keys, args);
+    }
+
+    private Long run(RedisScript<Long> script, List<String> keys, List<String> args) {
+        if (keys.isEmpty()) {
+            return 1L;
+        }
+        try {
+            return stringRedisTemplate.execute(script, keys, args.toArray());
+        } catch (Exception e) {
+            suspendedUntil = System.currentTimeMillis() + retryInterval.toMillis();
+            resyncRequired = true;
+            log.warn("座位时段存储不可用，{}秒后重新同步，期间暂停预约: {}", retryInterval.getSeconds(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 计算时间段覆盖的时段，跨天的时间段会拆分到每天各自的位图上，
+     * 每天追加一个键和三个参数：起始时段、结束时段（不含）、过期时间戳
+     */
+    private static void appendSlots(SlotRange range, List<String> keys, List<String> args) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime start = LocalDateTime.ofInstant(range.startTime.toInstant(), zone);
+        LocalDateTime end = LocalDateTime.ofInstant(range.endTime.toInstant(), zone);
+        for (LocalDate day = start.toLocalDate(); !day.isAfter(end.toLocalDate()); day = day.plusDays(1)) {
+            // 起止时间向外取整到时段边界
+            int from = day.equals(start.toLocalDate()) ? (start.getHour() * 60 + start.getMinute()) / SLOT_MINUTES : 0;
+            int to = day.equals(end.toLocalDate()) ? ceilSlot(end) : SLOTS_PER_DAY;
+            if (from >= to) {
+                continue;
+            }
+            // 位图保留到当天结束后一天
+            long expireAt = day.plusDays(2).atStartOfDay(zone).toEpochSecond();
+            keys.add(key(range.roomId, day, range.seatId));
+            args.add(String.valueOf(from));
+            args.add(String.valueOf(to));
+            args.add(String.valueOf(expireAt));
+        }
+    }
+
+    private static int ceilSlot(LocalDateTime time) {
+        int minutes = time.getHour() * 60 + time.getMinute() + (time.getSecond() > 0 || time.getNano() > 0 ? 1 : 0);
+        return (minutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+    }
+
+    /**
+     * 同一自习室同一天的位图使用相同的哈希标签，集群模式下落在同一节点
+     */
+    private static String key(Long roomId, LocalDate day, Long seatId) {
+        return KEY_PREFIX + "{" + roomId + ":" + day.format(DAY_FORMATTER) + "}:" + seatId;
+    }
+
+    /**
+     * 一个座位的一段时间
+     */
+    private record SlotRange(Long roomId, Long seatId, Date startTime, Date endTime) {
+
+        boolean isValid() {
+            return roomId != null && seatId != null && startTime != null && endTime != null;
+        }
+    }
+}
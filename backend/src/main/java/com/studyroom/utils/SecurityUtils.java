@@ -0,0 +1,85 @@
+package com.studyroom.utils;
+
+import com.studyroom.exception.ForbiddenException;
+import com.studyroom.exception.UnauthorizedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * 当前登录用户，身份信息由 JwtAuthenticationFilter 从令牌中解析，读取时不查询数据库
+ */
+public final class SecurityUtils {
+
+    public static final String ROLE_ADMIN = "admin";
+
+    private SecurityUtils() {
+    }
+
+    /**
+     * 当前登录用户，未登录时返回 null
+     */
+    public static JwtPrincipal getPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal;
+        }
+        return null;
+    }
+
+    /**
+     * 当前登录用户ID
+     * @throws UnauthorizedException 未登录
+     */
+    public static Long getCurrentUserId() {
+        JwtPrincipal principal = getPrincipal();
+        if (principal == null) {
+            throw new UnauthorizedException("未登录或令牌已失效");
+        }
+        return principal.getUserId();
+    }
+
+    public static boolean isAdmin() {
+        JwtPrincipal principal = getPrincipal();
+        return principal != null && ROLE_ADMIN.equalsIgnoreCase(principal.getRole());
+    }
+
+    /**
+     * 操作单个用户数据时的用户ID：未指定时为当前用户，管理员可以指定其他用户
+     * @param requested 请求中指定的用户ID
+     * @throws ForbiddenException 普通用户指定了其他用户
+     */
+    public static Long resolveUserId(Long requested) {
+        Long currentUserId = getCurrentUserId();
+        if (requested == null || requested.equals(currentUserId)) {
+            return currentUserId;
+        }
+        if (!isAdmin()) {
+            throw new ForbiddenException("无权访问其他用户的数据");
+        }
+        return requested;
+    }
+
+    /**
+     * 查询列表时的用户范围：管理员按请求（未指定时为全部用户），普通用户只能查询自己的数据
+     * @param requested 请求中指定的用户ID
+     * @throws ForbiddenException 普通用户指定了其他用户
+     */
+    public static Long scopeUserId(Long requested) {
+        if (isAdmin()) {
+            return requested;
+        }
+        return resolveUserId(requested);
+    }
+
+    /**
+     * 操作单条记录前校验归属：记录必须属于当前用户，管理员可以操作所有记录
+     * @param ownerId 记录所属用户ID
+     * @throws ForbiddenException 普通用户操作其他用户的记录
+     */
+    public static void checkOwner(Long ownerId) {
+        Long currentUserId = getCurrentUserId();
+        if (!currentUserId.equals(ownerId) && !isAdmin()) {
+            throw new ForbiddenException("无权操作其他用户的记录");
+        }
+    }
+}
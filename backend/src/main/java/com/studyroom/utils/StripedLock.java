@@ -0,0 +1,75 @@
+package com.studyroom.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分段锁
+ * 按键的哈希值将加锁请求分散到固定数量的锁上：同一个键总是落在同一把锁上，
+ * 不同的键大概率落在不同的锁上，可以并行执行
+ */
+public class StripedLock {
+
+    private final Lock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes 锁的数量，会向上取整为2的幂
+     */
+    public StripedLock(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive");
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        this.stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 获取键对应的锁
+     * @param key 键
+     * @return 锁
+     */
+    public Lock get(Object key) {
+        return stripes[index(key)];
+    }
+
+    /**
+     * 获取多个键对应的锁，按锁的下标排序并去重。
+     * 需要同时持有多把锁时按返回的顺序加锁，不同线程的加锁顺序一致，不会死锁
+     * @param keys 键
+     * @return 锁
+     */
+    public List<Lock> getAll(Object... keys) {
+        int[] indexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            indexes[i] = index(keys[i]);
+        }
+        Arrays.sort(indexes);
+        List<Lock> locks = new ArrayList<>(keys.length);
+        for (int i = 0; i < indexes.length; i++) {
+            if (i == 0 || indexes[i] != indexes[i - 1]) {
+                locks.add(stripes[indexes[i]]);
+            }
+        }
+        return locks;
+    }
+
+    private int index(Object key) {
+        int h = key.hashCode();
+        // 打散哈希值高位，避免连续ID集中在少数锁上
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h & mask;
+    }
+}
@@ -0,0 +1,141 @@
+package com.studyroom.utils;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 系统设置快照
+ * 由 system_settings 表的全部设置项解析而来，创建后不再修改，业务代码直接读取类型化的字段。
+ * 设置项缺失或格式错误时使用默认值（与初始化脚本中的值一致）
+ */
+@Slf4j
+@Getter
+public final class SystemSettings {
+
+    public static final String RESERVATION_MAX_DAYS = "reservation.max_days";
+    public static final String RESERVATION_MAX_HOURS_PER_DAY = "reservation.max_hours_per_day";
+    public static final String RESERVATION_MIN_ADVANCE_TIME = "reservation.min_advance_time";
+    public static final String CHECKIN_LATE_THRESHOLD = "checkin.late_threshold";
+    public static final String CHECKIN_LEAVE_TIMEOUT = "checkin.leave_timeout";
+    public static final String VIOLATION_NO_SHOW_PENALTY = "violation.no_show_penalty";
+    public static final String VIOLATION_LATE_PENALTY = "violation.late_penalty";
+    public static final String VIOLATION_EARLY_LEAVE_PENALTY = "violation.early_leave_penalty";
+    public static final String VIOLATION_LATE_CHECKOUT_PENALTY = "violation.late_checkout_penalty";
+    public static final String CREDIT_MINIMUM = "credit.minimum";
+    public static final String CREDIT_MAXIMUM = "credit.maximum";
+    public static final String CREDIT_RECOVERY_RATE = "credit.recovery_rate";
+
+    /**
+     * 全部默认值，未配置的设置项使用默认值
+     */
+    public static final SystemSettings DEFAULTS = new SystemSettings(Collections.emptyMap(), "");
+
+    /**
+     * 最多可提前预约的天数
+     */
+    private final int maxDays;
+
+    /**
+     * 单次预约的最长小时数
+     */
+    private final int maxHoursPerDay;
+
+    /**
+     * 预约开始时间至少晚于当前时间的分钟数
+     */
+    private final int minAdvanceMinutes;
+
+    /**
+     * 预约开始后超过该分钟数仍未签到视为违约
+     */
+    private final int lateThresholdMinutes;
+
+    /**
+     * 暂离超过该分钟数未返回视为违约
+     */
+    private final int leaveTimeoutMinutes;
+
+    private final int noShowPenalty;
+    private final int latePenalty;
+    private final int earlyLeavePenalty;
+    private final int lateCheckoutPenalty;
+    private final int creditMinimum;
+    private final int creditMaximum;
+    private final int creditRecoveryRate;
+
+    /**
+     * 设置表版本，用于判断是否需要重新加载
+     */
+    private final String version;
+
+    /**
+     * 原始设置值，只读
+     */
+    private final Map<String, String> values;
+
+    public SystemSettings(Map<String, String> values, String version) {
+        this.values = Collections.unmodifiableMap(new HashMap<>(values));
+        this.version = version;
+        this.maxDays = readInt(values, RESERVATION_MAX_DAYS, 7);
+        this.maxHoursPerDay = readInt(values, RESERVATION_MAX_HOURS_PER_DAY, 8);
+        this.minAdvanceMinutes = readInt(values, RESERVATION_MIN_ADVANCE_TIME, 30);
+        this.lateThresholdMinutes = readInt(values, CHECKIN_LATE_THRESHOLD, 15);
+        this.leaveTimeoutMinutes = readInt(values, CHECKIN_LEAVE_TIMEOUT, 30);
+        this.noShowPenalty = readInt(values, VIOLATION_NO_SHOW_PENALTY, 10);
+        this.latePenalty = readInt(values, VIOLATION_LATE_PENALTY, 5);
+        this.earlyLeavePenalty = readInt(values, VIOLATION_EARLY_LEAVE_PENALTY, 5);
+        this.lateCheckoutPenalty = readInt(values, VIOLATION_LATE_CHECKOUT_PENALTY, 5);
+        this.creditMinimum = readInt(values, CREDIT_MINIMUM, 0);
+        this.creditMaximum = readInt(values, CREDIT_MAXIMUM, 100);
+        this.creditRecoveryRate = readInt(values, CREDIT_RECOVERY_RATE, 1);
+    }
+
+    /**
+     * 校验设置值能否解析，用于保存前检查
+     * @return 错误信息，合法时返回 null
+     */
+    public static String validate(String key, String value) {
+        if (!isKnownIntKey(key)) {
+            return null;
+        }
+        try {
+            if (Integer.parseInt(value.trim()) < 0) {
+                return "设置值不能为负数: " + key;
+            }
+            return null;
+        } catch (RuntimeException e) {
+            return "设置值必须为整数: " + key;
+        }
+    }
+
+    private static boolean isKnownIntKey(String key) {
+        switch (key) {
+            case RESERVATION_MAX_DAYS, RESERVATION_MAX_HOURS_PER_DAY, RESERVATION_MIN_ADVANCE_TIME,
+                    CHECKIN_LATE_THRESHOLD, CHECKIN_LEAVE_TIMEOUT, VIOLATION_NO_SHOW_PENALTY,
+                    VIOLATION_LATE_PENALTY, VIOLATION_EARLY_LEAVE_PENALTY, VIOLATION_LATE_CHECKOUT_PENALTY,
+                    CREDIT_MINIMUM, CREDIT_MAXIMUM, CREDIT_RECOVERY_RATE -> {
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private static int readInt(Map<String, String> values, String key, int defaultValue) {
+        String value = values.get(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("系统设置 {} 的值 {} 不是整数，使用默认值 {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.studyroom.utils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌吊销列表
+ * 注销、刷新时把令牌的 jti 写入 Redis，过期时间等于令牌的剩余有效期，并通过 Redis 广播给所有节点。
+ * 每个节点在本地布隆过滤器中记录已吊销的 jti：绝大多数请求的令牌不在过滤器中，直接判定为未吊销，
+ * 不访问 Redis；只有过滤器命中时才查询 Redis 确认，排除误判。
+ * 布隆过滤器不能删除元素，按令牌最长有效期分代轮换，旧一代在其中的令牌全部过期后丢弃。
+ * Redis 不可用时暂停使用一段时间，期间过滤器命中即视为已吊销；期间吊销的令牌先记录在本节点，
+ * 恢复后写入 Redis 并广播，再重新加载全部已吊销令牌，补上断开期间错过的广播
+ */
+@Slf4j
+@Component
+public class TokenRevocationStore {
+
+    private static final String KEY_PREFIX = "studyroom:token:revoked:";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${jwt.revocation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.revocation.channel:studyroom:token:revoked}")
+    private String channel;
+
+    @Value("${jwt.revocation.expected-revocations:100000}")
+    private int expectedRevocations;
+
+    @Value("${jwt.revocation.fpp:0.01}")
+    private double fpp;
+
+    @Value("${jwt.revocation.retry-interval:30s}")
+    private Duration retryInterval;
+
+    /**
+     * 令牌最长有效期，即每一代过滤器的使用时长
+     */
+    @Value("${jwt.refresh-expire}")
+    private long generationMillis;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    private volatile long generationStartedAt;
+
+    /**
+     * Redis 故障后暂停使用的截止时间
+     */
+    private volatile long suspendedUntil;
+
+    /**
+     * 是否已与 Redis 同步：启动后、Redis 故障后和定期重新同步时置为 false，
+     * Redis 可用时写入本节点暂存的吊销并重新加载全部已吊销令牌
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Redis 不可用期间吊销的令牌，jti -> 令牌过期时间，同步时写入 Redis
+     */
+    private final Map<String, Long> pendingRevocations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        current = new BloomFilter(expectedRevocations, fpp);
+        previous = new BloomFilter(expectedRevocations, fpp);
+        generationStartedAt = System.currentTimeMillis();
+        if (!enabled) {
+            return;
+        }
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> addLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+        syncIfNeeded();
+    }
+
+    /**
+     * 吊销令牌，令牌已过期或没有 jti 时忽略。Redis 不可用时暂存在本节点，恢复后写入
+     */
+    public void revoke(JwtPrincipal principal) {
+        String jti = principal.getJti();
+        long ttl = principal.getExpiration() - System.currentTimeMillis();
+        if (jti == null || ttl <= 0) {
+            return;
+        }
+        addLocal(jti);
+        if (!enabled) {
+            return;
+        }
+        if (!isAvailable() || !write(jti, ttl)) {
+            pendingRevocations.put(jti, principal.getExpiration());
+            loaded = false;
+        }
+    }
+
+    /**
+     * 使用一次性令牌（刷新令牌）：吊销并返回是否由本次调用吊销。
+     * 通过 SET NX 保证同一令牌并发使用时只有一个请求成功，其余视为重复使用
+     * @return true 首次使用，false 令牌已被使用过
+     */
+    public boolean consume(JwtPrincipal principal) {
+        String jti = principal.getJti();
+        long ttl = principal.getExpiration() - System.currentTimeMillis();
+        if (jti == null || ttl <= 0) {
+            return false;
+        }
+        if (!enabled) {
+            // 未启用吊销列表时只能保证本节点内只使用一次
+            synchronized (this) {
+                if (current.mightContain(jti) || previous.mightContain(jti)) {
+                    return false;
+                }
+                addLocal(jti);
+                return true;
+            }
+        }
+        syncIfNeeded();
+        if (isAvailable()) {
+            try {
+                if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                        .setIfAbsent(KEY_PREFIX + jti, "1", Duration.ofMillis(ttl)))) {
+                    return false;
+                }
+                addLocal(jti);
+                stringRedisTemplate.convertAndSend(channel, jti);
+                return true;
+            } catch (Exception e) {
+                suspend(e);
+            }
+        }
+        // Redis 不可用时只能保证本节点内只使用一次，恢复后写入 Redis
+        if (isRevoked(principal)) {
+            return false;
+        }
+        addLocal(jti);
+        if (pendingRevocations.putIfAbsent(jti, principal.getExpiration()) != null) {
+            return false;
+        }
+        loaded = false;
+        return true;
+    }
+
+    /**
+     * 判断令牌是否已吊销，过滤器未命中时不访问 Redis
+     */
+    public boolean isRevoked(JwtPrincipal principal) {
+        String jti = principal.getJti();
+        if (jti == null) {
+            return false;
+        }
+        syncIfNeeded();
+        if (!current.mightContain(jti) && !previous.mightContain(jti)) {
+            return false;
+        }
+        // 尚未写入 Redis 的吊销以本节点记录为准
+        if (pendingRevocations.containsKey(jti) || !isAvailable()) {
+            return true;
+        }
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(KEY_PREFIX + jti));
+        } catch (Exception e) {
+            suspend(e);
+            return true;
+        }
+    }
+
+    /**
+     * 定期重新同步，补上订阅连接断开期间错过的广播（订阅断开时本节点的读写不一定失败）
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.resync-interval:300000}",
+            initialDelayString = "${jwt.revocation.resync-interval:300000}")
+    public void resync() {
+        if (enabled) {
+            loaded = false;
+            syncIfNeeded();
+        }
+    }
+
+    public boolean isAvailable() {
+        return enabled && System.currentTimeMillis() >= suspendedUntil;
+    }
+
+    private void addLocal(String jti) {
+        rotateIfNeeded();
+        current.put(jti);
+    }
+
+    /**
+     * 当前一代使用满最长有效期后轮换，上一代中的令牌此时均已过期
+     */
+    private void rotateIfNeeded() {
+        if (System.currentTimeMillis() - generationStartedAt < generationMillis) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now - generationStartedAt >= generationMillis) {
+                previous = current;
+                current = new BloomFilter(expectedRevocations, fpp);
+                generationStartedAt = now;
+            }
+        }
+    }
+
+    private void syncIfNeeded() {
+        if (!loaded && isAvailable()) {
+            sync();
+        }
+    }
+
+    /**
+     * 先把暂存的吊销写入 Redis 并广播，再加载 Redis 中全部已吊销的令牌
+     */
+    private synchronized void sync() {
+        if (loaded || !isAvailable()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Long> entry : pendingRevocations.entrySet()) {
+            long ttl = entry.getValue() - now;
+            if (ttl > 0 && !write(entry.getKey(), ttl)) {
+                return;
+            }
+            pendingRevocations.remove(entry.getKey(), entry.getValue());
+        }
+        int count = 0;
+        try (Cursor<String> cursor = stringRedisTemplate.scan(ScanOptions.scanOptions()
+                .match(KEY_PREFIX + "*").count(1000).build())) {
+            while (cursor.hasNext()) {
+                addLocal(cursor.next().substring(KEY_PREFIX.length()));
+                count++;
+            }
+            loaded = true;
+            log.info("已吊销令牌同步完成，数量: {}", count);
+        } catch (Exception e) {
+            suspend(e);
+        }
+    }
+
+    private boolean write(String jti, long ttl) {
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + jti, "1", Duration.ofMillis(ttl));
+            stringRedisTemplate.convertAndSend(channel, jti);
+            return true;
+        } catch (Exception e) {
+            suspend(e);
+            return false;
+        }
+    }
+
+    private void suspend(Exception e) {
+        suspendedUntil = System.currentTimeMillis() + retryInterval.toMillis();
+        // 故障期间可能错过其他节点的广播，恢复后重新同步
+        loaded = false;
+        log.warn("令牌吊销列表 Redis 不可用，{}秒内只使用本地过滤器: {}", retryInterval.getSeconds(), e.getMessage());
+    }
+}
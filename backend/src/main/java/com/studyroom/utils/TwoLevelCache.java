@@ -0,0 +1,190 @@
+package com.studyroom.utils;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 两级缓存：本地 Caffeine 近端缓存 + Redis 共享缓存，由 {@link TwoLevelCacheManager} 创建。
+ * 键统一转为字符串，与 Redis 键和失效消息中的键保持一致；不缓存 null。
+ * 未命中时按键分段加锁加载，同一个键并发未命中只加载一次，不同键的加载互不阻塞；
+ * 加载期间该键被失效或写入时，加载结果可能是失效前读到的旧值，只返回给调用方，不写入缓存
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private static final int LOAD_LOCK_STRIPES = 64;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final TwoLevelCacheManager manager;
+    private final StripedLock loadLocks = new StripedLock(LOAD_LOCK_STRIPES);
+
+    /**
+     * 按键分段的写入计数，本节点的失效、写入和其他节点的失效消息都会增加对应分段的计数。
+     * 加载前后计数不同说明加载期间可能发生过失效；不同键落在同一分段时只是少缓存一次
+     */
+    private final AtomicLongArray writeCounts = new AtomicLongArray(LOAD_LOCK_STRIPES);
+
+    TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, TwoLevelCacheManager manager) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.manager = manager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 返回本地 Caffeine 缓存，用于查看命中统计
+     */
+    @Override
+    public com.github.benmanes.caffeine.cache.Cache<String, Object> getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String id = String.valueOf(key);
+        Object value = local.getIfPresent(id);
+        if (value != null || !manager.isRedisAvailable()) {
+            return value;
+        }
+        try {
+            value = manager.getRedisTemplate().opsForValue().get(manager.redisKey(name, id));
+            manager.redisSucceeded();
+        } catch (Exception e) {
+            manager.redisFailed(e);
+            return null;
+        }
+        if (value != null) {
+            local.put(id, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+        String id = String.valueOf(key);
+        Lock lock = loadLocks.get(id);
+        lock.lock();
+        try {
+            // 等待锁期间可能已由其他线程加载
+            value = lookup(key);
+            if (value != null) {
+                return (T) value;
+            }
+            int stripe = stripe(id);
+            long writeCount = writeCounts.get(stripe);
+            T loaded = valueLoader.call();
+            if (writeCounts.get(stripe) == writeCount) {
+                store(id, loaded);
+            }
+            return loaded;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String id = String.valueOf(key);
+        writeCounts.incrementAndGet(stripe(id));
+        store(id, value);
+    }
+
+    private void store(String id, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (manager.isRedisAvailable()) {
+            try {
+                manager.getRedisTemplate().opsForValue().set(manager.redisKey(name, id), value, manager.getTtl());
+                // 其他节点可能缓存了旧值
+                manager.publishEvict(name, id);
+                manager.redisSucceeded();
+                local.put(id, value);
+                return;
+            } catch (Exception e) {
+                manager.redisFailed(e);
+            }
+        }
+        putLocalWithFallbackTtl(id, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String id = String.valueOf(key);
+        writeCounts.incrementAndGet(stripe(id));
+        local.invalidate(id);
+        if (!manager.isRedisAvailable()) {
+            return;
+        }
+        try {
+            manager.getRedisTemplate().delete(manager.redisKey(name, id));
+            manager.publishEvict(name, id);
+            manager.redisSucceeded();
+        } catch (Exception e) {
+            manager.redisFailed(e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        invalidateAllStripes();
+        local.invalidateAll();
+        if (!manager.isRedisAvailable()) {
+            return;
+        }
+        try {
+            List<String> keys = manager.scanKeys(name);
+            if (!keys.isEmpty()) {
+                manager.getRedisTemplate().delete(keys);
+            }
+            manager.publishClear(name);
+            manager.redisSucceeded();
+        } catch (Exception e) {
+            manager.redisFailed(e);
+        }
+    }
+
+    void evictLocal(String key) {
+        writeCounts.incrementAndGet(stripe(key));
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        invalidateAllStripes();
+        local.invalidateAll();
+    }
+
+    private void invalidateAllStripes() {
+        for (int i = 0; i < writeCounts.length(); i++) {
+            writeCounts.incrementAndGet(i);
+        }
+    }
+
+    private static int stripe(String id) {
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & (LOAD_LOCK_STRIPES - 1);
+    }
+
+    private void putLocalWithFallbackTtl(String id, Object value) {
+        local.policy().expireVariably().ifPresentOrElse(
+                policy -> policy.put(id, value, manager.getFallbackTtl().toNanos(), TimeUnit.NANOSECONDS),
+                () -> local.put(id, value));
+    }
+}
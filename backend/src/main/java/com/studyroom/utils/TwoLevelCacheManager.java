@@ -0,0 +1,216 @@
+package com.studyroom.utils;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 两级缓存管理器
+ * 每个缓存由本地 Caffeine 近端缓存和 Redis 共享缓存组成。写入或清除时通过 Redis 发布失效消息，
+ * 其他节点收到后清除本地条目，下次读取时从 Redis 或数据库重新加载。
+ * Redis 不可用时暂停使用一段时间，期间只使用本地缓存，并用较短的过期时间弥补收不到失效消息；
+ * 恢复后清空本地缓存，丢弃故障期间可能错过失效的条目。
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    /**
+     * 失效消息类型：清除单个键、清空整个缓存
+     */
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    /**
+     * 本节点标识，忽略自己发出的失效消息
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, TwoLevelCache> caches = new LinkedHashMap<>();
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String channel;
+    private final String keyPrefix;
+    private final Duration ttl;
+    private final Duration fallbackTtl;
+    private final Duration retryInterval;
+
+    /**
+     * Redis 故障后暂停使用的截止时间，0 表示正常
+     */
+    private volatile long suspendedUntil;
+
+    public TwoLevelCacheManager(RedisConnectionFactory connectionFactory, Collection<String> cacheNames,
+                                long maximumSize, Duration ttl, Duration fallbackTtl, Duration retryInterval,
+                                String channel, String keyPrefix) {
+        this.stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        this.redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(RedisSerializer.string());
+        redisTemplate.setValueSerializer(new JdkSerializationRedisSerializer(getClass().getClassLoader()));
+        redisTemplate.afterPropertiesSet();
+        this.channel = channel;
+        this.keyPrefix = keyPrefix;
+        this.ttl = ttl;
+        this.fallbackTtl = fallbackTtl;
+        this.retryInterval = retryInterval;
+
+        for (String name : cacheNames) {
+            com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    // 默认过期时间，Redis 不可用期间写入的条目单独使用较短的过期时间
+                    .expireAfter(new WriteExpiry(ttl))
+                    .recordStats()
+                    .build();
+            caches.put(name, new TwoLevelCache(name, local, this));
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public boolean isRedisAvailable() {
+        return System.currentTimeMillis() >= suspendedUntil;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        // 消息格式：类型\n节点\n缓存名\n键
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 4);
+        if (parts.length < 4 || nodeId.equals(parts[1])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[0])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[3]);
+        }
+    }
+
+    Duration getTtl() {
+        return ttl;
+    }
+
+    Duration getFallbackTtl() {
+        return fallbackTtl;
+    }
+
+    String redisKey(String cacheName, String key) {
+        return keyPrefix + cacheName + ":" + key;
+    }
+
+    RedisTemplate<String, Object> getRedisTemplate() {
+        return redisTemplate;
+    }
+
+    StringRedisTemplate getStringRedisTemplate() {
+        return stringRedisTemplate;
+    }
+
+    void publishEvict(String cacheName, String key) {
+        stringRedisTemplate.convertAndSend(channel, EVICT + "\n" + nodeId + "\n" + cacheName + "\n" + key);
+    }
+
+    void publishClear(String cacheName) {
+        stringRedisTemplate.convertAndSend(channel, CLEAR + "\n" + nodeId + "\n" + cacheName + "\n");
+    }
+
+    /**
+     * Redis 操作成功，故障后首次恢复时清空本地缓存
+     */
+    void redisSucceeded() {
+        if (suspendedUntil != 0) {
+            suspendedUntil = 0;
+            clearAllLocal();
+            log.info("缓存 Redis 已恢复，清空本地缓存");
+        }
+    }
+
+    /**
+     * Redis 操作失败，暂停使用并清空本地缓存（之后可能收不到其他节点的失效消息）
+     */
+    void redisFailed(Exception e) {
+        boolean wasAvailable = suspendedUntil == 0;
+        suspendedUntil = System.currentTimeMillis() + retryInterval.toMillis();
+        if (wasAvailable) {
+            clearAllLocal();
+            log.warn("缓存 Redis 不可用，{}秒内只使用本地缓存: {}", retryInterval.getSeconds(), e.getMessage());
+        }
+    }
+
+    private void clearAllLocal() {
+        for (TwoLevelCache cache : caches.values()) {
+            cache.clearLocal();
+        }
+    }
+
+    /**
+     * 缓存中所有键的 Redis 键
+     */
+    List<String> scanKeys(String cacheName) {
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(ScanOptions.scanOptions()
+                .match(keyPrefix + cacheName + ":*").count(500).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        return keys;
+    }
+
+    /**
+     * 写入后固定时间过期，单个条目可通过 policy().expireVariably() 指定其他过期时间
+     */
+    private static final class WriteExpiry implements Expiry<String, Object> {
+
+        private final long ttlNanos;
+
+        private WriteExpiry(Duration ttl) {
+            this.ttlNanos = ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Object value, long currentTime) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.studyroom.service.impl;
+
+import com.studyroom.entity.Reservation;
+import com.studyroom.exception.ForbiddenException;
+import com.studyroom.exception.TooManyRequestsException;
+import com.studyroom.service.ReservationService;
+import com.studyroom.utils.JwtPrincipal;
+import com.studyroom.utils.Result;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 预约排队服务测试
+ * 模拟预约开放时的瞬时请求，验证全部请求都被处理且数据库并发数不超过工作线程数
+ */
+class BookingQueueServiceImplTest {
+
+    private final ReservationService reservationService = mock(ReservationService.class);
+
+    private BookingQueueServiceImpl service;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (service != null) {
+            service.destroy();
+        }
+    }
+
+    @Test
+    void rushIsProcessedWithBoundedConcurrency() throws Exception {
+        int workers = 4;
+        int clients = 200;
+        int requestsPerClient = 5;
+        service = newService(workers, 2000);
+
+        // 每次预约模拟 2 毫秒的数据库事务，同时记录并发执行数
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(reservationService.createReservation(any())).thenAnswer(invocation -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+                return Result.success("预约成功");
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            long userId = c + 1;
+            results.add(pool.submit(() -> {
+                login(userId);
+                start.await();
+                int done = 0;
+                for (int i = 0; i < requestsPerClient; i++) {
+                    String ticketId = ticketId(service.enqueue(reservation(userId)));
+                    Result<?> result = service.poll(ticketId, 25).get(30, TimeUnit.SECONDS);
+                    assertEquals("done", ((Map<?, ?>) result.getData()).get("status"));
+                    done++;
+                }
+                return done;
+            }));
+        }
+
+        start.countDown();
+        int done = 0;
+        for (Future<Integer> result : results) {
+            done += result.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(clients * requestsPerClient, done);
+        assertTrue(peak.get() <= workers, "数据库并发数超过工作线程数: " + peak.get());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        service = newService(1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        when(reservationService.createReservation(any())).thenAnswer(invocation -> {
+            release.await();
+            return Result.success("预约成功");
+        });
+
+        // 第一个请求由工作线程直接执行，其后 10 个进入队列
+        for (int i = 0; i < 11; i++) {
+            service.enqueue(reservation(1L));
+        }
+        assertThrows(TooManyRequestsException.class, () -> service.enqueue(reservation(1L)));
+        release.countDown();
+    }
+
+    @Test
+    void ticketCanOnlyBePolledByOwner() {
+        service = newService(1, 10);
+        when(reservationService.createReservation(any())).thenAnswer(invocation -> Result.success("预约成功"));
+
+        String ticketId = ticketId(service.enqueue(reservation(1L)));
+        login(2L);
+        assertThrows(ForbiddenException.class, () -> service.poll(ticketId, 0));
+
+        login(1L);
+        Result<?> result = service.poll(ticketId, 5).join();
+        assertEquals(ticketId, ((Map<?, ?>) result.getData()).get("ticketId"));
+    }
+
+    @Test
+    void destroyWaitsForQueuedRequests() {
+        service = newService(1, 100);
+        AtomicInteger processed = new AtomicInteger();
+        when(reservationService.createReservation(any())).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            processed.incrementAndGet();
+            return Result.success("预约成功");
+        });
+
+        for (int i = 0; i < 20; i++) {
+            service.enqueue(reservation(1L));
+        }
+        service.destroy();
+        assertEquals(20, processed.get());
+        service = null;
+    }
+
+    private BookingQueueServiceImpl newService(int workers, int capacity) {
+        BookingQueueServiceImpl queue = new BookingQueueServiceImpl();
+        ReflectionTestUtils.setField(queue, "reservationService", reservationService);
+        ReflectionTestUtils.setField(queue, "workers", workers);
+        ReflectionTestUtils.setField(queue, "capacity", capacity);
+        ReflectionTestUtils.setField(queue, "ticketTtl", Duration.ofMinutes(5));
+        queue.init();
+        return queue;
+    }
+
+    private static void login(Long userId) {
+        JwtPrincipal principal = mock(JwtPrincipal.class);
+        when(principal.getUserId()).thenReturn(userId);
+        when(principal.getRole()).thenReturn("user");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    private static Reservation reservation(Long userId) {
+        Reservation reservation = new Reservation();
+        reservation.setUserId(userId);
+        reservation.setSeatId(1L);
+        return reservation;
+    }
+
+    private static String ticketId(Result<?> result) {
+        return (String) ((Map<?, ?>) result.getData()).get("ticketId");
+    }
+}
@@ -0,0 +1,141 @@
+package com.studyroom.service.impl;
+
+import com.studyroom.entity.CheckIn;
+import com.studyroom.exception.BusinessException;
+import com.studyroom.mapper.CheckInMapper;
+import com.studyroom.service.SystemSettingService;
+import com.studyroom.utils.DeadlineTracker;
+import com.studyroom.utils.SystemSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 暂离与返回的状态流转，以及重启后按数据库中的暂离开始时间恢复返回截止时间
+ */
+class CheckInServiceImplTest {
+
+    private static final Long ID = 3L;
+    private static final long LEAVE_TIMEOUT_MILLIS = SystemSettings.DEFAULTS.getLeaveTimeoutMinutes() * 60_000L;
+
+    /**
+     * 数据库中的签到记录，按 CheckInMapper.xml 中的条件更新
+     */
+    private CheckIn row;
+    private CheckInMapper checkInMapper;
+
+    @BeforeEach
+    void setUp() {
+        row = new CheckIn();
+        row.setId(ID);
+        row.setReservationId(7L);
+        row.setUserId(1L);
+        row.setStatus("checked_in");
+        // 签到发生在三小时前，之后没有更新过
+        Date checkedInAt = new Date(System.currentTimeMillis() - 3 * 3_600_000L);
+        row.setCheckInTime(checkedInAt);
+        row.setUpdatedAt(checkedInAt);
+
+        checkInMapper = mock(CheckInMapper.class);
+        when(checkInMapper.selectById(ID)).thenAnswer(invocation -> copy(row));
+        when(checkInMapper.selectByStatus("left")).thenAnswer(invocation ->
+                "left".equals(row.getStatus()) ? List.of(copy(row)) : List.of());
+        when(checkInMapper.leaveById(eq(ID), any())).thenAnswer(invocation ->
+                transition(Set.of("checked_in", "returned"), "left", invocation.getArgument(1)));
+        when(checkInMapper.returnById(eq(ID), any())).thenAnswer(invocation ->
+                transition(Set.of("left"), "returned", invocation.getArgument(1)));
+    }
+
+    @Test
+    void restartRestoresLeaveDeadlineFromLeaveTime() {
+        DeadlineTracker before = newTracker();
+        newService(before).leave(ID);
+        long leftAt = row.getUpdatedAt().getTime();
+        assertTrue(leftAt > row.getCheckInTime().getTime());
+
+        // 模拟重启：新的截止时间跟踪器只能从数据库恢复
+        DeadlineTracker after = newTracker();
+        newService(after).initLeaveDeadlines();
+        assertEquals(1, after.trackedLeaves());
+
+        // 暂离刚开始，不应按签到时间判定为已超时
+        assertTrue(after.pollExpiredLeaves(System.currentTimeMillis()).isEmpty());
+        assertEquals(List.of(ID), after.pollExpiredLeaves(leftAt + LEAVE_TIMEOUT_MILLIS + 2_000L));
+    }
+
+    @Test
+    void leaveRejectsCheckedOutRecord() {
+        row.setStatus("checked_out");
+        DeadlineTracker tracker = newTracker();
+
+        assertThrows(BusinessException.class, () -> newService(tracker).leave(ID));
+        assertEquals("checked_out", row.getStatus());
+        assertEquals(0, tracker.trackedLeaves());
+    }
+
+    @Test
+    void returnOnlyFromLeave() {
+        DeadlineTracker tracker = newTracker();
+        CheckInServiceImpl service = newService(tracker);
+
+        assertThrows(BusinessException.class, () -> service.returnFromLeave(ID));
+        assertEquals("checked_in", row.getStatus());
+
+        service.leave(ID);
+        assertTrue(service.returnFromLeave(ID).isSuccess());
+        assertEquals("returned", row.getStatus());
+        assertEquals(0, tracker.trackedLeaves());
+
+        // 返回后可以再次暂离
+        assertTrue(service.leave(ID).isSuccess());
+        assertEquals("left", row.getStatus());
+    }
+
+    private int transition(Set<String> from, String to, Date time) {
+        if (!from.contains(row.getStatus())) {
+            return 0;
+        }
+        row.setStatus(to);
+        row.setUpdatedAt(time);
+        return 1;
+    }
+
+    private CheckInServiceImpl newService(DeadlineTracker tracker) {
+        CheckInServiceImpl service = new CheckInServiceImpl();
+        ReflectionTestUtils.setField(service, "baseMapper", checkInMapper);
+        ReflectionTestUtils.setField(service, "checkInMapper", checkInMapper);
+        ReflectionTestUtils.setField(service, "deadlineTracker", tracker);
+        return service;
+    }
+
+    private static DeadlineTracker newTracker() {
+        SystemSettingService systemSettingService = mock(SystemSettingService.class);
+        when(systemSettingService.getSettings()).thenReturn(SystemSettings.DEFAULTS);
+        DeadlineTracker tracker = new DeadlineTracker();
+        ReflectionTestUtils.setField(tracker, "systemSettingService", systemSettingService);
+        return tracker;
+    }
+
+    private static CheckIn copy(CheckIn source) {
+        CheckIn checkIn = new CheckIn();
+        checkIn.setId(source.getId());
+        checkIn.setReservationId(source.getReservationId());
+        checkIn.setUserId(source.getUserId());
+        checkIn.setCheckInTime(source.getCheckInTime());
+        checkIn.setStatus(source.getStatus());
+        checkIn.setUpdatedAt(source.getUpdatedAt());
+        return checkIn;
+    }
+}
@@ -0,0 +1,79 @@
+package com.studyroom.service.impl;
+
+import com.studyroom.mapper.ReservationMapper;
+import com.studyroom.mapper.RoomHourlyOccupancyMapper;
+import com.studyroom.mapper.SeatMapper;
+import com.studyroom.utils.Result;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DashboardServiceImplTest {
+
+    private final SeatMapper seatMapper = mock(SeatMapper.class);
+    private final ReservationMapper reservationMapper = mock(ReservationMapper.class);
+    private final RoomHourlyOccupancyMapper roomHourlyOccupancyMapper = mock(RoomHourlyOccupancyMapper.class);
+
+    private DashboardServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DashboardServiceImpl();
+        ReflectionTestUtils.setField(service, "seatMapper", seatMapper);
+        ReflectionTestUtils.setField(service, "reservationMapper", reservationMapper);
+        ReflectionTestUtils.setField(service, "roomHourlyOccupancyMapper", roomHourlyOccupancyMapper);
+        ReflectionTestUtils.setField(service, "queryThreads", 4);
+        ReflectionTestUtils.setField(service, "queryTimeoutMillis", 2000L);
+        // 每次读取都重新计算
+        ReflectionTestUtils.setField(service, "maxStalenessMillis", -1L);
+        service.init();
+
+        when(reservationMapper.selectCount(any())).thenReturn(3L);
+        when(reservationMapper.countTodayReservations()).thenReturn(12);
+        when(reservationMapper.countYesterdayReservations()).thenReturn(10);
+        when(reservationMapper.countNoShowReservations()).thenReturn(1);
+        when(reservationMapper.countTotalReservations()).thenReturn(20);
+        when(roomHourlyOccupancyMapper.selectHourlyMinutes(any())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void failedQueryKeepsPreviousValueAndMarksPartial() {
+        when(seatMapper.selectCount(any())).thenReturn(40L);
+        Map<?, ?> first = statistics();
+        assertEquals(40, first.get("totalSeats"));
+        assertEquals(false, first.get("partial"));
+
+        when(seatMapper.selectCount(any())).thenThrow(new RuntimeException("数据库不可用"));
+        Map<?, ?> second = statistics();
+        assertEquals(40, second.get("totalSeats"));
+        assertEquals(true, second.get("partial"));
+        assertEquals(12, second.get("todayReservations"));
+    }
+
+    @Test
+    void failedQueryWithoutPreviousSnapshotReportsZero() {
+        when(seatMapper.selectCount(any())).thenThrow(new RuntimeException("数据库不可用"));
+        Map<?, ?> statistics = statistics();
+        assertEquals(0, statistics.get("totalSeats"));
+        assertEquals(true, statistics.get("partial"));
+    }
+
+    private Map<?, ?> statistics() {
+        Result<?> result = service.getDashboardStatistics();
+        return (Map<?, ?>) result.getData();
+    }
+}
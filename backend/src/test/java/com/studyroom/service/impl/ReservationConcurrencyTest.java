@@ -0,0 +1,237 @@
+package com.studyroom.service.impl;
+
+import com.studyroom.entity.Reservation;
+import com.studyroom.entity.Seat;
+import com.studyroom.exception.BusinessException;
+import com.studyroom.mapper.ReservationMapper;
+import com.studyroom.mapper.SeatMapper;
+import com.studyroom.service.SeatStreamService;
+import com.studyroom.service.SystemSettingService;
+import com.studyroom.utils.DeadlineTracker;
+import com.studyroom.utils.Result;
+import com.studyroom.utils.SeatReservationIndex;
+import com.studyroom.utils.SeatSlotStore;
+import com.studyroom.utils.SystemSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 预约并发测试
+ * 数百个线程同时预约同一座位的同一时段，只允许一个成功；
+ * 多节点时由共享的座位时段位图（此处用内存实现模拟 Redis 脚本的原子性）保证
+ */
+class ReservationConcurrencyTest {
+
+    private static final int THREADS = 300;
+    private static final Long SEAT_ID = 1L;
+    private static final Long ROOM_ID = 10L;
+    private static final long SLOT_MILLIS = SeatSlotStore.SLOT_MINUTES * 60_000L;
+
+    /**
+     * 已写入数据库的预约，所有节点共享
+     */
+    private final ConcurrentLinkedQueue<Reservation> inserted = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private Date start;
+    private Date end;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime tomorrow = LocalDate.now().plusDays(1).atTime(10, 0);
+        start = toDate(tomorrow);
+        end = toDate(tomorrow.plusHours(2));
+    }
+
+    @Test
+    void singleNodeAllowsExactlyOneReservation() throws Exception {
+        SeatSlotStore disabled = new SeatSlotStore();
+        ReflectionTestUtils.setField(disabled, "enabled", false);
+        ReservationServiceImpl node = newNode(disabled);
+
+        List<Result<?>> results = rush(List.of(node), i -> start, i -> end);
+
+        assertEquals(1, successes(results));
+        assertEquals(1, inserted.size());
+    }
+
+    @Test
+    void multipleNodesAllowExactlyOneReservation() throws Exception {
+        Map<Long, Set<Long>> slots = new HashMap<>();
+        List<ReservationServiceImpl> nodes = List.of(newNode(sharedStore(slots)), newNode(sharedStore(slots)),
+                newNode(sharedStore(slots)));
+
+        List<Result<?>> results = rush(nodes, i -> start, i -> end);
+
+        assertEquals(1, successes(results));
+        assertEquals(1, inserted.size());
+    }
+
+    @Test
+    void overlappingRequestsNeverDoubleBook() throws Exception {
+        Map<Long, Set<Long>> slots = new HashMap<>();
+        List<ReservationServiceImpl> nodes = List.of(newNode(sharedStore(slots)), newNode(sharedStore(slots)));
+
+        // 每个请求的开始时间错开 0~7 个时段，时长 1~4 个时段，互相部分重叠
+        List<Result<?>> results = rush(nodes,
+                i -> new Date(start.getTime() + (i % 8) * SLOT_MILLIS),
+                i -> new Date(start.getTime() + (i % 8 + 1 + i % 4) * SLOT_MILLIS));
+
+        assertEquals(inserted.size(), successes(results));
+        List<Reservation> saved = new ArrayList<>(inserted);
+        for (int i = 0; i < saved.size(); i++) {
+            for (int j = i + 1; j < saved.size(); j++) {
+                Reservation a = saved.get(i);
+                Reservation b = saved.get(j);
+                assertFalse(a.getReservationInTime().before(b.getReservationOutTime())
+                                && b.getReservationInTime().before(a.getReservationOutTime()),
+                        "预约时段重叠: " + a.getId() + ", " + b.getId());
+            }
+        }
+    }
+
+    @Test
+    void rejectsAllWhenSharedStoreIsUnavailable() throws Exception {
+        SeatSlotStore unavailable = mock(SeatSlotStore.class);
+        when(unavailable.isEnabled()).thenReturn(true);
+        when(unavailable.tryReserve(any(), any(), any(), any())).thenReturn(null);
+        ReservationServiceImpl node = newNode(unavailable);
+
+        List<Result<?>> results = rush(List.of(node), i -> start, i -> end);
+
+        // 不能退回本节点索引，否则其他节点可能同时预约成功
+        assertEquals(0, successes(results));
+        assertEquals(0, inserted.size());
+    }
+
+    private List<Result<?>> rush(List<ReservationServiceImpl> nodes, TimeOf startOf, TimeOf endOf) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Result<?>>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int index = i;
+            ReservationServiceImpl node = nodes.get(i % nodes.size());
+            futures.add(pool.submit(() -> {
+                Reservation reservation = new Reservation();
+                reservation.setUserId((long) index + 1);
+                reservation.setSeatId(SEAT_ID);
+                reservation.setReservationInTime(startOf.apply(index));
+                reservation.setReservationOutTime(endOf.apply(index));
+                ready.countDown();
+                go.await();
+                try {
+                    return node.createReservation(reservation);
+                } catch (BusinessException e) {
+                    return Result.error(e.getMessage());
+                }
+            }));
+        }
+        ready.await();
+        go.countDown();
+        List<Result<?>> results = new ArrayList<>();
+        for (Future<Result<?>> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    /**
+     * 创建一个节点：节点内的索引和锁各自独立，数据库和座位时段存储按参数共享
+     */
+    private ReservationServiceImpl newNode(SeatSlotStore seatSlotStore) {
+        ReservationMapper reservationMapper = mock(ReservationMapper.class);
+        when(reservationMapper.insert(any(Reservation.class))).thenAnswer(invocation -> {
+            Reservation reservation = invocation.getArgument(0);
+            // 模拟数据库写入耗时，扩大并发窗口
+            Thread.sleep(1);
+            reservation.setId(ids.incrementAndGet());
+            inserted.add(reservation);
+            return 1;
+        });
+        SeatMapper seatMapper = mock(SeatMapper.class);
+        Seat seat = new Seat();
+        seat.setId(SEAT_ID);
+        seat.setRoomId(ROOM_ID);
+        when(seatMapper.selectById(anyLong())).thenReturn(seat);
+        SystemSettingService systemSettingService = mock(SystemSettingService.class);
+        when(systemSettingService.getSettings()).thenReturn(SystemSettings.DEFAULTS);
+
+        ReservationServiceImpl node = new ReservationServiceImpl();
+        ReflectionTestUtils.setField(node, "baseMapper", reservationMapper);
+        ReflectionTestUtils.setField(node, "reservationMapper", reservationMapper);
+        ReflectionTestUtils.setField(node, "seatMapper", seatMapper);
+        ReflectionTestUtils.setField(node, "seatReservationIndex", new SeatReservationIndex());
+        ReflectionTestUtils.setField(node, "seatSlotStore", seatSlotStore);
+        ReflectionTestUtils.setField(node, "deadlineTracker", mock(DeadlineTracker.class));
+        ReflectionTestUtils.setField(node, "seatStreamService", mock(SeatStreamService.class));
+        ReflectionTestUtils.setField(node, "systemSettingService", systemSettingService);
+        return node;
+    }
+
+    /**
+     * 所有节点共享的座位时段存储，检查并占用在同一把锁内完成，与 Redis 脚本一样是原子的
+     */
+    private static SeatSlotStore sharedStore(Map<Long, Set<Long>> slots) {
+        SeatSlotStore store = mock(SeatSlotStore.class);
+        when(store.isEnabled()).thenReturn(true);
+        when(store.tryReserve(any(), any(), any(), any())).thenAnswer(invocation -> {
+            Long seatId = invocation.getArgument(1);
+            long from = ((Date) invocation.getArgument(2)).getTime() / SLOT_MILLIS;
+            long to = (((Date) invocation.getArgument(3)).getTime() + SLOT_MILLIS - 1) / SLOT_MILLIS;
+            synchronized (slots) {
+                Set<Long> taken = slots.computeIfAbsent(seatId, k -> new HashSet<>());
+                for (long slot = from; slot < to; slot++) {
+                    if (taken.contains(slot)) {
+                        return false;
+                    }
+                }
+                for (long slot = from; slot < to; slot++) {
+                    taken.add(slot);
+                }
+                return true;
+            }
+        });
+        return store;
+    }
+
+    private static long successes(List<Result<?>> results) {
+        return results.stream().filter(Result::isSuccess).count();
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    @FunctionalInterface
+    private interface TimeOf {
+        Date apply(int index);
+    }
+}
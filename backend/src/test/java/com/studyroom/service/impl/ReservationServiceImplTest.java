@@ -0,0 +1,96 @@
+package com.studyroom.service.impl;
+
+import com.studyroom.entity.Reservation;
+import com.studyroom.entity.Seat;
+import com.studyroom.exception.BusinessException;
+import com.studyroom.mapper.ReservationMapper;
+import com.studyroom.mapper.SeatMapper;
+import com.studyroom.service.SeatStreamService;
+import com.studyroom.utils.DeadlineTracker;
+import com.studyroom.utils.SeatReservationIndex;
+import com.studyroom.utils.SeatSlotStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationServiceImplTest {
+
+    private static final Long ID = 5L;
+    private static final Long SEAT_ID = 1L;
+    private static final Long ROOM_ID = 10L;
+
+    private ReservationMapper reservationMapper;
+    private SeatSlotStore seatSlotStore;
+    private ReservationServiceImpl service;
+    private Reservation reservation;
+
+    @BeforeEach
+    void setUp() {
+        reservationMapper = mock(ReservationMapper.class);
+        seatSlotStore = mock(SeatSlotStore.class);
+        SeatMapper seatMapper = mock(SeatMapper.class);
+        Seat seat = new Seat();
+        seat.setId(SEAT_ID);
+        seat.setRoomId(ROOM_ID);
+        when(seatMapper.selectById(anyLong())).thenReturn(seat);
+
+        reservation = new Reservation();
+        reservation.setId(ID);
+        reservation.setSeatId(SEAT_ID);
+        reservation.setReservationInTime(new Date(System.currentTimeMillis() + 3_600_000L));
+        reservation.setReservationOutTime(new Date(System.currentTimeMillis() + 7_200_000L));
+        when(reservationMapper.selectById(ID)).thenReturn(reservation);
+
+        service = new ReservationServiceImpl();
+        ReflectionTestUtils.setField(service, "baseMapper", reservationMapper);
+        ReflectionTestUtils.setField(service, "reservationMapper", reservationMapper);
+        ReflectionTestUtils.setField(service, "seatMapper", seatMapper);
+        ReflectionTestUtils.setField(service, "seatReservationIndex", new SeatReservationIndex());
+        ReflectionTestUtils.setField(service, "seatSlotStore", seatSlotStore);
+        ReflectionTestUtils.setField(service, "deadlineTracker", mock(DeadlineTracker.class));
+        ReflectionTestUtils.setField(service, "seatStreamService", mock(SeatStreamService.class));
+    }
+
+    @Test
+    void cancelReleasesSlotsOfBlockingReservation() {
+        reservation.setReservationStatus("已预约");
+        when(reservationMapper.cancelById(ID)).thenReturn(1);
+
+        assertTrue(service.cancelReservation(ID).isSuccess());
+        verify(seatSlotStore, times(1)).release(ROOM_ID, SEAT_ID,
+                reservation.getReservationInTime(), reservation.getReservationOutTime());
+    }
+
+    @Test
+    void cancelDoesNotReleaseSlotsOfFinishedReservation() {
+        // 已完成、违约、已取消的预约时段可能已属于后续预约
+        for (String status : new String[]{"完成预约", "违约中", "取消预约"}) {
+            reservation.setReservationStatus(status);
+            assertThrows(BusinessException.class, () -> service.cancelReservation(ID));
+        }
+        verify(reservationMapper, never()).cancelById(any());
+        verify(seatSlotStore, never()).release(any(), any(), any(), any());
+    }
+
+    @Test
+    void cancelDoesNotReleaseSlotsWhenStatusChangedConcurrently() {
+        // 读取时仍是已预约，条件更新时已被签出或标记违约
+        reservation.setReservationStatus("已预约");
+        when(reservationMapper.cancelById(ID)).thenReturn(0);
+
+        assertThrows(BusinessException.class, () -> service.cancelReservation(ID));
+        verify(seatSlotStore, never()).release(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,113 @@
+package com.studyroom.service.impl;
+
+import com.studyroom.entity.CheckIn;
+import com.studyroom.entity.Reservation;
+import com.studyroom.entity.Seat;
+import com.studyroom.mapper.CheckInMapper;
+import com.studyroom.mapper.ReservationMapper;
+import com.studyroom.mapper.RoomHourlyOccupancyMapper;
+import com.studyroom.mapper.SeatMapper;
+import com.studyroom.service.RoomOccupancyService;
+import com.studyroom.task.RoomOccupancyBackfillTask;
+import com.studyroom.utils.RedisLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 占用汇总重建：是否已完成以重建标记为准，不以汇总表是否为空判断；失败时定时重试
+ */
+class RoomOccupancyServiceImplTest {
+
+    private RoomHourlyOccupancyMapper occupancyMapper;
+    private CheckInMapper checkInMapper;
+    private RoomOccupancyServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        occupancyMapper = mock(RoomHourlyOccupancyMapper.class);
+        checkInMapper = mock(CheckInMapper.class);
+        ReservationMapper reservationMapper = mock(ReservationMapper.class);
+        SeatMapper seatMapper = mock(SeatMapper.class);
+
+        Reservation reservation = new Reservation();
+        reservation.setId(7L);
+        reservation.setSeatId(1L);
+        when(reservationMapper.selectBatchIds(anyList())).thenReturn(List.of(reservation));
+        Seat seat = new Seat();
+        seat.setId(1L);
+        seat.setRoomId(10L);
+        when(seatMapper.selectBatchIds(anyList())).thenReturn(List.of(seat));
+
+        service = new RoomOccupancyServiceImpl();
+        ReflectionTestUtils.setField(service, "roomHourlyOccupancyMapper", occupancyMapper);
+        ReflectionTestUtils.setField(service, "checkInMapper", checkInMapper);
+        ReflectionTestUtils.setField(service, "reservationMapper", reservationMapper);
+        ReflectionTestUtils.setField(service, "seatMapper", seatMapper);
+    }
+
+    @Test
+    void completedMarkerSkipsBackfill() {
+        when(occupancyMapper.selectPendingBackfillCutoffForUpdate()).thenReturn(null);
+
+        assertTrue(service.backfill());
+        verify(checkInMapper, never()).selectList(any());
+        verify(occupancyMapper, never()).upsertBatch(anyList());
+    }
+
+    @Test
+    void pendingMarkerBackfillsEvenWhenLiveRowsExist() {
+        // 实时签到已写入汇总行，但重建尚未完成
+        when(occupancyMapper.selectCount(any())).thenReturn(5L);
+        when(occupancyMapper.selectPendingBackfillCutoffForUpdate()).thenReturn(new Date());
+        CheckIn checkIn = new CheckIn();
+        checkIn.setId(1L);
+        checkIn.setReservationId(7L);
+        checkIn.setCheckInTime(new Date(System.currentTimeMillis() - 7_200_000L));
+        checkIn.setCheckOutTime(new Date(System.currentTimeMillis() - 3_600_000L));
+        when(checkInMapper.selectList(any())).thenReturn(List.of(checkIn), List.of());
+
+        assertTrue(service.backfill());
+        verify(occupancyMapper, times(1)).upsertBatch(anyList());
+        verify(occupancyMapper, times(1)).completeBackfill(any());
+    }
+
+    @Test
+    void taskRetriesUntilBackfillCompletes() {
+        RoomOccupancyService occupancyService = mock(RoomOccupancyService.class);
+        when(occupancyService.backfill())
+                .thenThrow(new IllegalStateException("数据库不可用"))
+                .thenReturn(true);
+        RedisLock redisLock = mock(RedisLock.class);
+        when(redisLock.tryLock(anyString(), any())).thenReturn(null, "token", "token");
+
+        RoomOccupancyBackfillTask task = new RoomOccupancyBackfillTask();
+        ReflectionTestUtils.setField(task, "roomOccupancyService", occupancyService);
+        ReflectionTestUtils.setField(task, "redisLock", redisLock);
+        ReflectionTestUtils.setField(task, "lockTtl", Duration.ofMinutes(30));
+
+        // 未获得锁、重建失败都不算完成，之后的定时执行继续重试
+        task.onReady();
+        task.backfill();
+        task.backfill();
+        // 已完成后不再获取锁
+        task.backfill();
+
+        verify(occupancyService, times(2)).backfill();
+        verify(redisLock, times(3)).tryLock(anyString(), any());
+    }
+}
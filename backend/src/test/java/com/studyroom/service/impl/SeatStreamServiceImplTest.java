@@ -0,0 +1,174 @@
+package com.studyroom.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.studyroom.entity.Reservation;
+import com.studyroom.entity.Room;
+import com.studyroom.entity.Seat;
+import com.studyroom.mapper.ReservationMapper;
+import com.studyroom.mapper.RoomMapper;
+import com.studyroom.mapper.SeatMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 座位变化通过 Redis 广播给其他节点；重连时事件ID不属于当前通道则推送全量状态
+ */
+class SeatStreamServiceImplTest {
+
+    private static final String CHANNEL = "studyroom:seat:changed";
+    private static final Long ROOM_ID = 10L;
+    private static final Long SEAT_ID = 1L;
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+    private SeatMapper seatMapper;
+    private StringRedisTemplate stringRedisTemplate;
+    private MessageListener listener;
+    private SeatStreamServiceImpl service;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 推送线程按 Lambda 条件查询预约，需要实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Reservation.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        seatMapper = mock(SeatMapper.class);
+        RoomMapper roomMapper = mock(RoomMapper.class);
+        ReservationMapper reservationMapper = mock(ReservationMapper.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+
+        Seat seat = new Seat();
+        seat.setId(SEAT_ID);
+        seat.setRoomId(ROOM_ID);
+        seat.setSeatNum("A1");
+        seat.setStatus("available");
+        when(seatMapper.selectById(anyLong())).thenReturn(seat);
+        when(seatMapper.selectByRoomId(ROOM_ID)).thenReturn(List.of(seat));
+        when(roomMapper.selectById(ROOM_ID)).thenReturn(new Room());
+        when(reservationMapper.selectRoomBlockingReservations(eq(ROOM_ID), any(), any())).thenReturn(List.of());
+
+        service = new SeatStreamServiceImpl();
+        ReflectionTestUtils.setField(service, "seatMapper", seatMapper);
+        ReflectionTestUtils.setField(service, "roomMapper", roomMapper);
+        ReflectionTestUtils.setField(service, "reservationMapper", reservationMapper);
+        ReflectionTestUtils.setField(service, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(service, "redisMessageListenerContainer", container);
+        ReflectionTestUtils.setField(service, "channel", CHANNEL);
+        ReflectionTestUtils.setField(service, "timeout", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(service, "historySize", 256);
+        ReflectionTestUtils.setField(service, "publishQueueCapacity", 100);
+        ReflectionTestUtils.setField(service, "senderThreads", 1);
+        ReflectionTestUtils.setField(service, "maxPendingEvents", 512);
+        service.init();
+
+        ArgumentCaptor<MessageListener> captor = ArgumentCaptor.forClass(MessageListener.class);
+        verify(container).addMessageListener(captor.capture(), any(Topic.class));
+        listener = captor.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void localChangeIsBroadcastToOtherNodes() {
+        service.seatChanged(SEAT_ID);
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(CHANNEL), message.capture());
+        assertTrue(message.getValue().endsWith("\n" + SEAT_ID));
+
+        // 自己发出的广播不重复处理
+        seatMapper = mock(SeatMapper.class);
+        ReflectionTestUtils.setField(service, "seatMapper", seatMapper);
+        listener.onMessage(message(message.getValue()), null);
+        verify(seatMapper, after(200).never()).selectById(anyLong());
+    }
+
+    @Test
+    void remoteChangeIsPublishedToLocalSubscribers() {
+        service.subscribe(ROOM_ID, null);
+
+        listener.onMessage(message("other-node\n" + SEAT_ID), null);
+
+        verify(seatMapper, timeout(1000)).selectById(SEAT_ID);
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void reconnectWithForeignEventIdReceivesSnapshot() throws Exception {
+        String eventId = firstEventId(service.subscribe(ROOM_ID, null));
+
+        // 同一通道的事件ID只补发遗漏的变化，当前没有变化
+        assertTrue(sentEvents(service.subscribe(ROOM_ID, eventId)).isEmpty());
+
+        // 其他节点或重启前的事件ID，版本号不可比较，推送全量状态
+        String version = eventId.substring(eventId.lastIndexOf(':') + 1);
+        assertTrue(sentEvents(service.subscribe(ROOM_ID, "other-epoch:" + version)).contains("event:snapshot"));
+        assertTrue(sentEvents(service.subscribe(ROOM_ID, version)).contains("event:snapshot"));
+    }
+
+    private String firstEventId(SseEmitter emitter) throws InterruptedException {
+        String events = sentEvents(emitter);
+        assertTrue(events.contains("event:snapshot"));
+        Matcher matcher = EVENT_ID.matcher(events);
+        assertTrue(matcher.find());
+        assertFalse(matcher.group(1).isEmpty());
+        return matcher.group(1);
+    }
+
+    /**
+     * 连接尚未交给容器时，写出的事件暂存在 emitter 中
+     */
+    @SuppressWarnings("unchecked")
+    private static String sentEvents(SseEmitter emitter) throws InterruptedException {
+        // 事件由发送线程异步写出
+        Thread.sleep(200);
+        Set<ResponseBodyEmitter.DataWithMediaType> sent =
+                (Set<ResponseBodyEmitter.DataWithMediaType>) ReflectionTestUtils.getField(emitter, "earlySendAttempts");
+        assertNotNull(sent);
+        return sent.stream().map(data -> String.valueOf(data.getData())).collect(Collectors.joining());
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,92 @@
+package com.studyroom.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    private static final int EXPECTED = 20_000;
+    private static final double FPP = 0.01;
+
+    @Test
+    void neverReportsAddedElementsAsAbsent() {
+        BloomFilter filter = new BloomFilter(EXPECTED, FPP);
+        for (int i = 0; i < EXPECTED; i++) {
+            filter.put("jti-" + i);
+        }
+        for (int i = 0; i < EXPECTED; i++) {
+            assertTrue(filter.mightContain("jti-" + i), "jti-" + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredValue() {
+        BloomFilter filter = new BloomFilter(EXPECTED, FPP);
+        for (int i = 0; i < EXPECTED; i++) {
+            filter.put("jti-" + i);
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < FPP * 2, "误判率 " + rate);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, FPP);
+        assertFalse(filter.mightContain("jti-1"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() throws Exception {
+        BloomFilter filter = new BloomFilter(EXPECTED, FPP);
+        int threads = 8;
+        int perThread = EXPECTED / threads;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    filter.put("jti-" + (offset + i));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        // 同一个字中的位被多个线程同时设置时不能互相覆盖
+        for (int i = 0; i < threads * perThread; i++) {
+            assertTrue(filter.mightContain("jti-" + i), "jti-" + i);
+        }
+    }
+
+    @Test
+    void rejectsInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, FPP));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+}
@@ -0,0 +1,41 @@
+package com.studyroom.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvWriterTest {
+
+    @Test
+    void quotesSeparatorsAndQuotes() throws IOException {
+        assertEquals("a,\"b,c\",\"say \"\"hi\"\"\",\r\n", write(Arrays.asList("a", "b,c", "say \"hi\"", null)));
+    }
+
+    @Test
+    void escapesFormulaCells() throws IOException {
+        assertEquals("\"'=SUM(A1:A2)\",\"'+1\",\"'-2\",\"'@cmd\",\"'\tx\"\r\n",
+                write(List.of("=SUM(A1:A2)", "+1", "-2", "@cmd", "\tx")));
+        // 转义后的内容中包含引号时同样按 CSV 规则转义
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\")\"\r\n", write(List.of("=HYPERLINK(\"http://x\")")));
+    }
+
+    @Test
+    void keepsNumbersAndPlainText() throws IOException {
+        assertEquals("-5,3.5,张三,a=b\r\n", write(List.of(-5, 3.5, "张三", "a=b")));
+    }
+
+    private static String write(List<?> row) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(out);
+        writer.writeRow(row);
+        writer.flush();
+        // 去掉 BOM
+        return new String(out.toByteArray(), StandardCharsets.UTF_8).substring(1);
+    }
+}
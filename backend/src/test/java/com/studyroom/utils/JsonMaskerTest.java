@@ -0,0 +1,59 @@
+package com.studyroom.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JsonMaskerTest {
+
+    @Test
+    void masksSensitiveStringValues() {
+        assertEquals("{\"username\":\"alice\",\"password\":\"******\"}",
+                JsonMasker.maskJson("{\"username\":\"alice\",\"password\":\"secret\"}"));
+        assertEquals("{ \"Password\" : \"******\", \"refreshToken\":\"******\" }",
+                JsonMasker.maskJson("{ \"Password\" : \"p@ss\", \"refreshToken\":\"eyJ.x.y\" }"));
+    }
+
+    @Test
+    void handlesEscapedQuotesInsideValues() {
+        assertEquals("{\"password\":\"******\",\"note\":\"say \\\"hi\\\"\"}",
+                JsonMasker.maskJson("{\"password\":\"a\\\"b\",\"note\":\"say \\\"hi\\\"\"}"));
+    }
+
+    @Test
+    void masksLiteralValues() {
+        assertEquals("{\"verificationCode\":******,\"age\":18}",
+                JsonMasker.maskJson("{\"verificationCode\":123456,\"age\":18}"));
+        assertEquals("{\"token\":******}", JsonMasker.maskJson("{\"token\":null}"));
+    }
+
+    @Test
+    void masksFieldsInsideNestedObjectsAndArrays() {
+        assertEquals("{\"token\":{\"accessToken\":\"******\",\"expire\":3600},\"list\":[{\"password\":\"******\"}]}",
+                JsonMasker.maskJson("{\"token\":{\"accessToken\":\"abc\",\"expire\":3600},"
+                        + "\"list\":[{\"password\":\"x\"}]}"));
+    }
+
+    @Test
+    void keepsSensitiveWordsThatAreValuesNotKeys() {
+        String json = "{\"field\":\"password\",\"tokens\":\"abc\"}";
+        assertEquals(json, JsonMasker.maskJson(json));
+    }
+
+    @Test
+    void toleratesTruncatedJson() {
+        assertEquals("{\"user\":\"a\",\"password\":\"******\"", JsonMasker.maskJson("{\"user\":\"a\",\"password\":\"sec"));
+        assertNull(JsonMasker.maskJson(null));
+        assertEquals("", JsonMasker.maskJson(""));
+    }
+
+    @Test
+    void masksQueryParameters() {
+        assertEquals("username=alice&password=******&remember=true",
+                JsonMasker.maskQuery("username=alice&password=secret&remember=true"));
+        assertEquals("token=******", JsonMasker.maskQuery("token=abc"));
+        assertEquals("a=1&&b", JsonMasker.maskQuery("a=1&&b"));
+        assertEquals("passwordHint=x", JsonMasker.maskQuery("passwordHint=x"));
+    }
+}
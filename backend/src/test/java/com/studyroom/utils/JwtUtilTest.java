@@ -0,0 +1,68 @@
+package com.studyroom.utils;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+
+    @Test
+    void verifyReturnsClaimsAndCachesPrincipal() {
+        JwtUtil jwtUtil = newJwtUtil(3_600_000L);
+        String token = jwtUtil.generateToken("alice", Map.of("userId", 7L, "username", "alice", "role", "admin"));
+
+        JwtPrincipal principal = jwtUtil.verify(token);
+        assertEquals("alice", principal.getSubject());
+        assertEquals(7L, principal.getUserId());
+        assertEquals("admin", principal.getRole());
+        assertFalse(principal.isRefresh());
+        // 第二次验证直接返回缓存的身份信息
+        assertSame(principal, jwtUtil.verify(token));
+    }
+
+    @Test
+    void refreshTokenIsMarked() {
+        JwtUtil jwtUtil = newJwtUtil(3_600_000L);
+        assertTrue(jwtUtil.verify(jwtUtil.generateRefreshToken("alice")).isRefresh());
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        JwtUtil jwtUtil = newJwtUtil(3_600_000L);
+        String token = jwtUtil.generateToken("alice");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtUtil.verify(tampered));
+        assertThrows(JwtException.class, () -> jwtUtil.verify(""));
+        assertFalse(jwtUtil.validateToken(tampered));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        JwtUtil jwtUtil = newJwtUtil(-1000L);
+        String token = jwtUtil.generateToken("alice");
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.verify(token));
+    }
+
+    private static JwtUtil newJwtUtil(long expire) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret",
+                Base64.getEncoder().encodeToString("studyroomSecretKeystudyroomSecretKeystudyroomSecretKey".getBytes()));
+        ReflectionTestUtils.setField(jwtUtil, "expire", expire);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpire", 7_200_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaximumSize", 100L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
@@ -0,0 +1,116 @@
+package com.studyroom.utils;
+
+import com.studyroom.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginRateLimiterTest {
+
+    @Test
+    void allowsBurstUpToCapacityPerUsername() {
+        LoginRateLimiter limiter = newLimiter(3, Duration.ofHours(1), 1000, Duration.ofHours(1));
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("alice", "10.0.0." + i);
+        }
+        // 用户名不区分大小写和首尾空格
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> limiter.acquire(" Alice ", "10.0.0.9"));
+        assertTrue(e.getMessage().contains("秒后再试"));
+        // 其他用户不受影响
+        assertDoesNotThrow(() -> limiter.acquire("bob", "10.0.0.9"));
+    }
+
+    @Test
+    void limitsClientIpAcrossUsernames() {
+        LoginRateLimiter limiter = newLimiter(1000, Duration.ofHours(1), 5, Duration.ofHours(1));
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("user" + i, "192.168.1.1");
+        }
+        assertThrows(TooManyRequestsException.class, () -> limiter.acquire("user99", "192.168.1.1"));
+        assertDoesNotThrow(() -> limiter.acquire("user99", "192.168.1.2"));
+    }
+
+    @Test
+    void refillsOneTokenPerEmissionInterval() throws InterruptedException {
+        // 每 200 毫秒补充一个令牌
+        LoginRateLimiter limiter = newLimiter(2, Duration.ofMillis(400), 1000, Duration.ofHours(1));
+        limiter.acquire("carol", null);
+        limiter.acquire("carol", null);
+        assertThrows(TooManyRequestsException.class, () -> limiter.acquire("carol", null));
+
+        Thread.sleep(250);
+        assertDoesNotThrow(() -> limiter.acquire("carol", null));
+        assertThrows(TooManyRequestsException.class, () -> limiter.acquire("carol", null));
+    }
+
+    @Test
+    void concurrentAttemptsNeverExceedCapacity() throws Exception {
+        int capacity = 100;
+        int threads = 64;
+        int attemptsPerThread = 50;
+        LoginRateLimiter limiter = newLimiter(capacity, Duration.ofHours(1), Integer.MAX_VALUE, Duration.ofHours(1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int allowed = 0;
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    try {
+                        limiter.acquire("dave", "10.1.1.1");
+                        allowed++;
+                    } catch (TooManyRequestsException e) {
+                        // 超出限制
+                    }
+                }
+                return allowed;
+            }));
+        }
+        start.countDown();
+        int allowed = 0;
+        for (Future<Integer> result : results) {
+            allowed += result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        // CAS 更新不会丢失，也不会多放行
+        assertEquals(capacity, allowed);
+    }
+
+    @Test
+    void disabledLimiterAllowsEverything() {
+        LoginRateLimiter limiter = newLimiter(1, Duration.ofHours(1), 1, Duration.ofHours(1));
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire("erin", "10.0.0.1");
+        }
+    }
+
+    private static LoginRateLimiter newLimiter(int usernameCapacity, Duration usernamePeriod,
+                                               int ipCapacity, Duration ipPeriod) {
+        LoginRateLimiter limiter = new LoginRateLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "usernameCapacity", usernameCapacity);
+        ReflectionTestUtils.setField(limiter, "usernamePeriod", usernamePeriod);
+        ReflectionTestUtils.setField(limiter, "ipCapacity", ipCapacity);
+        ReflectionTestUtils.setField(limiter, "ipPeriod", ipPeriod);
+        ReflectionTestUtils.setField(limiter, "maximumKeys", 10_000L);
+        limiter.init();
+        return limiter;
+    }
+}
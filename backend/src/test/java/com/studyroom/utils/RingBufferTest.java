@@ -0,0 +1,110 @@
+package com.studyroom.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(8, new RingBuffer<>(5).capacity());
+        assertEquals(8, new RingBuffer<>(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(1));
+    }
+
+    @Test
+    void rejectsOfferWhenFullAndAcceptsAfterDrain() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertEquals(List.of(0, 1), drained);
+
+        // 归还的槽位可以再次写入，并保持先进先出
+        assertTrue(buffer.offer(4));
+        assertTrue(buffer.offer(5));
+        assertFalse(buffer.offer(6));
+        assertEquals(4, buffer.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), drained);
+        assertEquals(0, buffer.drain(drained::add, 10));
+    }
+
+    @Test
+    void concurrentProducersNeitherLoseNorDuplicateElements() throws Exception {
+        int producers = 8;
+        int perProducer = 5_000;
+        RingBuffer<Long> buffer = new RingBuffer<>(1024);
+
+        // 每个生产者的元素编码为 生产者编号 * perProducer + 序号
+        int[] nextExpected = new int[producers];
+        AtomicInteger received = new AtomicInteger();
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    // 队列满时重试，保证全部元素最终写入
+                    while (!buffer.offer(base + i)) {
+                        rejected.incrementAndGet();
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        int total = producers * perProducer;
+        while (received.get() < total && System.nanoTime() < deadline) {
+            int count = buffer.drain(value -> {
+                int producer = (int) (value / perProducer);
+                int sequence = (int) (value % perProducer);
+                // 同一生产者的元素必须按写入顺序被取出，且不重复
+                if (nextExpected[producer] != sequence) {
+                    outOfOrder.set(true);
+                }
+                nextExpected[producer] = sequence + 1;
+                received.incrementAndGet();
+            }, 256);
+            if (count == 0) {
+                Thread.onSpinWait();
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(total, received.get());
+        assertFalse(outOfOrder.get());
+        for (int p = 0; p < producers; p++) {
+            assertEquals(perProducer, nextExpected[p]);
+        }
+        assertEquals(0, buffer.drain(value -> received.incrementAndGet(), 10));
+    }
+}
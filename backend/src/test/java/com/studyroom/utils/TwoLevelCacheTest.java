@@ -0,0 +1,112 @@
+package com.studyroom.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 两级缓存加载测试，Redis 不可用（只使用本地缓存）
+ */
+class TwoLevelCacheTest {
+
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        TwoLevelCacheManager manager = new TwoLevelCacheManager(mock(RedisConnectionFactory.class), Set.of("test"),
+                1000, Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofHours(1), "test:evict", "test:");
+        cache = manager.getCache("test");
+        // 第一次访问 Redis 失败后暂停使用 Redis
+        cache.evict("init");
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        int threads = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return cache.get("room:1", () -> {
+                    loads.incrementAndGet();
+                    Thread.sleep(50);
+                    return "自习室1";
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("自习室1", result.get(10, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void slowLoadDoesNotBlockOtherKeys() throws Exception {
+        // 选一个与 slow 不在同一分段的键
+        StripedLock probe = new StripedLock(64);
+        String other = "other";
+        for (int i = 0; probe.get(other) == probe.get("slow"); i++) {
+            other = "other" + i;
+        }
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<String> slow = pool.submit(() -> cache.get("slow", () -> {
+            loading.countDown();
+            release.await();
+            return "slow";
+        }));
+        loading.await();
+
+        assertEquals("fast", cache.get(other, () -> "fast"));
+        assertFalse(slow.isDone());
+        release.countDown();
+        assertEquals("slow", slow.get(10, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    @Test
+    void evictDuringLoadDoesNotCacheStaleValue() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        // 加载线程先读到旧值，之后数据被修改并失效缓存
+        Future<String> stale = pool.submit(() -> cache.get("room:2", () -> {
+            loading.countDown();
+            release.await();
+            return "旧值";
+        }));
+        loading.await();
+        cache.evict("room:2");
+        release.countDown();
+
+        assertEquals("旧值", stale.get(10, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertNull(cache.get("room:2"));
+        assertEquals("新值", cache.get("room:2", () -> "新值"));
+        assertEquals("新值", cache.get("room:2", () -> "不应再次加载"));
+    }
+}
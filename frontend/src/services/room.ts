@@ -25,6 +25,25 @@ export async function getSeatsByRoomId(roomId: number) {
   })
 }
 
+// 订阅自习室座位实时状态（SSE）：先收到全量 snapshot，之后只收到变化的座位；
+// 断线后浏览器自动重连并带上 Last-Event-ID，服务端只补发遗漏的变化。返回关闭函数
+export function subscribeSeatStream(
+  roomId: number,
+  handlers: {
+    onSnapshot: (snapshot: { roomId: number; version: number; seats: { seatId: number; seatNum: string; state: string }[] }) => void
+    onSeat: (delta: { seatId: number; seatNum: string; state: string; version: number }) => void
+    onError?: (event: Event) => void
+  }
+) {
+  const source = new EventSource(`${service.defaults.baseURL}/seat/room/${roomId}/stream`)
+  source.addEventListener('snapshot', (event) => handlers.onSnapshot(JSON.parse((event as MessageEvent).data)))
+  source.addEventListener('seat', (event) => handlers.onSeat(JSON.parse((event as MessageEvent).data)))
+  if (handlers.onError) {
+    source.onerror = handlers.onError
+  }
+  return () => source.close()
+}
+
 // 获取自习室可用座位
 export async function getAvailableSeatsByRoomId(roomId: number) {
   return service({
@@ -146,6 +165,33 @@ export async function checkSeatAvailability(seatId: number, startTime: string, e
   })
 }
 
+// 获取自习室某天所有座位的时段占用网格（date 格式 yyyy-MM-dd，为空时为今天）
+export async function getRoomAvailability(roomId: number, date?: string) {
+  return service({
+    url: `/room/${roomId}/availability`,
+    method: 'get',
+    params: { date }
+  })
+}
+
+// 解码占用网格：返回 isOccupied(座位下标, 时段下标)，时段为一天中第几个 slotMinutes 分钟
+export function decodeRoomAvailability(grid: { occupied: string; slotsPerDay: number }) {
+  const binary = atob(grid.occupied)
+  const bytes = new Uint8Array(binary.length)
+  for (let i = 0; i < binary.length; i++) {
+    bytes[i] = binary.charCodeAt(i)
+  }
+  const view = new DataView(bytes.buffer)
+  return (seatIndex: number, slot: number) => {
+    const bit = seatIndex * grid.slotsPerDay + slot
+    // 每个 long 大端序存放，第 n 位在该 long 的低位起第 n % 64 位
+    const word = Math.floor(bit / 64)
+    const offset = bit % 64
+    const half = offset < 32 ? view.getUint32(word * 8 + 4) : view.getUint32(word * 8)
+    return ((half >>> (offset % 32)) & 1) === 1
+  }
+}
+
 // 上传图片
 export async function uploadImage(file: File) {
   const formData = new FormData()
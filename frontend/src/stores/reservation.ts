@@ -1,5 +1,6 @@
 import { defineStore } from 'pinia'
 import { ref, computed } from 'vue'
+import { useAuthStore } from './auth'
 import { getReservationList, createReservation, cancelReservation, getUpcomingReservations, getTodayReservations, signInReservation, signOutReservation } from '../services/reservation'
 
 // 定义后端返回数据类型
@@ -35,9 +36,12 @@ export const useReservationStore = defineStore('reservation', () => {
     loading.value = true
     error.value = null
     try {
-      const response = await getReservationList(params) as unknown as ApiResponse
+      // 默认只查询当前用户的预约，避免拉取全表
+      const authStore = useAuthStore()
+      const query = params ?? { userId: authStore.userInfo?.id }
+      const response = await getReservationList(query) as unknown as ApiResponse
       if (response.code === 200) {
-        reservations.value = response.data
+        reservations.value = Array.isArray(response.data) ? response.data : response.data.records
       }
       return response
     } catch (err: any) {
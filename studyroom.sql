@@ -55,6 +55,8 @@ CREATE TABLE `check_ins`  (
   PRIMARY KEY (`id`) USING BTREE,
   UNIQUE INDEX `uk_reservation`(`reservation_id` ASC) USING BTREE,
   INDEX `user_id`(`user_id` ASC) USING BTREE,
+  INDEX `idx_created_id`(`created_at` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_user_created_id`(`user_id` ASC, `created_at` ASC, `id` ASC) USING BTREE,
   CONSTRAINT `check_ins_ibfk_1` FOREIGN KEY (`reservation_id`) REFERENCES `reservations` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT,
   CONSTRAINT `check_ins_ibfk_2` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '签到表' ROW_FORMAT = DYNAMIC;
@@ -63,6 +65,17 @@ CREATE TABLE `check_ins`  (
 -- Records of check_ins
 -- ----------------------------
 
+-- ----------------------------
+-- Table structure for reservation_daily_stats
+-- ----------------------------
+DROP TABLE IF EXISTS `reservation_daily_stats`;
+CREATE TABLE `reservation_daily_stats`  (
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `reservation_count` int NOT NULL DEFAULT 0 COMMENT '预约数（按预约开始时间）',
+  `updated_at` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`stat_date`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '预约日汇总表' ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Table structure for reservations
 -- ----------------------------
@@ -83,6 +96,9 @@ CREATE TABLE `reservations`  (
   PRIMARY KEY (`id`) USING BTREE,
   INDEX `user_id`(`user_id` ASC) USING BTREE,
   INDEX `seat_id`(`seat_id` ASC) USING BTREE,
+  INDEX `idx_status_in_time`(`reservation_status` ASC, `reservation_in_time` ASC) USING BTREE,
+  INDEX `idx_in_time_id`(`reservation_in_time` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_user_in_time_id`(`user_id` ASC, `reservation_in_time` ASC, `id` ASC) USING BTREE,
   CONSTRAINT `reservations_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT,
   CONSTRAINT `reservations_ibfk_2` FOREIGN KEY (`seat_id`) REFERENCES `seats` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '预约表' ROW_FORMAT = DYNAMIC;
@@ -91,6 +107,32 @@ CREATE TABLE `reservations`  (
 -- Records of reservations
 -- ----------------------------
 
+-- ----------------------------
+-- Table structure for room_occupancy_backfill
+-- ----------------------------
+DROP TABLE IF EXISTS `room_occupancy_backfill`;
+CREATE TABLE `room_occupancy_backfill`  (
+  `id` tinyint NOT NULL COMMENT '固定为1，只有一行',
+  `cutoff` datetime NOT NULL COMMENT '实时汇总开始时间，重建只统计此前的签到签退',
+  `completed_at` datetime NULL DEFAULT NULL COMMENT '重建完成时间，为空表示尚未重建',
+  PRIMARY KEY (`id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '自习室占用汇总重建标记' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Table structure for room_hourly_occupancy
+-- ----------------------------
+DROP TABLE IF EXISTS `room_hourly_occupancy`;
+CREATE TABLE `room_hourly_occupancy`  (
+  `room_id` bigint NOT NULL COMMENT '自习室ID',
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `stat_hour` tinyint NOT NULL COMMENT '小时（0-23）',
+  `occupied_minutes` int NOT NULL DEFAULT 0 COMMENT '座位被占用的总分钟数',
+  `check_in_count` int NOT NULL DEFAULT 0 COMMENT '签到次数',
+  `updated_at` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`room_id`, `stat_date`, `stat_hour`) USING BTREE,
+  INDEX `idx_date_hour`(`stat_date` ASC, `stat_hour` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '自习室按小时占用汇总表' ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Table structure for rooms
 -- ----------------------------
@@ -253,6 +295,8 @@ CREATE TABLE `violations`  (
   PRIMARY KEY (`id`) USING BTREE,
   INDEX `user_id`(`user_id` ASC) USING BTREE,
   INDEX `reservation_id`(`reservation_id` ASC) USING BTREE,
+  INDEX `idx_created_id`(`created_at` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_user_created_id`(`user_id` ASC, `created_at` ASC, `id` ASC) USING BTREE,
   CONSTRAINT `violations_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT,
   CONSTRAINT `violations_ibfk_2` FOREIGN KEY (`reservation_id`) REFERENCES `reservations` (`id`) ON DELETE SET NULL ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '违规表' ROW_FORMAT = DYNAMIC;